@@ -0,0 +1,111 @@
+package com.cme.pricing.benchmark;
+
+import com.cme.pricing.generator.PricingDataGenerator;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.report.ReportGenerator;
+import com.cme.pricing.service.EditJournal;
+import com.cme.pricing.service.PricingService;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Synthetic datasets and wired-up components for the benchmarks. Files are written once
+ * per row count and error rate under target/jmh-data and reused by later runs.
+ *
+ * A share errorRate of the rows is broken, spread evenly over the kinds of error that
+ * PricingDataGenerator writes. The rows are the same on every run for the same arguments.
+ */
+public final class BenchmarkData {
+
+    private static final Path DATA_DIR = Path.of("target", "jmh-data");
+    // Registry the components record their timers and counters to, as the application's does
+    private static final MeterRegistry METER_REGISTRY = new SimpleMeterRegistry();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a CSV file with the given number of rows, writing it if it does not exist yet
+     */
+    public static synchronized Path csv(int rows, double errorRate) throws IOException {
+        // Named apart from files written before duplicates always repeated a written GUID
+        Path path = DATA_DIR.resolve(String.format(Locale.ROOT, "pricing-%d-%.3f-v2.csv", rows, errorRate));
+        if (Files.exists(path)) {
+            return path;
+        }
+        Files.createDirectories(DATA_DIR);
+        PricingDataGenerator generator = new PricingDataGenerator();
+        generator.setRows(rows);
+        generator.setDuplicateRatio(errorRate / 4);
+        generator.setMissingFieldRatio(errorRate / 4);
+        generator.setInvalidPriceRatio(errorRate / 4);
+        generator.setUnknownExchangeRatio(errorRate / 4);
+        generator.setSeed(rows);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        generator.write(temp);
+        Files.move(temp, path);
+        return path;
+    }
+
+    /**
+     * Returns a parser using the given backend ("opencsv" or "mmap")
+     */
+    public static CSVParser parser(String backend) {
+        CSVParser parser = new CSVParser();
+        inject(parser, "backend", backend);
+        return parser;
+    }
+
+    /**
+     * Returns a validator using the given number of threads for large lists (0 = all cores)
+     */
+    public static PricingValidator validator(int parallelism) {
+        PricingValidator validator = new PricingValidator();
+        inject(validator, "parallelism", parallelism);
+        inject(validator, "meterRegistry", METER_REGISTRY);
+        return validator;
+    }
+
+    /**
+     * Returns a report generator wired like the application's
+     */
+    public static ReportGenerator reportGenerator() {
+        ReportGenerator generator = new ReportGenerator();
+        inject(generator, "meterRegistry", METER_REGISTRY);
+        return generator;
+    }
+
+    /**
+     * Returns a service wired like the application's, without journaling, and with the
+     * given file loaded
+     */
+    public static PricingService loadedService(Path csv, String backend) throws IOException {
+        PricingService service = new PricingService();
+        inject(service, "csvParser", parser(backend));
+        inject(service, "validator", validator(0));
+        inject(service, "journal", new EditJournal());
+        inject(service, "meterRegistry", METER_REGISTRY);
+        service.loadAndValidateData(csv.toString());
+        return service;
+    }
+
+    /**
+     * Sets a field that Spring would otherwise inject
+     */
+    private static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
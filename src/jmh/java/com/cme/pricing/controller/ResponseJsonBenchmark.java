@@ -0,0 +1,61 @@
+package com.cme.pricing.controller;
+
+import com.cme.pricing.benchmark.BenchmarkData;
+import com.cme.pricing.service.PricingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the bodies of GET /api/pricing/report and GET /api/pricing/records for a loaded
+ * file, as the controller's message converter does, to a stream that discards them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class ResponseJsonBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0.1"})
+    public double errorRate;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private PricingService service;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = BenchmarkData.loadedService(BenchmarkData.csv(rows, errorRate), "mmap");
+        // Build the lazily sorted lists up front, so only the writing is measured
+        service.getCurrentReport().getAllRecords().size();
+        service.getAllRecordsSorted();
+    }
+
+    @Benchmark
+    public void report() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), new ReportJson(service.getCurrentReport()));
+    }
+
+    @Benchmark
+    public void records() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(),
+                new RecordListJson(service.getAllRecordsSorted(), service, null));
+    }
+}
@@ -0,0 +1,60 @@
+package com.cme.pricing.parser;
+
+import com.cme.pricing.benchmark.BenchmarkData;
+import com.cme.pricing.model.PricingRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a whole file into records with either parser backend
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class CSVParserBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0.1"})
+    public double errorRate;
+
+    @Param({"opencsv", "mmap"})
+    public String backend;
+
+    private String file;
+    private CSVParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = BenchmarkData.csv(rows, errorRate).toString();
+        parser = BenchmarkData.parser(backend);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parser.shutdown();
+    }
+
+    @Benchmark
+    public List<PricingRecord> parseFile() throws IOException {
+        return parser.parseFile(file);
+    }
+}
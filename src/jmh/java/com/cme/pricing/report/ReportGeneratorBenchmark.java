@@ -0,0 +1,68 @@
+package com.cme.pricing.report;
+
+import com.cme.pricing.benchmark.BenchmarkData;
+import com.cme.pricing.model.ValidationReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the text report of a loaded file, built in memory and streamed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class ReportGeneratorBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0.1"})
+    public double errorRate;
+
+    private final ReportGenerator generator = BenchmarkData.reportGenerator();
+    private ValidationReport report;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        report = BenchmarkData.loadedService(BenchmarkData.csv(rows, errorRate), "mmap").getCurrentReport();
+        // Build the lazily sorted lists up front, so only the writing is measured
+        report.getAllRecords().size();
+        report.getDuplicateRecordsList().size();
+        output = Files.createTempFile("report", ".txt");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public String generateTextReport() throws IOException {
+        return generator.generateTextReport(report, output.toString());
+    }
+
+    @Benchmark
+    public Path writeTextReport() throws IOException {
+        generator.writeTextReport(report, output.toString());
+        return output;
+    }
+}
@@ -0,0 +1,82 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.benchmark.BenchmarkData;
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.store.RecordStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recounting the report of a loaded file, and sorting its records into report order.
+ * The report order is cached by the store, so each sort runs on a freshly filled copy
+ * (see UnsortedStore).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class PricingServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0.1"})
+    public double errorRate;
+
+    private PricingService service;
+    private List<PricingRecord> records;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = BenchmarkData.loadedService(BenchmarkData.csv(rows, errorRate), "mmap");
+        records = service.getAllRecords();
+    }
+
+    /**
+     * A store of the loaded records that has not built its report order yet, refilled
+     * before every call of sortRecordsForReport only
+     */
+    @State(Scope.Thread)
+    public static class UnsortedStore {
+
+        private RecordStore store;
+
+        @Setup(Level.Invocation)
+        public void fill(PricingServiceBenchmark benchmark) {
+            store = new RecordStore();
+            for (PricingRecord record : benchmark.records) {
+                store.add(record);
+            }
+        }
+    }
+
+    @Benchmark
+    public ValidationReport generateReport() {
+        return service.generateReport();
+    }
+
+    /**
+     * Builds the report order, which replaced sorting a copy of the record list
+     */
+    @Benchmark
+    public int[] sortRecordsForReport(UnsortedStore unsorted) {
+        return unsorted.store.reportOrder();
+    }
+}
@@ -0,0 +1,70 @@
+package com.cme.pricing.validator;
+
+import com.cme.pricing.benchmark.BenchmarkData;
+import com.cme.pricing.model.PricingRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating a parsed file, and the duplicate pass on its own. Validation is repeated on
+ * the same records, which gives the same results every time. parallelism 1 measures the
+ * serial path; 0 uses all cores above the parallel threshold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-jmh.xml")
+public class PricingValidatorBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0.1"})
+    public double errorRate;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private PricingValidator validator;
+    private List<PricingRecord> records;
+
+    @Setup
+    public void setUp() throws IOException {
+        validator = BenchmarkData.validator(parallelism);
+        records = BenchmarkData.parser("mmap").parseFile(BenchmarkData.csv(rows, errorRate).toString());
+        validator.validateAllRecords(records);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validator.shutdown();
+    }
+
+    @Benchmark
+    public List<PricingRecord> validateAllRecords() {
+        validator.validateAllRecords(records);
+        return records;
+    }
+
+    @Benchmark
+    public List<PricingRecord> identifyDuplicates() {
+        validator.identifyDuplicates(records);
+        return records;
+    }
+}
@@ -1,8 +1,11 @@
 package com.cme.pricing;
 
+import com.cme.pricing.generator.PricingDataGenerator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 /**
  * Main application class for Pricing Data Validation & Reporting Utility
  */
@@ -10,6 +13,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class PricingValidationApplication {
 
     public static void main(String[] args) {
+        // Generating test data needs none of the application, so it runs without Spring
+        if (args.length > 0 && args[0].equals("--generate")) {
+            PricingDataGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         // Check if CLI mode is requested
         if (args.length > 0 && args[0].equals("--cli")) {
             System.setProperty("spring.main.web-application-type", "none");
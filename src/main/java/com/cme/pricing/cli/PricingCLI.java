@@ -1,8 +1,14 @@
 package com.cme.pricing.cli;
 
+import com.cme.pricing.model.BatchReport;
+import com.cme.pricing.model.FileReport;
 import com.cme.pricing.model.PricingRecord;
 import com.cme.pricing.model.ValidationReport;
 import com.cme.pricing.report.ReportGenerator;
+import com.cme.pricing.service.BatchValidationService;
+import com.cme.pricing.service.LoadJob;
+import com.cme.pricing.service.LoadJobService;
+import com.cme.pricing.service.LoadProgress;
 import com.cme.pricing.service.PricingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -25,6 +31,15 @@ public class PricingCLI implements CommandLineRunner {
     @Autowired
     private ReportGenerator reportGenerator;
 
+    @Autowired
+    private BatchValidationService batchValidationService;
+
+    @Autowired
+    private LoadJobService loadJobService;
+
+    // How often the load progress line is refreshed
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+
     private Scanner scanner = new Scanner(System.in);
 
     @Override
@@ -68,6 +83,9 @@ public class PricingCLI implements CommandLineRunner {
                     generateReportFile();
                     break;
                 case "7":
+                    validateBatch();
+                    break;
+                case "8":
                     System.out.println("\nExiting... Goodbye!");
                     return;
                 default:
@@ -87,7 +105,8 @@ public class PricingCLI implements CommandLineRunner {
         System.out.println("4. Update record");
         System.out.println("5. Delete record");
         System.out.println("6. Generate text report file");
-        System.out.println("7. Exit");
+        System.out.println("7. Validate batch of CSV files");
+        System.out.println("8. Exit");
         System.out.println("-".repeat(60));
         System.out.print("Enter your choice: ");
     }
@@ -102,28 +121,72 @@ public class PricingCLI implements CommandLineRunner {
             return;
         }
 
+        LoadJob job;
         try {
-            ValidationReport report = pricingService.loadAndValidateData(filePath);
-            System.out.println("\n✓ Data loaded and validated successfully!");
-            System.out.println("\nSummary:");
-            System.out.println("  Total Records: " + report.getTotalRecords());
-            System.out.println("  Valid Records: " + report.getValidRecords());
-            System.out.println("  Invalid Records: " + report.getInvalidRecords());
-            System.out.println("  Duplicate Records: " + report.getDuplicateRecords());
-
-            // Calculate and display total missing values
-            int totalMissing = report.getMissingPriceRecords() +
-                    report.getMissingInstrumentGuidRecords() +
-                    report.getMissingTradeDateRecords() +
-                    report.getMissingExchangeRecords() +
-                    report.getMissingProductTypeRecords();
-            if (totalMissing > 0) {
-                System.out.println("  Missing Records: " + totalMissing);
-            }
-        } catch (IOException e) {
-            System.out.println("Error: Failed to load file - " + e.getMessage());
+            job = loadJobService.submit(filePath);
         } catch (IllegalArgumentException e) {
             System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        if (!awaitLoadJob(job)) {
+            return;
+        }
+
+        ValidationReport report = job.getReport();
+        System.out.println("\n✓ Data loaded and validated successfully!");
+        System.out.println("\nSummary:");
+        System.out.println("  Total Records: " + report.getTotalRecords());
+        System.out.println("  Valid Records: " + report.getValidRecords());
+        System.out.println("  Invalid Records: " + report.getInvalidRecords());
+        System.out.println("  Duplicate Records: " + report.getDuplicateRecords());
+
+        // Calculate and display total missing values
+        int totalMissing = report.getMissingPriceRecords() +
+                report.getMissingInstrumentGuidRecords() +
+                report.getMissingTradeDateRecords() +
+                report.getMissingExchangeRecords() +
+                report.getMissingProductTypeRecords();
+        if (totalMissing > 0) {
+            System.out.println("  Missing Records: " + totalMissing);
+        }
+    }
+
+    /**
+     * Shows the progress of a load job on one line until it finishes, the same figures
+     * GET /api/pricing/jobs/{jobId} reports. Returns true if the job completed.
+     */
+    private boolean awaitLoadJob(LoadJob job) {
+        while (!job.isFinished()) {
+            LoadProgress progress = job.getProgress();
+            System.out.printf("\r  %5.1f%%  %,d rows  %,d invalid  %,.0f rows/s  %.1f MB/s   ",
+                    job.getPercentComplete(),
+                    progress.getRowsParsed(),
+                    progress.getInvalidRows(),
+                    job.getRowsPerSecond(),
+                    job.getBytesPerSecond() / 1e6);
+            try {
+                Thread.sleep(PROGRESS_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                loadJobService.cancel(job.getId());
+                System.out.println("\nLoad cancelled.");
+                return false;
+            }
+        }
+        System.out.printf("\r  %5.1f%%  %,d rows in %.1f s%n",
+                job.getPercentComplete(),
+                job.getProgress().getRowsParsed(),
+                job.getElapsed().toMillis() / 1000.0);
+
+        switch (job.getStatus()) {
+            case COMPLETED:
+                return true;
+            case CANCELLED:
+                System.out.println("Load cancelled. The data loaded before is unchanged.");
+                return false;
+            default:
+                System.out.println("Error: Failed to load file - " + job.getError());
+                return false;
         }
     }
 
@@ -441,15 +504,6 @@ public class PricingCLI implements CommandLineRunner {
         if (record.getOriginalPriceValue() != null && !record.getOriginalPriceValue().trim().isEmpty()) {
             return record.getOriginalPriceValue();
         }
-        String error = record.getValidationError();
-        if (error != null && error.contains("Invalid price format: ")) {
-            int startIndex = error.indexOf("Invalid price format: ") + "Invalid price format: ".length();
-            int endIndex = error.indexOf(";", startIndex);
-            if (endIndex == -1) {
-                return error.substring(startIndex).trim();
-            }
-            return error.substring(startIndex, endIndex).trim();
-        }
         return "";
     }
 
@@ -697,11 +751,71 @@ public class PricingCLI implements CommandLineRunner {
 
         try {
             String outputPath = "validation_report.txt";
-            String filePath = reportGenerator.generateTextReport(report, outputPath);
+            reportGenerator.writeTextReport(report, outputPath);
             System.out.println("\n✓ Report generated successfully!");
-            System.out.println("File saved to: " + filePath);
+            System.out.println("File saved to: " + outputPath);
         } catch (IOException e) {
             System.out.println("Error: Failed to generate report file - " + e.getMessage());
         }
     }
+
+    private void validateBatch() {
+        System.out.println("\n--- Validate Batch of CSV Files ---");
+        System.out.print("Enter directory or glob (e.g., sample_data or incoming/*.csv): ");
+        String path = scanner.nextLine().trim();
+
+        if (path.isEmpty()) {
+            System.out.println("Error: Path cannot be empty.");
+            return;
+        }
+
+        System.out.print("Check duplicate GUIDs across files? (y/n): ");
+        boolean crossFileDuplicates = scanner.nextLine().trim().equalsIgnoreCase("y");
+
+        try {
+            BatchReport batch = batchValidationService.validateFiles(path, crossFileDuplicates);
+            System.out.println("\n✓ Batch validated successfully! The loaded data is unchanged.");
+
+            System.out.println("\nFiles:");
+            for (FileReport fileReport : batch.getFileReports()) {
+                if (fileReport.getError() != null) {
+                    System.out.println("  " + fileReport.getFilePath() + " - Error: " + fileReport.getError());
+                    continue;
+                }
+                ValidationReport report = fileReport.getReport();
+                String line = "  " + fileReport.getFilePath() + " - Total: " + report.getTotalRecords()
+                        + ", Valid: " + report.getValidRecords()
+                        + ", Invalid: " + report.getInvalidRecords()
+                        + ", Duplicates: " + report.getDuplicateRecords();
+                if (crossFileDuplicates && fileReport.getCrossFileDuplicates() > 0) {
+                    line += " (" + fileReport.getCrossFileDuplicates() + " across files)";
+                }
+                System.out.println(line);
+            }
+
+            ValidationReport merged = batch.getMergedReport();
+            System.out.println("\nMerged Summary:");
+            System.out.println("  Files: " + batch.getFileReports().size());
+            System.out.println("  Total Records: " + merged.getTotalRecords());
+            System.out.println("  Valid Records: " + merged.getValidRecords());
+            System.out.println("  Invalid Records: " + merged.getInvalidRecords());
+            System.out.println("  Duplicate Records: " + merged.getDuplicateRecords());
+            if (crossFileDuplicates) {
+                System.out.println("  Duplicates Across Files: " + batch.getCrossFileDuplicates());
+            }
+
+            int totalMissing = merged.getMissingPriceRecords() +
+                    merged.getMissingInstrumentGuidRecords() +
+                    merged.getMissingTradeDateRecords() +
+                    merged.getMissingExchangeRecords() +
+                    merged.getMissingProductTypeRecords();
+            if (totalMissing > 0) {
+                System.out.println("  Missing Records: " + totalMissing);
+            }
+        } catch (IOException e) {
+            System.out.println("Error: Failed to validate batch - " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
 }
@@ -1,20 +1,31 @@
 package com.cme.pricing.controller;
 
+import com.cme.pricing.model.BatchReport;
+import com.cme.pricing.model.FileReport;
 import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.RecordPage;
 import com.cme.pricing.model.ValidationReport;
 import com.cme.pricing.report.ReportGenerator;
+import com.cme.pricing.service.BatchValidationService;
+import com.cme.pricing.service.LoadJob;
+import com.cme.pricing.service.LoadJobService;
 import com.cme.pricing.service.PricingService;
+import com.cme.pricing.service.SnapshotService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * REST Controller for pricing data operations
@@ -24,12 +35,24 @@ import java.util.Optional;
 public class PricingController {
     
     private static final Logger logger = LoggerFactory.getLogger(PricingController.class);
+
+    // Page size for GET /api/pricing/records when a cursor is given without a limit
+    private static final int DEFAULT_PAGE_SIZE = 100;
     
     @Autowired
     private PricingService pricingService;
     
     @Autowired
     private ReportGenerator reportGenerator;
+    
+    @Autowired
+    private BatchValidationService batchValidationService;
+    
+    @Autowired
+    private SnapshotService snapshotService;
+    
+    @Autowired
+    private LoadJobService loadJobService;
 
     /**
      * Helper method to format price value - shows invalid values (like "INVALID") but blank for null/missing
@@ -42,16 +65,6 @@ public class PricingController {
         if (record.getOriginalPriceValue() != null && !record.getOriginalPriceValue().trim().isEmpty()) {
             return record.getOriginalPriceValue();
         }
-        // Fallback: extract from validation error message
-        String error = record.getValidationError();
-        if (error != null && error.contains("Invalid price format: ")) {
-            int startIndex = error.indexOf("Invalid price format: ") + "Invalid price format: ".length();
-            int endIndex = error.indexOf(";", startIndex);
-            if (endIndex == -1) {
-                return error.substring(startIndex).trim();
-            }
-            return error.substring(startIndex, endIndex).trim();
-        }
         // Actually missing/null - return empty string
         return "";
     }
@@ -66,15 +79,24 @@ public class PricingController {
         info.put("application", "Pricing Data Validation & Reporting Utility");
         info.put("version", "1.0.0");
         info.put("status", "running");
-        info.put("endpoints", Map.of(
-            "load", "POST /api/pricing/load",
-            "report", "GET /api/pricing/report",
-            "generateReport", "POST /api/pricing/report/generate",
-            "allRecords", "GET /api/pricing/records",
-                "getSpecificRecord", "GET /api/pricing/records/{instrumentGuid}",
-            "updateRecord", "PUT /api/pricing/records/{instrumentGuid}",
-            "deleteRecord", "DELETE /api/pricing/records/{instrumentGuid}",
-                "updateSpecificRecord", "POST /api/pricing/records/{instrumentGuid}/correct"));
+        Map<String, String> endpoints = new java.util.LinkedHashMap<>();
+        endpoints.put("load", "POST /api/pricing/load");
+        endpoints.put("submitLoadJob", "POST /api/pricing/jobs");
+        endpoints.put("getLoadJob", "GET /api/pricing/jobs/{jobId}");
+        endpoints.put("cancelLoadJob", "DELETE /api/pricing/jobs/{jobId}");
+        endpoints.put("streamLoadJob", "GET /api/pricing/jobs/{jobId}/events");
+        endpoints.put("validate", "POST /api/pricing/validate");
+        endpoints.put("validateBatch", "POST /api/pricing/validate/batch");
+        endpoints.put("report", "GET /api/pricing/report");
+        endpoints.put("generateReport", "POST /api/pricing/report/generate");
+        endpoints.put("allRecords", "GET /api/pricing/records");
+        endpoints.put("getSpecificRecord", "GET /api/pricing/records/{instrumentGuid}");
+        endpoints.put("updateRecord", "PUT /api/pricing/records/{instrumentGuid}");
+        endpoints.put("deleteRecord", "DELETE /api/pricing/records/{instrumentGuid}");
+        endpoints.put("updateSpecificRecord", "POST /api/pricing/records/{instrumentGuid}/correct");
+        endpoints.put("saveSnapshot", "POST /api/pricing/snapshot");
+        endpoints.put("loadSnapshot", "POST /api/pricing/snapshot/load");
+        info.put("endpoints", endpoints);
         return ResponseEntity.ok(info);
     }
 
@@ -123,279 +145,365 @@ public class PricingController {
     }
 
     /**
-     * Get validation report
-     * GET /api/pricing/report
+     * Validate a pricing file in a single streaming pass without loading it
+     * POST /api/pricing/validate
      */
-    @GetMapping("/report")
-    public ResponseEntity<?> getReport() {
-        ValidationReport report = pricingService.getCurrentReport();
+    @PostMapping("/validate")
+    public ResponseEntity<?> validateFile(@RequestBody Map<String, String> request) {
+        try {
+            String filePath = request.get("filePath");
+            if (filePath == null || filePath.trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "filePath is required"));
+            }
+            String rejectsPath = request.get("rejectsPath");
+            if (rejectsPath != null && rejectsPath.trim().isEmpty()) {
+                rejectsPath = null;
+            }
 
-        if (report.getTotalRecords() == 0) {
+            ValidationReport report = pricingService.validateFileStreaming(filePath, rejectsPath);
+
+            int totalMissing = report.getMissingPriceRecords() +
+                    report.getMissingInstrumentGuidRecords() +
+                    report.getMissingTradeDateRecords() +
+                    report.getMissingExchangeRecords() +
+                    report.getMissingProductTypeRecords();
+
+            // Use LinkedHashMap to maintain insertion order
+            Map<String, Object> response = new java.util.LinkedHashMap<>();
+            response.put("message", "File validated successfully!");
+            response.put("totalRecords", report.getTotalRecords());
+            response.put("validRecords", report.getValidRecords());
+            response.put("invalidRecords", report.getInvalidRecords());
+            if (report.getDuplicateRecords() > 0) {
+                response.put("duplicateRecords", report.getDuplicateRecords());
+            }
+            response.put("missingValues", totalMissing);
+            if (rejectsPath != null) {
+                response.put("rejectsPath", rejectsPath);
+            }
+
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            logger.error("Error validating file: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error validating file: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
-                    .body(Map.of("error", "No data loaded. Please load a CSV file first using POST /api/pricing/load"));
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Validate all CSV files in a directory or matching a glob, several files at a time
+     * POST /api/pricing/validate/batch
+     */
+    @PostMapping("/validate/batch")
+    public ResponseEntity<?> validateBatch(@RequestBody Map<String, String> request) {
+        try {
+            String path = request.get("path");
+            if (path == null || path.trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "path is required"));
+            }
+            boolean crossFileDuplicates = Boolean.parseBoolean(request.getOrDefault("crossFileDuplicates", "false"));
+
+            BatchReport batch = batchValidationService.validateFiles(path, crossFileDuplicates);
+
+            List<Map<String, Object>> fileReports = new java.util.ArrayList<>();
+            for (FileReport fileReport : batch.getFileReports()) {
+                Map<String, Object> fileInfo = new java.util.LinkedHashMap<>();
+                fileInfo.put("filePath", fileReport.getFilePath());
+                if (fileReport.getError() != null) {
+                    fileInfo.put("error", fileReport.getError());
+                } else {
+                    fileInfo.putAll(batchSummary(fileReport.getReport()));
+                    if (crossFileDuplicates) {
+                        fileInfo.put("crossFileDuplicates", fileReport.getCrossFileDuplicates());
+                    }
+                }
+                fileReports.add(fileInfo);
+            }
+
+            // Use LinkedHashMap to maintain insertion order
+            Map<String, Object> response = new java.util.LinkedHashMap<>();
+            response.put("message", "Batch validated successfully!");
+            response.put("files", batch.getFileReports().size());
+            response.put("crossFileDuplicateCheck", crossFileDuplicates);
+            Map<String, Object> summary = batchSummary(batch.getMergedReport());
+            if (crossFileDuplicates) {
+                summary.put("crossFileDuplicates", batch.getCrossFileDuplicates());
+            }
+            response.put("summary", summary);
+            response.put("fileReports", fileReports);
+
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            logger.error("Error validating batch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error validating batch: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
         }
+    }
 
-        // Calculate total missing values
+    /**
+     * Summary counts of a batch or file report, matching the POST /api/pricing/validate response
+     */
+    private Map<String, Object> batchSummary(ValidationReport report) {
         int totalMissing = report.getMissingPriceRecords() +
                 report.getMissingInstrumentGuidRecords() +
                 report.getMissingTradeDateRecords() +
                 report.getMissingExchangeRecords() +
                 report.getMissingProductTypeRecords();
 
-        // Build error breakdown
-        Map<String, Integer> errorBreakdown = new java.util.LinkedHashMap<>();
-        if (report.getMissingPriceRecords() > 0) {
-            errorBreakdown.put("Missing Price", report.getMissingPriceRecords());
-        }
-        if (report.getInvalidPriceFormatRecords() > 0) {
-            errorBreakdown.put("Invalid Price Format", report.getInvalidPriceFormatRecords());
-        }
-        if (report.getMissingInstrumentGuidRecords() > 0) {
-            errorBreakdown.put("Missing instrument_guid", report.getMissingInstrumentGuidRecords());
-        }
-        if (report.getMissingTradeDateRecords() > 0) {
-            errorBreakdown.put("Missing trade_date", report.getMissingTradeDateRecords());
-        }
-        if (report.getMissingExchangeRecords() > 0) {
-            errorBreakdown.put("Missing exchange", report.getMissingExchangeRecords());
-        }
-        if (report.getMissingProductTypeRecords() > 0) {
-            errorBreakdown.put("Missing product_type", report.getMissingProductTypeRecords());
-        }
-        if (report.getInvalidExchangeRecords() > 0) {
-            errorBreakdown.put("Invalid exchange", report.getInvalidExchangeRecords());
-        }
-        if (report.getInvalidProductTypeRecords() > 0) {
-            errorBreakdown.put("Invalid product_type", report.getInvalidProductTypeRecords());
-        }
+        Map<String, Object> summary = new java.util.LinkedHashMap<>();
+        summary.put("totalRecords", report.getTotalRecords());
+        summary.put("validRecords", report.getValidRecords());
+        summary.put("invalidRecords", report.getInvalidRecords());
         if (report.getDuplicateRecords() > 0) {
-            errorBreakdown.put("Duplicate Records", report.getDuplicateRecords());
+            summary.put("duplicateRecords", report.getDuplicateRecords());
         }
+        summary.put("missingValues", totalMissing);
+        return summary;
+    }
 
-        // Build invalid records list with full details
-        List<Map<String, Object>> invalidRecordsList = new java.util.ArrayList<>();
-        for (PricingRecord record : report.getInvalidRecordsList()) {
-            Map<String, Object> recordInfo = new java.util.LinkedHashMap<>();
-            recordInfo.put("guid",
-                    record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                            ? record.getInstrumentGuid()
-                            : "");
-            recordInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-            recordInfo.put("price", formatPriceValue(record));
-            recordInfo.put("exchange",
-                    record.getExchange() != null && !record.getExchange().trim().isEmpty() ? record.getExchange() : "");
-            recordInfo.put("productType",
-                    record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                            ? record.getProductType()
-                            : "");
-            recordInfo.put("error", record.getValidationError() != null ? record.getValidationError() : "");
-            invalidRecordsList.add(recordInfo);
-        }
+    /**
+     * Save the current data, including corrections, to a binary snapshot file
+     * POST /api/pricing/snapshot
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<?> saveSnapshot(@RequestBody(required = false) Map<String, String> request) {
+        try {
+            String path = snapshotPathOf(request);
+            int saved = snapshotService.save(path);
 
-        // Build duplicate records list with full details
-        List<Map<String, Object>> duplicateRecordsList = new java.util.ArrayList<>();
-        for (PricingRecord record : report.getInvalidRecordsList()) {
-            if (record.getValidationError() != null && record.getValidationError().contains("Duplicate")) {
-                Map<String, Object> dupInfo = new java.util.LinkedHashMap<>();
-                dupInfo.put("guid",
-                        record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                                ? record.getInstrumentGuid()
-                                : "");
-                dupInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-                dupInfo.put("price", formatPriceValue(record));
-                dupInfo.put("exchange",
-                        record.getExchange() != null && !record.getExchange().trim().isEmpty() ? record.getExchange()
-                                : "");
-                dupInfo.put("productType",
-                        record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                                ? record.getProductType()
-                                : "");
-                dupInfo.put("error", record.getValidationError() != null ? record.getValidationError() : "");
-                duplicateRecordsList.add(dupInfo);
-            }
+            Map<String, Object> response = new java.util.LinkedHashMap<>();
+            response.put("message", "Snapshot saved successfully!");
+            response.put("path", path != null ? path : snapshotService.getSnapshotPath());
+            response.put("totalRecords", saved);
+
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            logger.error("Error saving snapshot: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error saving snapshot: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
         }
+    }
 
-        // Build missing values details with full record information
-        Map<String, List<Map<String, Object>>> missingValuesDetails = new java.util.LinkedHashMap<>();
-
-        // Missing price records
-        if (report.getMissingPriceRecords() > 0) {
-            List<Map<String, Object>> missingPriceList = new java.util.ArrayList<>();
-            for (PricingRecord record : report.getInvalidRecordsList()) {
-                if (record.getValidationError() != null && record.getValidationError().contains("Missing price")) {
-                    Map<String, Object> missingInfo = new java.util.LinkedHashMap<>();
-                    missingInfo.put("guid",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                                    ? record.getInstrumentGuid()
-                                    : "");
-                    missingInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-                    missingInfo.put("price", ""); // Missing
-                    missingInfo.put("exchange",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty()
-                                    ? record.getExchange()
-                                    : "");
-                    missingInfo.put("productType",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                                    ? record.getProductType()
-                                    : "");
-                    missingInfo.put("error", record.getValidationError() != null ? record.getValidationError() : "");
-                    missingPriceList.add(missingInfo);
-                }
-            }
-            if (!missingPriceList.isEmpty()) {
-                missingValuesDetails.put("missingPrice", missingPriceList);
-            }
+    /**
+     * Replace the current data with the records of a snapshot file
+     * POST /api/pricing/snapshot/load
+     */
+    @PostMapping("/snapshot/load")
+    public ResponseEntity<?> loadSnapshot(@RequestBody(required = false) Map<String, String> request) {
+        try {
+            ValidationReport report = snapshotService.load(snapshotPathOf(request));
+
+            Map<String, Object> response = new java.util.LinkedHashMap<>();
+            response.put("message", "Snapshot loaded successfully!");
+            response.putAll(batchSummary(report));
+
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            logger.error("Error loading snapshot: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error loading snapshot: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
         }
+    }
 
-        // Missing instrument GUID records
-        if (report.getMissingInstrumentGuidRecords() > 0) {
-            List<Map<String, Object>> missingGuidList = new java.util.ArrayList<>();
-            for (PricingRecord record : report.getInvalidRecordsList()) {
-                if (record.getValidationError() != null
-                        && record.getValidationError().contains("Missing instrument GUID")) {
-                    Map<String, Object> missingInfo = new java.util.LinkedHashMap<>();
-                    missingInfo.put("guid", ""); // Missing
-                    missingInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-                    missingInfo.put("price", record.getPrice() != null ? record.getPrice() : "");
-                    missingInfo.put("exchange",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty()
-                                    ? record.getExchange()
-                                    : "");
-                    missingInfo.put("productType",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                                    ? record.getProductType()
-                                    : "");
-                    missingInfo.put("error", record.getValidationError() != null ? record.getValidationError() : "");
-                    missingGuidList.add(missingInfo);
-                }
-            }
-            if (!missingGuidList.isEmpty()) {
-                missingValuesDetails.put("missingInstrumentGuid", missingGuidList);
+    /**
+     * Start loading and validating a file in the background; poll the returned job for progress
+     * POST /api/pricing/jobs
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitLoadJob(@RequestBody Map<String, String> request) {
+        try {
+            String filePath = request.get("filePath");
+            if (filePath == null || filePath.trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "filePath is required"));
             }
+
+            LoadJob job = loadJobService.submit(filePath);
+
+            Map<String, Object> response = new java.util.LinkedHashMap<>();
+            response.put("message", "Load job submitted");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/pricing/jobs/" + job.getId());
+            response.put("status", job.getStatus());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
         }
+    }
 
-        // Missing trade date records
-        if (report.getMissingTradeDateRecords() > 0) {
-            List<Map<String, Object>> missingDateList = new java.util.ArrayList<>();
-            for (PricingRecord record : report.getInvalidRecordsList()) {
-                if (record.getValidationError() != null && record.getValidationError().contains("Missing trade date")) {
-                    Map<String, Object> missingInfo = new java.util.LinkedHashMap<>();
-                    missingInfo.put("guid",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                                    ? record.getInstrumentGuid()
-                                    : "");
-                    missingInfo.put("tradeDate", ""); // Missing
-                    missingInfo.put("price", record.getPrice() != null ? record.getPrice() : "");
-                    missingInfo.put("exchange",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty()
-                                    ? record.getExchange()
-                                    : "");
-                    missingInfo.put("productType",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                                    ? record.getProductType()
-                                    : "");
-                    missingInfo.put("error", record.getValidationError() != null ? record.getValidationError() : "");
-                    missingDateList.add(missingInfo);
-                }
-            }
-            if (!missingDateList.isEmpty()) {
-                missingValuesDetails.put("missingTradeDate", missingDateList);
-            }
+    /**
+     * Get the status and progress of a load job
+     * GET /api/pricing/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getLoadJob(@PathVariable String jobId) {
+        Optional<LoadJob> job = loadJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "No load job found with id: " + jobId));
         }
+        return ResponseEntity.ok(jobStatus(job.get()));
+    }
 
-        // Missing exchange records
-        if (report.getMissingExchangeRecords() > 0) {
-            List<Map<String, Object>> missingExchangeList = new java.util.ArrayList<>();
-            for (PricingRecord record : report.getInvalidRecordsList()) {
-                if (record.getValidationError() != null && record.getValidationError().contains("Missing exchange")) {
-                    Map<String, Object> missingInfo = new java.util.LinkedHashMap<>();
-                    missingInfo.put("guid",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                                    ? record.getInstrumentGuid()
-                                    : "");
-                    missingInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-                    missingInfo.put("price", record.getPrice() != null ? record.getPrice() : "");
-                    missingInfo.put("exchange", ""); // Missing
-                    missingInfo.put("productType",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                                    ? record.getProductType()
-                                    : "");
-                    missingInfo.put("error", record.getValidationError() != null ? record.getValidationError() : "");
-                    missingExchangeList.add(missingInfo);
-                }
+    /**
+     * Stream the progress and running validation counts of a load job as server-sent
+     * events: a "progress" event every pricing.jobs.watch-interval-millis, then one
+     * "finished" event once the job has completed, failed or been cancelled
+     * GET /api/pricing/jobs/{jobId}/events
+     */
+    @GetMapping("/jobs/{jobId}/events")
+    public SseEmitter streamLoadJob(@PathVariable String jobId) {
+        LoadJob job = loadJobService.getJob(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "No load job found with id: " + jobId));
+
+        // No timeout: the stream ends with the job, or when the client goes away
+        SseEmitter emitter = new SseEmitter(0L);
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+
+        loadJobService.watch(job, watched -> {
+            if (!open.get()) {
+                return false;
+            }
+            boolean finished = watched.isFinished();
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(finished ? "finished" : "progress")
+                        .data(jobStatus(watched), MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                logger.debug("Client of load job {} events went away: {}", jobId, e.getMessage());
+                return false;
             }
-            if (!missingExchangeList.isEmpty()) {
-                missingValuesDetails.put("missingExchange", missingExchangeList);
+            if (finished) {
+                emitter.complete();
             }
+            return true;
+        });
+        return emitter;
+    }
+
+    /**
+     * Cancel a load job; the data loaded before it stays in place
+     * DELETE /api/pricing/jobs/{jobId}
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<?> cancelLoadJob(@PathVariable String jobId) {
+        Optional<LoadJob> job = loadJobService.cancel(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "No load job found with id: " + jobId));
+        }
+        if (job.get().getStatus() == LoadJob.Status.COMPLETED || job.get().getStatus() == LoadJob.Status.FAILED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Load job has already finished", "status", job.get().getStatus()));
         }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobStatus(job.get()));
+    }
 
-        // Missing product type records
-        if (report.getMissingProductTypeRecords() > 0) {
-            List<Map<String, Object>> missingProductTypeList = new java.util.ArrayList<>();
-            for (PricingRecord record : report.getInvalidRecordsList()) {
-                if (record.getValidationError() != null
-                        && record.getValidationError().contains("Missing product type")) {
-                    Map<String, Object> missingInfo = new java.util.LinkedHashMap<>();
-                    missingInfo.put("guid",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                                    ? record.getInstrumentGuid()
-                                    : "");
-                    missingInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-                    missingInfo.put("price", record.getPrice() != null ? record.getPrice() : "");
-                    missingInfo.put("exchange",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty()
-                                    ? record.getExchange()
-                                    : "");
-                    missingInfo.put("productType", ""); // Missing
-                    missingInfo.put("error", record.getValidationError() != null ? record.getValidationError() : "");
-                    missingProductTypeList.add(missingInfo);
-                }
-            }
-            if (!missingProductTypeList.isEmpty()) {
-                missingValuesDetails.put("missingProductType", missingProductTypeList);
-            }
+    /**
+     * Status, progress and throughput of a load job, with the summary once it has completed
+     */
+    private Map<String, Object> jobStatus(LoadJob job) {
+        Map<String, Object> status = new java.util.LinkedHashMap<>();
+        status.put("jobId", job.getId());
+        status.put("filePath", job.getFilePath());
+        status.put("status", job.getStatus());
+        if (job.getProgress().isCancelled() && !job.isFinished()) {
+            status.put("cancelRequested", true);
+        }
+        status.put("submittedAt", job.getSubmittedAt().toString());
+        if (job.getStartedAt() != null) {
+            status.put("startedAt", job.getStartedAt().toString());
         }
+        if (job.getFinishedAt() != null) {
+            status.put("finishedAt", job.getFinishedAt().toString());
+        }
+        status.put("bytesRead", job.getProgress().getBytesRead());
+        status.put("totalBytes", job.getProgress().getTotalBytes());
+        status.put("percentComplete", Math.round(job.getPercentComplete() * 10) / 10.0);
+        status.put("rowsParsed", job.getProgress().getRowsParsed());
+        status.put("elapsedMillis", job.getElapsed().toMillis());
+        status.put("rowsPerSecond", Math.round(job.getRowsPerSecond()));
+        status.put("megabytesPerSecond", Math.round(job.getBytesPerSecond() / 1e5) / 10.0);
+        if (job.getStatus() == LoadJob.Status.RUNNING) {
+            status.put("validation", runningCounts(job.getProgress().getRunningReport()));
+        }
+        if (job.getReport() != null) {
+            status.put("report", batchSummary(job.getReport()));
+        }
+        if (job.getError() != null) {
+            status.put("error", job.getError());
+        }
+        return status;
+    }
 
-        // Build all records table (matching CLI format)
-        List<Map<String, Object>> allRecordsTable = new java.util.ArrayList<>();
-        for (PricingRecord record : report.getAllRecords()) {
-            Map<String, Object> recordRow = new java.util.LinkedHashMap<>();
+    /**
+     * Counts of the records validated so far by a running load job, with the error
+     * categories labelled as in the report's error breakdown
+     */
+    private Map<String, Object> runningCounts(ValidationReport report) {
+        Map<String, Object> counts = new java.util.LinkedHashMap<>();
+        counts.put("validatedRecords", report.getTotalRecords());
+        counts.put("validRecords", report.getValidRecords());
+        counts.put("invalidRecords", report.getInvalidRecords());
+        Map<String, Object> errors = new java.util.LinkedHashMap<>();
+        errors.put("Missing Price", report.getMissingPriceRecords());
+        errors.put("Invalid Price Format", report.getInvalidPriceFormatRecords());
+        errors.put("Negative Price", report.getNegativePriceRecords());
+        errors.put("Zero Price", report.getZeroPriceRecords());
+        errors.put("Missing instrument_guid", report.getMissingInstrumentGuidRecords());
+        errors.put("Missing trade_date", report.getMissingTradeDateRecords());
+        errors.put("Missing exchange", report.getMissingExchangeRecords());
+        errors.put("Missing product_type", report.getMissingProductTypeRecords());
+        errors.put("Invalid exchange", report.getInvalidExchangeRecords());
+        errors.put("Invalid product_type", report.getInvalidProductTypeRecords());
+        errors.put("Duplicate Records", report.getDuplicateRecords());
+        counts.put("errorBreakdown", errors);
+        return counts;
+    }
 
-            recordRow.put("guid",
-                    record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                            ? record.getInstrumentGuid()
-                            : "");
-            recordRow.put("date", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-            recordRow.put("price", formatPriceValue(record));
-            recordRow.put("exchange",
-                    record.getExchange() != null && !record.getExchange().trim().isEmpty() ? record.getExchange() : "");
-            recordRow.put("product",
-                    record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                            ? record.getProductType()
-                            : "");
-            recordRow.put("status", record.isValid() ? "VALID" : "INVALID");
+    /**
+     * Snapshot path given in a request body, or null to use pricing.snapshot.path
+     */
+    private String snapshotPathOf(Map<String, String> request) {
+        String path = request != null ? request.get("path") : null;
+        return path != null && !path.trim().isEmpty() ? path : null;
+    }
 
-            allRecordsTable.add(recordRow);
-        }
+    /**
+     * Get validation report
+     * GET /api/pricing/report
+     */
+    @GetMapping("/report")
+    public ResponseEntity<?> getReport() {
+        ValidationReport report = pricingService.getCurrentReport();
 
-        // Build response matching CLI format
-        Map<String, Object> response = new java.util.LinkedHashMap<>();
-        response.put("totalRecords", report.getTotalRecords());
-        response.put("validRecords", report.getValidRecords());
-        response.put("invalidRecords", report.getInvalidRecords());
-        response.put("duplicateRecords", report.getDuplicateRecords());
-        response.put("missingValues", totalMissing);
-        response.put("errorBreakdown", errorBreakdown);
-        response.put("invalidRecordsList", invalidRecordsList);
-        if (!duplicateRecordsList.isEmpty()) {
-            response.put("duplicateRecordsList", duplicateRecordsList);
-        }
-        if (!missingValuesDetails.isEmpty()) {
-            response.put("missingValuesDetails", missingValuesDetails);
+        if (report.getTotalRecords() == 0) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "No data loaded. Please load a CSV file first using POST /api/pricing/load"));
         }
-        response.put("allRecordsTable", allRecordsTable);
 
-        return ResponseEntity.ok(response);
+        // Written field by field as the response is sent, without building maps per record
+        return ResponseEntity.ok(new ReportJson(report));
     }
 
     /**
@@ -418,7 +526,7 @@ public class PricingController {
             ValidationReport report = pricingService.getCurrentReport();
             // Ensure report is up-to-date by regenerating it
             report = pricingService.generateReport();
-            reportGenerator.generateTextReport(report, outputPath);
+            reportGenerator.writeTextReport(report, outputPath);
 
             // Calculate total missing values
             int totalMissing = report.getMissingPriceRecords() +
@@ -450,52 +558,71 @@ public class PricingController {
     /**
      * Get all pricing records
      * GET /api/pricing/records
+     * GET /api/pricing/records?limit={n}&cursor={cursor}&status={VALID|INVALID}&fields={field,...}
+     * With limit or cursor the records come one page at a time, together with the cursor
+     * for the next page.
      */
     @GetMapping("/records")
-    public ResponseEntity<?> getAllRecords() {
-        List<PricingRecord> records = pricingService.getAllRecordsSorted();
-
-        if (records.isEmpty()) {
+    public ResponseEntity<?> getAllRecords(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String fields) {
+        if (pricingService.getAllRecords().isEmpty()) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error",
                             "No records found. Please load a CSV file first using POST /api/pricing/load"));
         }
 
-        // Format records matching CLI format with index information
-        List<Map<String, Object>> formattedRecords = new java.util.ArrayList<>();
-        
-        for (int i = 0; i < records.size(); i++) {
-            PricingRecord record = records.get(i);
-            // Find the actual index in the unsorted list (original position)
-            int actualIndex = pricingService.getRecordIndex(record);
-            if (actualIndex == -1) {
-                actualIndex = i; // Fallback to sorted position if not found
+        Boolean valid = null;
+        if (status != null) {
+            if (status.equalsIgnoreCase("VALID")) {
+                valid = true;
+            } else if (status.equalsIgnoreCase("INVALID")) {
+                valid = false;
+            } else {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Invalid status: " + status + ". Use VALID or INVALID"));
             }
-            
-            Map<String, Object> formatted = new java.util.LinkedHashMap<>();
-            formatted.put("index", actualIndex);
+        }
 
-            formatted.put("instrumentGuid",
-                    record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                            ? record.getInstrumentGuid()
-                            : "");
-            formatted.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-            formatted.put("price", formatPriceValue(record));
-            formatted.put("exchange",
-                    record.getExchange() != null && !record.getExchange().trim().isEmpty() ? record.getExchange() : "");
-            formatted.put("productType",
-                    record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                            ? record.getProductType()
-                            : "");
-            formatted.put("status", record.isValid() ? "VALID" : "INVALID");
-            if (!record.isValid() && record.getValidationError() != null) {
-                formatted.put("validationError", record.getValidationError());
+        java.util.Set<String> projection = null;
+        if (fields != null) {
+            projection = new java.util.HashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (!RecordListJson.FIELDS.contains(name)) {
+                    return ResponseEntity.badRequest()
+                            .body(Map.of("error", "Unknown field: " + name + ". Fields: "
+                                    + String.join(", ", RecordListJson.FIELDS)));
+                }
+                projection.add(name);
             }
+        }
 
-            formattedRecords.add(formatted);
+        if (limit == null && cursor == null) {
+            // Format records matching CLI format with index information, written as the response is sent
+            List<PricingRecord> records = pricingService.getRecordsSorted(valid);
+            return ResponseEntity.ok(new RecordListJson(records, pricingService, projection));
         }
 
-        return ResponseEntity.ok(formattedRecords);
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "limit must be at least 1"));
+        }
+        try {
+            RecordPage page = pricingService.getRecordsPage(valid, cursor, pageSize);
+
+            Map<String, Object> response = new java.util.LinkedHashMap<>();
+            response.put("totalRecords", page.getTotalRecords());
+            response.put("count", page.getRecords().size());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("records", new RecordListJson(page.getRecords(), pricingService, projection));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        }
     }
 
     /**
@@ -550,36 +677,30 @@ public class PricingController {
         // choose
         if (recordsWithGuid.size() > 1 && index == null) {
             List<Map<String, Object>> recordsInfo = new java.util.ArrayList<>();
-            List<PricingRecord> allRecords = pricingService.getAllRecords();
             String guidDisplay = isEmptyPlaceholder ? "(empty)" : instrumentGuid;
 
-            for (int i = 0; i < allRecords.size(); i++) {
-                PricingRecord record = allRecords.get(i);
+            // The matches come in record order, each with its position among all records
+            for (PricingRecord record : recordsWithGuid) {
                 String recordGuid = record.getInstrumentGuid();
-                boolean matches = isEmptyPlaceholder
-                        ? (recordGuid == null || recordGuid.trim().isEmpty())
-                        : (recordGuid != null && recordGuid.equals(instrumentGuid));
-                if (matches) {
-                    Map<String, Object> recordInfo = new java.util.LinkedHashMap<>();
-                    recordInfo.put("index", i);
-                    recordInfo.put("instrumentGuid",
-                            recordGuid != null && !recordGuid.trim().isEmpty() ? recordGuid : "");
-                    recordInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
-                    recordInfo.put("price", formatPriceValue(record));
-                    recordInfo.put("exchange",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty()
-                                    ? record.getExchange()
-                                    : "");
-                    recordInfo.put("productType",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                                    ? record.getProductType()
-                                    : "");
-                    recordInfo.put("status", record.isValid() ? "VALID" : "INVALID");
-                    if (record.getValidationError() != null) {
-                        recordInfo.put("error", record.getValidationError());
-                    }
-                    recordsInfo.add(recordInfo);
+                Map<String, Object> recordInfo = new java.util.LinkedHashMap<>();
+                recordInfo.put("index", pricingService.getRecordIndex(record));
+                recordInfo.put("instrumentGuid",
+                        recordGuid != null && !recordGuid.trim().isEmpty() ? recordGuid : "");
+                recordInfo.put("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
+                recordInfo.put("price", formatPriceValue(record));
+                recordInfo.put("exchange",
+                        record.getExchange() != null && !record.getExchange().trim().isEmpty()
+                                ? record.getExchange()
+                                : "");
+                recordInfo.put("productType",
+                        record.getProductType() != null && !record.getProductType().trim().isEmpty()
+                                ? record.getProductType()
+                                : "");
+                recordInfo.put("status", record.isValid() ? "VALID" : "INVALID");
+                if (record.getValidationError() != null) {
+                    recordInfo.put("error", record.getValidationError());
                 }
+                recordsInfo.add(recordInfo);
             }
 
             return ResponseEntity.status(HttpStatus.CONFLICT)
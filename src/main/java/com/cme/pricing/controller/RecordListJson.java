@@ -0,0 +1,85 @@
+package com.cme.pricing.controller;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.service.PricingService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Body of GET /api/pricing/records, written straight from the sorted record view.
+ * If a set of fields is given, only those fields are written.
+ */
+final class RecordListJson extends StreamedJson {
+
+    // Fields of each record, in the order they are written
+    static final List<String> FIELDS = List.of("index", "instrumentGuid", "tradeDate", "price",
+            "exchange", "productType", "status", "validationError");
+
+    private final List<PricingRecord> records;
+    private final PricingService pricingService;
+    private final Set<String> fields;
+
+    RecordListJson(List<PricingRecord> records, PricingService pricingService, Set<String> fields) {
+        this.records = records;
+        this.pricingService = pricingService;
+        this.fields = fields;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        boolean index = includes("index");
+        boolean instrumentGuid = includes("instrumentGuid");
+        boolean tradeDate = includes("tradeDate");
+        boolean price = includes("price");
+        boolean exchange = includes("exchange");
+        boolean productType = includes("productType");
+        boolean status = includes("status");
+        boolean validationError = includes("validationError");
+
+        gen.writeStartArray();
+        for (int i = 0; i < records.size(); i++) {
+            PricingRecord record = records.get(i);
+
+            gen.writeStartObject();
+            if (index) {
+                // Find the actual index in the unsorted list (original position)
+                int actualIndex = pricingService.getRecordIndex(record);
+                if (actualIndex == -1) {
+                    actualIndex = i; // Fallback to sorted position if not found
+                }
+                gen.writeNumberField("index", actualIndex);
+            }
+            if (instrumentGuid) {
+                gen.writeStringField("instrumentGuid", text(record.getInstrumentGuid()));
+            }
+            if (tradeDate) {
+                gen.writeStringField("tradeDate", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
+            }
+            if (price) {
+                writePriceField(gen, "price", record);
+            }
+            if (exchange) {
+                gen.writeStringField("exchange", text(record.getExchange()));
+            }
+            if (productType) {
+                gen.writeStringField("productType", text(record.getProductType()));
+            }
+            if (status) {
+                gen.writeStringField("status", record.isValid() ? "VALID" : "INVALID");
+            }
+            if (validationError && !record.isValid() && record.getValidationError() != null) {
+                gen.writeStringField("validationError", record.getValidationError());
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    private boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+}
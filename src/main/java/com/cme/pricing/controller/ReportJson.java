@@ -0,0 +1,167 @@
+package com.cme.pricing.controller;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import com.cme.pricing.model.ValidationReport;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Body of GET /api/pricing/report, written straight from the report's record lists
+ */
+final class ReportJson extends StreamedJson {
+
+    private final ValidationReport report;
+
+    ReportJson(ValidationReport report) {
+        this.report = report;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        // Calculate total missing values
+        int totalMissing = report.getMissingPriceRecords() +
+                report.getMissingInstrumentGuidRecords() +
+                report.getMissingTradeDateRecords() +
+                report.getMissingExchangeRecords() +
+                report.getMissingProductTypeRecords();
+
+        gen.writeStartObject();
+        gen.writeNumberField("totalRecords", report.getTotalRecords());
+        gen.writeNumberField("validRecords", report.getValidRecords());
+        gen.writeNumberField("invalidRecords", report.getInvalidRecords());
+        gen.writeNumberField("duplicateRecords", report.getDuplicateRecords());
+        gen.writeNumberField("missingValues", totalMissing);
+
+        gen.writeObjectFieldStart("errorBreakdown");
+        writeCount(gen, "Missing Price", report.getMissingPriceRecords());
+        writeCount(gen, "Invalid Price Format", report.getInvalidPriceFormatRecords());
+        writeCount(gen, "Missing instrument_guid", report.getMissingInstrumentGuidRecords());
+        writeCount(gen, "Missing trade_date", report.getMissingTradeDateRecords());
+        writeCount(gen, "Missing exchange", report.getMissingExchangeRecords());
+        writeCount(gen, "Missing product_type", report.getMissingProductTypeRecords());
+        writeCount(gen, "Invalid exchange", report.getInvalidExchangeRecords());
+        writeCount(gen, "Invalid product_type", report.getInvalidProductTypeRecords());
+        writeCount(gen, "Duplicate Records", report.getDuplicateRecords());
+        gen.writeEndObject();
+
+        gen.writeArrayFieldStart("invalidRecordsList");
+        for (PricingRecord record : report.getInvalidRecordsList()) {
+            writeRecordInfo(gen, record, null);
+        }
+        gen.writeEndArray();
+
+        // Duplicate list, written only if there are duplicates
+        boolean started = false;
+        for (PricingRecord record : report.getInvalidRecordsList()) {
+            if (record.hasError(ValidationError.DUPLICATE_GUID)) {
+                if (!started) {
+                    gen.writeArrayFieldStart("duplicateRecordsList");
+                    started = true;
+                }
+                writeRecordInfo(gen, record, null);
+            }
+        }
+        if (started) {
+            gen.writeEndArray();
+        }
+
+        // Missing values details, one list per missing field that has records
+        boolean detailsStarted = false;
+        detailsStarted = writeMissing(gen, detailsStarted, "missingPrice",
+                ValidationError.MISSING_PRICE, report.getMissingPriceRecords());
+        detailsStarted = writeMissing(gen, detailsStarted, "missingInstrumentGuid",
+                ValidationError.MISSING_INSTRUMENT_GUID, report.getMissingInstrumentGuidRecords());
+        detailsStarted = writeMissing(gen, detailsStarted, "missingTradeDate",
+                ValidationError.MISSING_TRADE_DATE, report.getMissingTradeDateRecords());
+        detailsStarted = writeMissing(gen, detailsStarted, "missingExchange",
+                ValidationError.MISSING_EXCHANGE, report.getMissingExchangeRecords());
+        detailsStarted = writeMissing(gen, detailsStarted, "missingProductType",
+                ValidationError.MISSING_PRODUCT_TYPE, report.getMissingProductTypeRecords());
+        if (detailsStarted) {
+            gen.writeEndObject();
+        }
+
+        // All records table (matching CLI format)
+        gen.writeArrayFieldStart("allRecordsTable");
+        for (PricingRecord record : report.getAllRecords()) {
+            gen.writeStartObject();
+            gen.writeStringField("guid", text(record.getInstrumentGuid()));
+            gen.writeStringField("date", record.getTradeDate() != null ? record.getTradeDate().toString() : "");
+            writePriceField(gen, "price", record);
+            gen.writeStringField("exchange", text(record.getExchange()));
+            gen.writeStringField("product", text(record.getProductType()));
+            gen.writeStringField("status", record.isValid() ? "VALID" : "INVALID");
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+
+        gen.writeEndObject();
+    }
+
+    private static void writeCount(JsonGenerator gen, String name, int count) throws IOException {
+        if (count > 0) {
+            gen.writeNumberField(name, count);
+        }
+    }
+
+    /**
+     * Writes the list of invalid records missing the given field, opening the
+     * missingValuesDetails object first if this is the first list written.
+     * Returns whether the object has been opened.
+     */
+    private boolean writeMissing(JsonGenerator gen, boolean detailsStarted, String name,
+                                 ValidationError missing, int count) throws IOException {
+        if (count == 0) {
+            return detailsStarted;
+        }
+        boolean started = false;
+        for (PricingRecord record : report.getInvalidRecordsList()) {
+            if (record.hasError(missing)) {
+                if (!started) {
+                    if (!detailsStarted) {
+                        gen.writeObjectFieldStart("missingValuesDetails");
+                        detailsStarted = true;
+                    }
+                    gen.writeArrayFieldStart(name);
+                    started = true;
+                }
+                writeRecordInfo(gen, record, missing);
+            }
+        }
+        if (started) {
+            gen.writeEndArray();
+        }
+        return detailsStarted;
+    }
+
+    /**
+     * Writes a record with its error. In a missing-value list the missing field is written
+     * as "" and the price without the invalid value the parser kept.
+     */
+    private static void writeRecordInfo(JsonGenerator gen, PricingRecord record, ValidationError missing)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("guid",
+                missing == ValidationError.MISSING_INSTRUMENT_GUID ? "" : text(record.getInstrumentGuid()));
+        gen.writeStringField("tradeDate",
+                missing != ValidationError.MISSING_TRADE_DATE && record.getTradeDate() != null
+                        ? record.getTradeDate().toString()
+                        : "");
+        if (missing == null) {
+            writePriceField(gen, "price", record);
+        } else if (missing == ValidationError.MISSING_PRICE) {
+            gen.writeStringField("price", "");
+        } else {
+            writeParsedPriceField(gen, "price", record);
+        }
+        gen.writeStringField("exchange",
+                missing == ValidationError.MISSING_EXCHANGE ? "" : text(record.getExchange()));
+        gen.writeStringField("productType",
+                missing == ValidationError.MISSING_PRODUCT_TYPE ? "" : text(record.getProductType()));
+        gen.writeStringField("error", record.getValidationError() != null ? record.getValidationError() : "");
+        gen.writeEndObject();
+    }
+}
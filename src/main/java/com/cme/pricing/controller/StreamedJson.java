@@ -0,0 +1,52 @@
+package com.cme.pricing.controller;
+
+import com.cme.pricing.model.PricingRecord;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * Response body that Jackson writes field by field straight to the response stream,
+ * instead of serializing a tree of maps built up front. Subclasses write the same JSON
+ * the map-based responses produced.
+ */
+abstract class StreamedJson extends JsonSerializable.Base {
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    /**
+     * Returns the value, or "" if it is null or blank
+     */
+    static String text(String value) {
+        return value != null && !value.trim().isEmpty() ? value : "";
+    }
+
+    /**
+     * Writes the price, the invalid value the parser kept, or "" if the price is missing
+     */
+    static void writePriceField(JsonGenerator gen, String name, PricingRecord record) throws IOException {
+        if (record.getPrice() != null) {
+            gen.writeNumberField(name, record.getPrice());
+        } else {
+            gen.writeStringField(name, text(record.getOriginalPriceValue()));
+        }
+    }
+
+    /**
+     * Writes the price, or "" if it is null
+     */
+    static void writeParsedPriceField(JsonGenerator gen, String name, PricingRecord record) throws IOException {
+        if (record.getPrice() != null) {
+            gen.writeNumberField(name, record.getPrice());
+        } else {
+            gen.writeStringField(name, "");
+        }
+    }
+}
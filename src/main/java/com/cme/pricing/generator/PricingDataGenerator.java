@@ -0,0 +1,246 @@
+package com.cme.pricing.generator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic pricing CSV files for load and scale testing, in the same
+ * instrument_guid,trade_date,price,exchange,product_type layout as the real files.
+ *
+ * Each row is clean or has exactly one kind of error: a GUID repeated from an earlier
+ * row, one missing field, price text that is not a number, or an unknown exchange. The
+ * ratios give the share of rows with each kind. Only rows that are not duplicates and
+ * have a GUID take a new one, so every duplicate repeats a GUID that was written. Rows are formatted straight into a byte
+ * buffer and written to a file channel, so files of 100M rows take about as long as the
+ * disk needs to write them. The same seed gives the same file.
+ *
+ * Run with: java -jar pricing-validation.jar --generate output.csv [--rows N]
+ * [--duplicates R] [--missing R] [--invalid-prices R] [--unknown-exchanges R] [--seed S]
+ */
+public final class PricingDataGenerator {
+
+    private static final byte[] HEADER =
+            "instrument_guid,trade_date,price,exchange,product_type\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] EXCHANGES = ascii("CME", "NYMEX", "CBOT", "COMEX");
+    private static final byte[][] UNKNOWN_EXCHANGES = ascii("LSE", "ICE", "EUREX", "XYZ");
+    private static final byte[][] PRODUCT_TYPES = ascii("FUT", "OPT");
+    private static final byte[][] INVALID_PRICES = ascii("ABC", "N/A", "TBD", "12.3.4", "$");
+    private static final int DAYS = 365;
+    private static final byte[][] DATES = new byte[DAYS][];
+    private static final long FIRST_GUID = 1_000_000;
+    private static final int BUFFER_SIZE = 1 << 20;
+    // More than the longest row: 19-digit GUID, date, price, longest codes and separators
+    private static final int MAX_ROW = 64;
+
+    static {
+        LocalDate first = LocalDate.of(2025, 1, 1);
+        for (int day = 0; day < DAYS; day++) {
+            DATES[day] = first.plusDays(day).toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private long rows = 1_000_000;
+    private double duplicateRatio;
+    private double missingFieldRatio;
+    private double invalidPriceRatio;
+    private double unknownExchangeRatio;
+    private long seed = 42;
+
+    private final byte[] digits = new byte[20];
+
+    public void setRows(long rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Row count must not be negative: " + rows);
+        }
+        this.rows = rows;
+    }
+
+    public void setDuplicateRatio(double duplicateRatio) {
+        this.duplicateRatio = checkRatio("duplicate", duplicateRatio);
+    }
+
+    public void setMissingFieldRatio(double missingFieldRatio) {
+        this.missingFieldRatio = checkRatio("missing field", missingFieldRatio);
+    }
+
+    public void setInvalidPriceRatio(double invalidPriceRatio) {
+        this.invalidPriceRatio = checkRatio("invalid price", invalidPriceRatio);
+    }
+
+    public void setUnknownExchangeRatio(double unknownExchangeRatio) {
+        this.unknownExchangeRatio = checkRatio("unknown exchange", unknownExchangeRatio);
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the file, replacing any file already there. Returns the number of bytes written.
+     */
+    public long write(Path path) throws IOException {
+        double duplicateLimit = duplicateRatio;
+        double missingLimit = duplicateLimit + missingFieldRatio;
+        double invalidPriceLimit = missingLimit + invalidPriceRatio;
+        double unknownExchangeLimit = invalidPriceLimit + unknownExchangeRatio;
+        if (unknownExchangeLimit > 1) {
+            throw new IllegalArgumentException("Error ratios add up to more than 1: " + unknownExchangeLimit);
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.put(HEADER);
+            // GUIDs written so far, all distinct; duplicates repeat one of them
+            long unique = 0;
+            for (long row = 0; row < rows; row++) {
+                if (buffer.remaining() < MAX_ROW) {
+                    written += flush(channel, buffer);
+                }
+                byte[] exchange = EXCHANGES[random.nextInt(EXCHANGES.length)];
+                int missing = -1;
+                boolean invalidPrice = false;
+                boolean duplicate = false;
+
+                double kind = random.nextDouble();
+                if (kind < duplicateLimit) {
+                    // Until a GUID has been written there is nothing to repeat
+                    duplicate = unique > 0;
+                } else if (kind < missingLimit) {
+                    missing = random.nextInt(5);
+                } else if (kind < invalidPriceLimit) {
+                    invalidPrice = true;
+                } else if (kind < unknownExchangeLimit) {
+                    exchange = UNKNOWN_EXCHANGES[random.nextInt(UNKNOWN_EXCHANGES.length)];
+                }
+
+                if (duplicate) {
+                    putNumber(buffer, FIRST_GUID + random.nextLong(unique));
+                } else if (missing != 0) {
+                    putNumber(buffer, FIRST_GUID + unique++);
+                }
+                buffer.put((byte) ',');
+                if (missing != 1) {
+                    buffer.put(DATES[(int) (row % DAYS)]);
+                }
+                buffer.put((byte) ',');
+                if (invalidPrice) {
+                    buffer.put(INVALID_PRICES[random.nextInt(INVALID_PRICES.length)]);
+                } else if (missing != 2) {
+                    // 1.00 to 1000.00
+                    int cents = 100 + random.nextInt(99_901);
+                    putNumber(buffer, cents / 100);
+                    buffer.put((byte) '.');
+                    buffer.put((byte) ('0' + cents / 10 % 10));
+                    buffer.put((byte) ('0' + cents % 10));
+                }
+                buffer.put((byte) ',');
+                if (missing != 3) {
+                    buffer.put(exchange);
+                }
+                buffer.put((byte) ',');
+                if (missing != 4) {
+                    buffer.put(PRODUCT_TYPES[random.nextInt(PRODUCT_TYPES.length)]);
+                }
+                buffer.put((byte) '\n');
+            }
+            written += flush(channel, buffer);
+        }
+        return written;
+    }
+
+    private static int flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return length;
+    }
+
+    private void putNumber(ByteBuffer buffer, long value) {
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    private static double checkRatio(String name, double ratio) {
+        if (!(ratio >= 0 && ratio <= 1)) {
+            throw new IllegalArgumentException("The " + name + " ratio must be between 0 and 1: " + ratio);
+        }
+        return ratio;
+    }
+
+    private static byte[][] ascii(String... values) {
+        byte[][] bytes = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = values[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return bytes;
+    }
+
+    /**
+     * Command-line entry point; the arguments are those after --generate
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            printUsage();
+            System.exit(1);
+        }
+        Path output = Path.of(args[0]);
+        PricingDataGenerator generator = new PricingDataGenerator();
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--rows" -> generator.setRows(Long.parseLong(value.replace("_", "")));
+                    case "--duplicates" -> generator.setDuplicateRatio(Double.parseDouble(value));
+                    case "--missing" -> generator.setMissingFieldRatio(Double.parseDouble(value));
+                    case "--invalid-prices" -> generator.setInvalidPriceRatio(Double.parseDouble(value));
+                    case "--unknown-exchanges" -> generator.setUnknownExchangeRatio(Double.parseDouble(value));
+                    case "--seed" -> generator.setSeed(Long.parseLong(value));
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            Path parent = output.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            long start = System.nanoTime();
+            long bytes = generator.write(output);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "Wrote %,d rows (%,d bytes) to %s in %.1f s (%.0f MB/s)%n",
+                    generator.rows, bytes, output, seconds, bytes / 1e6 / Math.max(seconds, 1e-9));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error writing " + output + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: --generate <output.csv> [--rows N] [--duplicates R] [--missing R]"
+                + " [--invalid-prices R] [--unknown-exchanges R] [--seed S]");
+        System.err.println("Ratios are shares of rows between 0 and 1 (default 0); rows default to 1,000,000.");
+    }
+}
@@ -0,0 +1,113 @@
+package com.cme.pricing.metrics;
+
+import com.cme.pricing.model.ValidationError;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.service.PricingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application metrics, exposed with the rest at /actuator/prometheus.
+ * <ul>
+ *   <li>pricing.phase: time spent parsing, validating, finding duplicates and reporting,
+ *       tagged with the phase. Loads and streaming validations record parse, validate
+ *       and duplicates once per file; record edits are not timed.</li>
+ *   <li>pricing.validation.records: records validated by loads and batch validations,
+ *       tagged valid or invalid</li>
+ *   <li>pricing.validation.errors: records found with each validation error, tagged with
+ *       the error</li>
+ *   <li>pricing.dataset.records: records currently loaded, tagged valid or invalid, and
+ *       pricing.dataset.duplicates: those with a duplicate GUID</li>
+ * </ul>
+ * Spring binds the gauges to the registry at startup; the timers and counters are
+ * registered on first use by the classes that record them.
+ */
+@Component
+public class PricingMetrics implements MeterBinder {
+
+    public static final String PHASE_PARSE = "parse";
+    public static final String PHASE_VALIDATE = "validate";
+    public static final String PHASE_DUPLICATES = "duplicates";
+    public static final String PHASE_REPORT = "report";
+    public static final String PHASE_TEXT_REPORT = "text_report";
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pricing.dataset.records", pricingService,
+                        service -> service.getCurrentReport().getValidRecords())
+                .description("Records currently loaded")
+                .tag("status", "valid")
+                .register(registry);
+        Gauge.builder("pricing.dataset.records", pricingService,
+                        service -> service.getCurrentReport().getInvalidRecords())
+                .description("Records currently loaded")
+                .tag("status", "invalid")
+                .register(registry);
+        Gauge.builder("pricing.dataset.duplicates", pricingService,
+                        service -> service.getCurrentReport().getDuplicateRecords())
+                .description("Records currently loaded that repeat the GUID of an earlier record")
+                .register(registry);
+    }
+
+    /**
+     * Timer for one phase; time it with Timer.start(registry) and Sample.stop
+     */
+    public static Timer phaseTimer(MeterRegistry registry, String phase) {
+        return Timer.builder("pricing.phase")
+                .description("Time spent in each phase of loading, validating and reporting")
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    /**
+     * Records time measured for one phase
+     */
+    public static void recordPhase(MeterRegistry registry, String phase, long nanos) {
+        phaseTimer(registry, phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds the records of a validation to the validation counters
+     */
+    public static void countValidation(MeterRegistry registry, ValidationReport report) {
+        validationCounter(registry, "valid").increment(report.getValidRecords());
+        validationCounter(registry, "invalid").increment(report.getInvalidRecords());
+        errorCounter(registry, ValidationError.MISSING_PRICE).increment(report.getMissingPriceRecords());
+        errorCounter(registry, ValidationError.INVALID_PRICE_FORMAT).increment(report.getInvalidPriceFormatRecords());
+        errorCounter(registry, ValidationError.NEGATIVE_PRICE).increment(report.getNegativePriceRecords());
+        errorCounter(registry, ValidationError.ZERO_PRICE).increment(report.getZeroPriceRecords());
+        errorCounter(registry, ValidationError.MISSING_EXCHANGE).increment(report.getMissingExchangeRecords());
+        errorCounter(registry, ValidationError.INVALID_EXCHANGE).increment(report.getInvalidExchangeRecords());
+        errorCounter(registry, ValidationError.MISSING_PRODUCT_TYPE).increment(report.getMissingProductTypeRecords());
+        errorCounter(registry, ValidationError.INVALID_PRODUCT_TYPE).increment(report.getInvalidProductTypeRecords());
+        errorCounter(registry, ValidationError.MISSING_INSTRUMENT_GUID)
+                .increment(report.getMissingInstrumentGuidRecords());
+        errorCounter(registry, ValidationError.MISSING_TRADE_DATE).increment(report.getMissingTradeDateRecords());
+        errorCounter(registry, ValidationError.DUPLICATE_GUID).increment(report.getDuplicateRecords());
+    }
+
+    private static Counter validationCounter(MeterRegistry registry, String status) {
+        return Counter.builder("pricing.validation.records")
+                .description("Records validated by loads and batch validations")
+                .tag("status", status)
+                .register(registry);
+    }
+
+    private static Counter errorCounter(MeterRegistry registry, ValidationError error) {
+        return Counter.builder("pricing.validation.errors")
+                .description("Records found with each validation error by loads and batch validations")
+                .tag("error", error.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+}
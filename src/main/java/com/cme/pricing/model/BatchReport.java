@@ -0,0 +1,55 @@
+package com.cme.pricing.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model class representing the validation of a batch of files: a report per file and
+ * one merged report for all files that could be read
+ */
+public class BatchReport {
+    private List<FileReport> fileReports;
+    private ValidationReport mergedReport;
+    private boolean crossFileDuplicateCheck;
+    private int crossFileDuplicates;
+
+    public BatchReport() {
+        this.fileReports = new ArrayList<>();
+    }
+
+    // Getters and Setters
+    public List<FileReport> getFileReports() {
+        return fileReports;
+    }
+
+    public void setFileReports(List<FileReport> fileReports) {
+        this.fileReports = fileReports;
+    }
+
+    public ValidationReport getMergedReport() {
+        return mergedReport;
+    }
+
+    public void setMergedReport(ValidationReport mergedReport) {
+        this.mergedReport = mergedReport;
+    }
+
+    /**
+     * Whether GUIDs were checked for duplicates across files, not only within each file
+     */
+    public boolean isCrossFileDuplicateCheck() {
+        return crossFileDuplicateCheck;
+    }
+
+    public void setCrossFileDuplicateCheck(boolean crossFileDuplicateCheck) {
+        this.crossFileDuplicateCheck = crossFileDuplicateCheck;
+    }
+
+    public int getCrossFileDuplicates() {
+        return crossFileDuplicates;
+    }
+
+    public void setCrossFileDuplicates(int crossFileDuplicates) {
+        this.crossFileDuplicates = crossFileDuplicates;
+    }
+}
@@ -0,0 +1,60 @@
+package com.cme.pricing.model;
+
+/**
+ * Model class representing the validation result of one file in a batch
+ */
+public class FileReport {
+    private String filePath;
+    private ValidationReport report;
+    private int crossFileDuplicates;
+    private String error;
+
+    public FileReport() {
+    }
+
+    public FileReport(String filePath) {
+        this.filePath = filePath;
+    }
+
+    // Getters and Setters
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Report for this file, or null if it could not be read
+     */
+    public ValidationReport getReport() {
+        return report;
+    }
+
+    public void setReport(ValidationReport report) {
+        this.report = report;
+    }
+
+    /**
+     * Records whose GUID already appeared in an earlier file of the batch
+     */
+    public int getCrossFileDuplicates() {
+        return crossFileDuplicates;
+    }
+
+    public void setCrossFileDuplicates(int crossFileDuplicates) {
+        this.crossFileDuplicates = crossFileDuplicates;
+    }
+
+    /**
+     * Why the file could not be read, or null if it was validated
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
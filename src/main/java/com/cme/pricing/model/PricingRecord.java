@@ -3,7 +3,9 @@ package com.cme.pricing.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Model class representing a pricing record
@@ -18,7 +20,9 @@ public class PricingRecord {
 
     // Validation flags
     private boolean isValid = true;
-    private String validationError;
+    // Validation errors as ValidationError bits; the message is built from them when read
+    private int errorMask;
+    private String validationError; // Free-text error, only used when there are no error bits
 
     public PricingRecord() {
     }
@@ -73,6 +77,8 @@ public class PricingRecord {
      */
     @JsonProperty("price")
     public Object getPriceForJson() {
+        Double price = getPrice();
+        String originalPriceValue = getOriginalPriceValue();
         if (price != null) {
             return price;
         } else if (originalPriceValue != null && !originalPriceValue.isEmpty()) {
@@ -105,43 +111,87 @@ public class PricingRecord {
         isValid = valid;
     }
 
+    /**
+     * Returns the validation error message, built from the error bits if there are any
+     */
     public String getValidationError() {
-        return validationError;
+        int mask = getErrorMask();
+        return mask != 0 ? ValidationError.render(mask, this) : validationError;
     }
 
+    /**
+     * Sets a free-text validation error, replacing any error bits
+     */
     public void setValidationError(String validationError) {
         this.validationError = validationError;
+        this.errorMask = 0;
+    }
+
+    @JsonIgnore
+    public int getErrorMask() {
+        return errorMask;
+    }
+
+    /**
+     * Sets the validation errors as ValidationError bits, replacing any free-text error
+     */
+    public void setErrorMask(int errorMask) {
+        this.errorMask = errorMask;
+        this.validationError = null;
+    }
+
+    @JsonIgnore
+    public Set<ValidationError> getErrors() {
+        Set<ValidationError> errors = EnumSet.noneOf(ValidationError.class);
+        int mask = getErrorMask();
+        for (ValidationError error : ValidationError.values()) {
+            if ((mask & error.bit()) != 0) {
+                errors.add(error);
+            }
+        }
+        return errors;
     }
 
+    public boolean hasError(ValidationError error) {
+        return (getErrorMask() & error.bit()) != 0;
+    }
+
+    public void addError(ValidationError error) {
+        setErrorMask(getErrorMask() | error.bit());
+    }
+
+    // equals, hashCode and toString go through the getters so that record views
+    // backed by other storage (see RecordStore) behave the same way
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
             return true;
-        if (o == null || getClass() != o.getClass())
+        if (!(o instanceof PricingRecord))
             return false;
         PricingRecord that = (PricingRecord) o;
-        return Objects.equals(instrumentGuid, that.instrumentGuid) &&
-                Objects.equals(tradeDate, that.tradeDate) &&
-                Objects.equals(price, that.price) &&
-                Objects.equals(exchange, that.exchange) &&
-                Objects.equals(productType, that.productType);
+        return Objects.equals(getInstrumentGuid(), that.getInstrumentGuid()) &&
+                Objects.equals(getTradeDate(), that.getTradeDate()) &&
+                Objects.equals(getPrice(), that.getPrice()) &&
+                Objects.equals(getExchange(), that.getExchange()) &&
+                Objects.equals(getProductType(), that.getProductType());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(instrumentGuid, tradeDate, price, exchange, productType);
+        return Objects.hash(getInstrumentGuid(), getTradeDate(), getPrice(), getExchange(), getProductType());
     }
 
     @Override
     public String toString() {
         return "PricingRecord{" +
-                "instrumentGuid='" + instrumentGuid + '\'' +
-                ", tradeDate=" + tradeDate +
-                ", price=" + price +
-                ", exchange='" + exchange + '\'' +
-                ", productType='" + productType + '\'' +
-                ", isValid=" + isValid +
-                ", validationError='" + validationError + '\'' +
+                "instrumentGuid='" + getInstrumentGuid() + '\'' +
+                ", tradeDate=" + getTradeDate() +
+                ", price=" + getPrice() +
+                ", exchange='" + getExchange() + '\'' +
+                ", productType='" + getProductType() + '\'' +
+                ", isValid=" + isValid() +
+                ", validationError='" + getValidationError() + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,48 @@
+package com.cme.pricing.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model class representing one page of records in report order
+ */
+public class RecordPage {
+    private List<PricingRecord> records;
+    private int totalRecords;
+    private String nextCursor;
+
+    public RecordPage() {
+        this.records = new ArrayList<>();
+    }
+
+    // Getters and Setters
+    public List<PricingRecord> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<PricingRecord> records) {
+        this.records = records;
+    }
+
+    /**
+     * Number of records matching the filter, across all pages
+     */
+    public int getTotalRecords() {
+        return totalRecords;
+    }
+
+    public void setTotalRecords(int totalRecords) {
+        this.totalRecords = totalRecords;
+    }
+
+    /**
+     * Cursor for the page after this one, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cme.pricing.model;
+
+/**
+ * Validation errors a pricing record can have.
+ * A record keeps its errors as a bitmask with one bit per constant; the message text is
+ * only put together when it is read. Constants are declared in the order their messages
+ * appear in the combined validation error.
+ */
+public enum ValidationError {
+    MISSING_PRICE("Missing price value"),
+    INVALID_PRICE_FORMAT("Invalid price format"),
+    NEGATIVE_PRICE("Negative price"),
+    ZERO_PRICE("Zero price"),
+    MISSING_EXCHANGE("Missing exchange"),
+    INVALID_EXCHANGE("Invalid exchange"),
+    MISSING_PRODUCT_TYPE("Missing product type"),
+    INVALID_PRODUCT_TYPE("Invalid product type"),
+    MISSING_INSTRUMENT_GUID("Missing instrument GUID (primary key required)"),
+    MISSING_TRADE_DATE("Missing trade date"),
+    DUPLICATE_GUID("Duplicate GUID (primary key violation)");
+
+    private static final ValidationError[] VALUES = values();
+
+    private final String message;
+
+    ValidationError(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Returns the bit for this error in a record's error mask
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Returns the message for this error; errors about a bad value include that value
+     */
+    public String message(PricingRecord record) {
+        switch (this) {
+            case INVALID_PRICE_FORMAT:
+                return message + ": " + record.getOriginalPriceValue();
+            case INVALID_EXCHANGE:
+                return message + ": " + record.getExchange();
+            case INVALID_PRODUCT_TYPE:
+                return message + ": " + record.getProductType();
+            default:
+                return message;
+        }
+    }
+
+    /**
+     * Joins the messages of all errors in the mask with "; "
+     */
+    public static String render(int mask, PricingRecord record) {
+        StringBuilder text = new StringBuilder();
+        for (ValidationError error : VALUES) {
+            if ((mask & error.bit()) != 0) {
+                if (text.length() > 0) {
+                    text.append("; ");
+                }
+                text.append(error.message(record));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -1,17 +1,24 @@
 package com.cme.pricing.parser;
 
 import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.FileReader;
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
@@ -22,64 +29,197 @@ import com.opencsv.exceptions.CsvException;
 @Component
 public class CSVParser {
 
-    private static final Logger logger = LoggerFactory.getLogger(CSVParser.class);
+    static final Logger logger = LoggerFactory.getLogger(CSVParser.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    /**
+     * Parser backend: "opencsv" (default) or "mmap" for the memory-mapped tokenizer
+     */
+    @Value("${pricing.parser.backend:opencsv}")
+    private String backend = "opencsv";
+
+    /**
+     * Threads used to parse large files with the mmap backend; 0 uses all available cores
+     */
+    @Value("${pricing.parser.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * Files smaller than this are parsed on a single thread
+     */
+    @Value("${pricing.parser.parallel-min-bytes:67108864}")
+    private long parallelMinBytes = 64L << 20;
+
+    private ForkJoinPool parsePool;
+
     /**
      * Parses a CSV file and returns a list of PricingRecord objects
      */
     public List<PricingRecord> parseFile(String filePath) throws IOException {
         List<PricingRecord> records = new ArrayList<>();
+        parseFile(filePath, records::add);
+        return records;
+    }
+
+    /**
+     * Parses a CSV file and hands each PricingRecord to the consumer as soon as it is read.
+     * Only the current line is held in memory, so files of any size can be processed.
+     * Returns the number of records passed to the consumer.
+     */
+    public int parseFile(String filePath, Consumer<PricingRecord> consumer) throws IOException {
+        return parseFile(filePath, consumer, null);
+    }
 
+    /**
+     * Like parseFile(filePath, consumer), and reports the bytes and records parsed so far
+     * to progress, if given. Cancelling progress stops the parse with a
+     * CancellationException before the next record is handed over.
+     */
+    public int parseFile(String filePath, Consumer<PricingRecord> consumer, ParseProgress progress) throws IOException {
         logger.info("Parsing CSV file: {}", filePath);
-        
-        // Handle relative paths - if path doesn't start with /, make it relative to working directory
-        java.io.File file = new java.io.File(filePath);
-        if (!file.isAbsolute() && !file.exists()) {
-            // Try with /app prefix (Docker working directory)
-            java.io.File dockerFile = new java.io.File("/app", filePath);
-            if (dockerFile.exists()) {
-                filePath = dockerFile.getAbsolutePath();
-                logger.info("Found file in Docker path: {}", filePath);
+
+        filePath = resolvePath(filePath);
+        long fileSize = new java.io.File(filePath).length();
+        if (progress != null) {
+            progress.setTotalBytes(fileSize);
+            consumer = counting(consumer, progress);
+        }
+        if ("mmap".equalsIgnoreCase(backend)) {
+            int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            int parsedCount;
+            if (threads > 1 && fileSize >= parallelMinBytes) {
+                parsedCount = new ParallelCSVReader(getParsePool(threads)).read(filePath, consumer, progress);
+            } else {
+                parsedCount = MappedCSVReader.read(filePath, consumer, progress);
             }
+            if (progress != null) {
+                progress.setBytesRead(fileSize);
+            }
+            logger.info("Successfully parsed {} records from CSV file", parsedCount);
+            return parsedCount;
         }
+        int parsedCount = 0;
 
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
+        Reader file = new FileReader(filePath);
+        try (CSVReader reader = new CSVReader(progress != null ? new CountingReader(file, progress) : file)) {
             // Read header row
             String[] header = reader.readNext();
             if (header == null) {
                 logger.warn("CSV file is empty or has no header");
-                return records;
+                return parsedCount;
             }
 
             // Read data rows
+            DecimalParser decimalParser = new DecimalParser();
             String[] line;
             int lineNumber = 1; // Start from 1 since header is line 0
 
             while ((line = reader.readNext()) != null) {
                 lineNumber++;
+                PricingRecord record = null;
                 try {
-                    PricingRecord record = parseLine(line, lineNumber);
-                    if (record != null) {
-                        records.add(record);
-                    }
+                    record = parseLine(line, lineNumber, decimalParser);
                 } catch (Exception e) {
                     logger.error("Error parsing line {}: {}", lineNumber, e.getMessage());
                 }
+                // Consumer failures are not parse errors - let them propagate to the caller
+                if (record != null) {
+                    consumer.accept(record);
+                    parsedCount++;
+                }
             }
         } catch (CsvException e) {
             logger.error("CSV parsing error: {}", e.getMessage());
             throw new IOException("Failed to parse CSV file", e);
         }
 
-        logger.info("Successfully parsed {} records from CSV file", records.size());
-        return records;
+        if (progress != null) {
+            progress.setBytesRead(fileSize);
+        }
+        logger.info("Successfully parsed {} records from CSV file", parsedCount);
+        return parsedCount;
+    }
+
+    /**
+     * Wraps a consumer to count the records it is given and to stop once progress is
+     * cancelled. Every backend calls the consumer on the calling thread only.
+     */
+    private static Consumer<PricingRecord> counting(Consumer<PricingRecord> consumer, ParseProgress progress) {
+        long[] rows = new long[1];
+        return record -> {
+            progress.checkCancelled();
+            consumer.accept(record);
+            progress.setRowsParsed(++rows[0]);
+        };
+    }
+
+    /**
+     * Reports the characters read through it as bytes read, which they are for ASCII files
+     */
+    private static final class CountingReader extends FilterReader {
+        private final ParseProgress progress;
+        private long count;
+
+        CountingReader(Reader in, ParseProgress progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                progress.setBytesRead(++count);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+                progress.setBytesRead(count);
+            }
+            return n;
+        }
+    }
+
+    private synchronized ForkJoinPool getParsePool(int threads) {
+        if (parsePool == null) {
+            parsePool = new ForkJoinPool(threads);
+        }
+        return parsePool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (parsePool != null) {
+            parsePool.shutdownNow();
+            parsePool = null;
+        }
+    }
+
+    /**
+     * Handles relative paths - if the file is not found relative to the working directory,
+     * falls back to the /app prefix (Docker working directory)
+     */
+    public String resolvePath(String filePath) {
+        java.io.File file = new java.io.File(filePath);
+        if (!file.isAbsolute() && !file.exists()) {
+            java.io.File dockerFile = new java.io.File("/app", filePath);
+            if (dockerFile.exists()) {
+                logger.info("Found file in Docker path: {}", dockerFile.getAbsolutePath());
+                return dockerFile.getAbsolutePath();
+            }
+        }
+        return filePath;
     }
 
     /**
      * Parses a single CSV line into a PricingRecord
      */
-    private PricingRecord parseLine(String[] line, int lineNumber) {
+    static PricingRecord parseLine(String[] line, int lineNumber, DecimalParser decimalParser) {
         if (line.length < 5) {
             logger.warn("Line {} has insufficient columns (expected 5, found {})", lineNumber, line.length);
             return null;
@@ -92,32 +232,14 @@ public class CSVParser {
             record.setInstrumentGuid(line[0].trim());
 
             // trade_date
-            try {
-                record.setTradeDate(LocalDate.parse(line[1].trim(), DATE_FORMATTER));
-            } catch (DateTimeParseException e) {
+            LocalDate tradeDate = parseDate(line[1].trim());
+            if (tradeDate == null) {
                 logger.warn("Invalid date format on line {}: {}", lineNumber, line[1]);
-                record.setTradeDate(null);
             }
+            record.setTradeDate(tradeDate);
 
             // price - handle missing or invalid values
-            String priceStr = line[2].trim();
-            if (priceStr.isEmpty()) {
-                // Actually missing - will be marked as "Missing price"
-                record.setPrice(null);
-                record.setOriginalPriceValue(null);
-            } else {
-                try {
-                    record.setPrice(Double.parseDouble(priceStr));
-                    record.setOriginalPriceValue(null); // Valid price, no need to store original
-                } catch (NumberFormatException e) {
-                    logger.warn("Invalid price format on line {}: {}", lineNumber, priceStr);
-                    record.setPrice(null);
-                    // Store original invalid value for display
-                    record.setOriginalPriceValue(priceStr);
-                    // Mark as invalid format, not missing
-                    record.setValidationError("Invalid price format: " + priceStr);
-                }
-            }
+            applyPrice(record, line[2].trim(), lineNumber, decimalParser);
 
             // exchange
             record.setExchange(line[3].trim());
@@ -132,4 +254,41 @@ public class CSVParser {
 
         return record;
     }
+
+    /**
+     * Parses a trimmed trade date, returning null if it is not a valid yyyy-MM-dd date
+     */
+    static LocalDate parseDate(String dateStr) {
+        try {
+            return LocalDate.parse(dateStr, DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the price from its trimmed text. Missing values leave the price null; values that
+     * are not numbers keep their original text and are flagged as an invalid price format.
+     * The text is only turned into a String when it is invalid.
+     */
+    static void applyPrice(PricingRecord record, CharSequence priceText, int lineNumber,
+                           DecimalParser decimalParser) {
+        int status = decimalParser.parse(priceText);
+        if (status == DecimalParser.EMPTY) {
+            // Actually missing - will be marked as "Missing price"
+            record.setPrice(null);
+            record.setOriginalPriceValue(null);
+        } else if (status == DecimalParser.OK) {
+            record.setPrice(decimalParser.value());
+            record.setOriginalPriceValue(null); // Valid price, no need to store original
+        } else {
+            String priceStr = priceText.toString();
+            logger.warn("Invalid price format on line {}: {}", lineNumber, priceStr);
+            record.setPrice(null);
+            // Store original invalid value for display
+            record.setOriginalPriceValue(priceStr);
+            // Mark as invalid format, not missing
+            record.setErrorMask(ValidationError.INVALID_PRICE_FORMAT.bit());
+        }
+    }
 }
@@ -0,0 +1,182 @@
+package com.cme.pricing.parser;
+
+/**
+ * Parses price text without throwing exceptions or creating intermediate objects.
+ * Accepts exactly the strings Double.parseDouble accepts and produces the same values.
+ * Plain decimals whose significant digits fit in 53 bits and whose exponent is small
+ * are computed directly; the rare remaining forms (long mantissas, large exponents,
+ * hex) are checked here first and then handed to Double.parseDouble.
+ * An instance holds the last parsed value, so each thread needs its own.
+ */
+final class DecimalParser {
+
+    static final int OK = 0;
+    static final int EMPTY = 1;
+    static final int INVALID = 2;
+
+    // Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Largest integer below which every long converts to double exactly
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+
+    private double value;
+
+    /**
+     * Returns the value of the last text that parsed as OK
+     */
+    double value() {
+        return value;
+    }
+
+    /**
+     * Parses the text, ignoring leading and trailing whitespace like Double.parseDouble.
+     * Returns OK (read the result with value()), EMPTY or INVALID.
+     */
+    int parse(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return EMPTY;
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+            if (i == end) {
+                return INVALID;
+            }
+            c = text.charAt(i);
+        }
+        if (c == 'N') {
+            return parseSpecial(text, i, end, "NaN", Double.NaN);
+        }
+        if (c == 'I') {
+            return parseSpecial(text, i, end, "Infinity",
+                    negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+        }
+        if (c == '0' && i + 1 < end && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X')) {
+            return parseWithJdk(text, start, end);
+        }
+
+        // Significant digits go into the mantissa; the exponent keeps track of the decimal point
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+        boolean sawPoint = false;
+        boolean truncated = false;
+        for (; i < end; i++) {
+            c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                if (mantissaDigits == 0 && c == '0') {
+                    // Leading zero
+                    if (sawPoint) {
+                        exponent--;
+                    }
+                } else if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    mantissaDigits++;
+                    if (sawPoint) {
+                        exponent--;
+                    }
+                } else {
+                    truncated = true;
+                    if (!sawPoint) {
+                        exponent++;
+                    }
+                }
+            } else if (c == '.' && !sawPoint) {
+                sawPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!sawDigit) {
+            return INVALID;
+        }
+
+        if (i < end && (c == 'e' || c == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int exponentValue = 0;
+            for (; i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++) {
+                // Anything this large is already zero or infinity
+                if (exponentValue < 100_000) {
+                    exponentValue = exponentValue * 10 + (text.charAt(i) - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return INVALID;
+            }
+            exponent += negativeExponent ? -exponentValue : exponentValue;
+        }
+
+        // Only a single float/double type suffix may follow the number
+        if (i < end) {
+            c = text.charAt(i);
+            if (i != end - 1 || (c != 'd' && c != 'D' && c != 'f' && c != 'F')) {
+                return INVALID;
+            }
+        }
+
+        if (mantissa == 0) {
+            value = negative ? -0.0 : 0.0;
+            return OK;
+        }
+        if (!truncated) {
+            while (mantissa % 10 == 0) {
+                mantissa /= 10;
+                exponent++;
+            }
+            // Both operands are exact, so one multiply or divide gives the correctly rounded result
+            if (mantissa < MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+                double result = mantissa;
+                result = exponent < 0 ? result / POWERS_OF_TEN[-exponent] : result * POWERS_OF_TEN[exponent];
+                value = negative ? -result : result;
+                return OK;
+            }
+        }
+        return parseWithJdk(text, start, end);
+    }
+
+    private int parseSpecial(CharSequence text, int from, int end, String word, double special) {
+        if (end - from != word.length()) {
+            return INVALID;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (text.charAt(from + i) != word.charAt(i)) {
+                return INVALID;
+            }
+        }
+        value = special;
+        return OK;
+    }
+
+    private int parseWithJdk(CharSequence text, int start, int end) {
+        try {
+            value = Double.parseDouble(text.subSequence(start, end).toString());
+            return OK;
+        } catch (NumberFormatException e) {
+            return INVALID;
+        }
+    }
+}
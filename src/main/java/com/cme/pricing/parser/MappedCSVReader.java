@@ -0,0 +1,566 @@
+package com.cme.pricing.parser;
+
+import com.cme.pricing.model.PricingRecord;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Memory-mapped CSV reader used by the "mmap" parser backend.
+ * Lines are located and split directly on the mapped bytes, and the date, exchange and
+ * product type columns are decoded without building intermediate Strings. Lines that
+ * contain quotes or escape characters are handed to OpenCSV's line parser so the
+ * results always match the OpenCSV backend.
+ */
+class MappedCSVReader {
+
+    private static final int WINDOW_SIZE = 256 << 20;
+    private static final int MAX_FIELDS = 5;
+
+    private final FileChannel channel;
+    private final long fileSize;
+
+    // Current mapped window of the file
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    // Field boundaries of the current line, relative to the window
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private int fieldCount;
+    private byte[] scratch = new byte[64];
+
+    // Price text is parsed straight from the mapped bytes
+    private final DecimalParser decimalParser = new DecimalParser();
+    private final FieldText priceText = new FieldText();
+
+    // Reused String instances for the low-cardinality columns
+    private final SymbolTable exchanges = new SymbolTable();
+    private final SymbolTable productTypes = new SymbolTable();
+
+    // Fallback for quoted lines; keeps the pending state of multi-line quoted fields
+    private final com.opencsv.CSVParser quotedLineParser = new com.opencsv.CSVParser();
+    private String[] pendingTokens;
+
+    // Line number of the last record read (the header is line 1)
+    private int lineNumber;
+
+    // Set from another thread to stop a running readRange
+    private volatile boolean cancelled;
+
+    // Told the offset after each record handed over, if set
+    private ParseProgress progress;
+
+    MappedCSVReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+    }
+
+    /**
+     * Maps and parses a whole file, reporting the bytes parsed to progress if given
+     */
+    static int read(String filePath, Consumer<PricingRecord> consumer, ParseProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            MappedCSVReader reader = new MappedCSVReader(channel);
+            reader.setProgress(progress);
+            return reader.readAll(consumer);
+        }
+    }
+
+    /**
+     * Parses all data rows of the file, skipping the header row
+     */
+    int readAll(Consumer<PricingRecord> consumer) throws IOException {
+        if (fileSize == 0) {
+            CSVParser.logger.warn("CSV file is empty or has no header");
+            return 0;
+        }
+        lineNumber = 1;
+        return readRange(0, fileSize, true, consumer);
+    }
+
+    /**
+     * Parses every line that starts inside [start, end). The start offset must be at the
+     * beginning of a line. If the range ends inside a multi-line quoted field, the partial
+     * record is kept so that a following call for the next range can complete it.
+     * Returns the number of records passed to the consumer.
+     */
+    int readRange(long start, long end, boolean skipHeader, Consumer<PricingRecord> consumer) throws IOException {
+        int parsedCount = 0;
+        boolean headerPending = skipHeader;
+        long position = start;
+
+        while (position < end) {
+            if (cancelled) {
+                throw new java.util.concurrent.CancellationException("CSV parsing was cancelled");
+            }
+            int lineStart = ensureMapped(position);
+            int lineEnd = findLineBreak(lineStart);
+
+            // Line continues past the mapped window - remap from the line start
+            if (lineEnd == window.limit() && windowStart + lineEnd < fileSize) {
+                remap(position, true);
+                continue;
+            }
+            int next = lineEnd;
+            if (lineEnd < window.limit()) {
+                next++;
+                if (window.get(lineEnd) == '\r') {
+                    if (next < window.limit()) {
+                        if (window.get(next) == '\n') {
+                            next++;
+                        }
+                    } else if (windowStart + next < fileSize) {
+                        // CR is the last mapped byte - need to see whether LF follows
+                        remap(position, true);
+                        continue;
+                    }
+                }
+            }
+
+            String[] tokens = null;
+            boolean simpleLine = pendingTokens == null && !quotedLineParser.isPending()
+                    && splitSimpleLine(lineStart, lineEnd);
+            if (!simpleLine) {
+                tokens = parseQuotedLine(lineStart, lineEnd);
+            }
+            position = windowStart + next;
+
+            if (tokens == null && !simpleLine) {
+                // Quoted field continues on the next line
+                if (position >= fileSize) {
+                    throw new IOException("Unterminated quoted field at end of CSV file");
+                }
+                continue;
+            }
+
+            if (headerPending) {
+                headerPending = false;
+                continue;
+            }
+            lineNumber++;
+
+            PricingRecord record = null;
+            try {
+                record = simpleLine ? parseSimpleLine(lineNumber) : CSVParser.parseLine(tokens, lineNumber, decimalParser);
+            } catch (Exception e) {
+                CSVParser.logger.error("Error parsing line {}: {}", lineNumber, e.getMessage());
+            }
+            if (record != null) {
+                consumer.accept(record);
+                parsedCount++;
+                if (progress != null) {
+                    progress.setBytesRead(position);
+                }
+            }
+        }
+        return parsedCount;
+    }
+
+    /**
+     * Sets the line number of the line before the next record, used in parse warnings
+     */
+    void setLineNumber(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Sets where to report the offset reached after each record
+     */
+    void setProgress(ParseProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Stops a readRange running on another thread
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns true if the last range ended in the middle of a multi-line quoted field
+     */
+    boolean endedInsideQuotedField() {
+        return pendingTokens != null || quotedLineParser.isPending();
+    }
+
+    /**
+     * Returns the offset just after the first line break at or after the given offset,
+     * or the end of the file. A CR LF pair counts as one line break.
+     */
+    long nextLineStart(long position) throws IOException {
+        while (position < fileSize) {
+            int from = ensureMapped(position);
+            int lineEnd = findLineBreak(from);
+            if (lineEnd == window.limit()) {
+                position = windowStart + lineEnd;
+                continue;
+            }
+            long next = windowStart + lineEnd + 1;
+            if (window.get(lineEnd) == '\r' && next < fileSize) {
+                int after = ensureMapped(next);
+                if (window.get(after) == '\n') {
+                    next++;
+                }
+            }
+            return next;
+        }
+        return fileSize;
+    }
+
+    /**
+     * Counts the line breaks in [start, end), treating CR LF as one
+     */
+    int countLineBreaks(long start, long end) throws IOException {
+        int count = 0;
+        long position = start;
+        while (position < end) {
+            int from = ensureMapped(position);
+            int limit = (int) Math.min(window.limit(), end - windowStart);
+            for (int i = from; i < limit; i++) {
+                byte b = window.get(i);
+                if (b == '\n') {
+                    count++;
+                } else if (b == '\r') {
+                    // A CR followed by LF is counted at the LF
+                    long next = windowStart + i + 1;
+                    if (next >= fileSize || next >= end || byteAt(next) != '\n') {
+                        count++;
+                    }
+                }
+            }
+            position = windowStart + limit;
+        }
+        return count;
+    }
+
+    private byte byteAt(long position) throws IOException {
+        if (position < windowStart + window.limit()) {
+            return window.get((int) (position - windowStart));
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 1).get(0);
+    }
+
+    long size() {
+        return fileSize;
+    }
+
+    /**
+     * Makes sure the given file offset is mapped and returns its offset within the window
+     */
+    private int ensureMapped(long position) throws IOException {
+        if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+            remap(position, false);
+        }
+        return (int) (position - windowStart);
+    }
+
+    /**
+     * Maps a new window starting at the given offset. When grow is set the current
+     * window was too small for one line, so the new window is made larger.
+     */
+    private void remap(long position, boolean grow) throws IOException {
+        long size = WINDOW_SIZE;
+        if (grow && window != null && windowStart == position) {
+            if (window.limit() == Integer.MAX_VALUE) {
+                throw new IOException("CSV line at offset " + position + " is too long");
+            }
+            size = Math.min((long) window.limit() * 2, Integer.MAX_VALUE);
+        }
+        size = Math.min(size, fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        windowStart = position;
+    }
+
+    /**
+     * Returns the offset of the next CR or LF, or the window limit if there is none
+     */
+    private int findLineBreak(int from) {
+        int limit = window.limit();
+        for (int i = from; i < limit; i++) {
+            byte b = window.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Records the field boundaries of a line with no quote or escape characters.
+     * Returns false if the line needs the full OpenCSV treatment.
+     */
+    private boolean splitSimpleLine(int lineStart, int lineEnd) {
+        int fieldCount = 0;
+        int start = lineStart;
+        for (int i = lineStart; i < lineEnd; i++) {
+            byte b = window.get(i);
+            if (b == '"' || b == '\\') {
+                return false;
+            }
+            if (b == ',') {
+                if (fieldCount < MAX_FIELDS) {
+                    fieldStart[fieldCount] = start;
+                    fieldEnd[fieldCount] = i;
+                }
+                fieldCount++;
+                start = i + 1;
+            }
+        }
+        if (fieldCount < MAX_FIELDS) {
+            fieldStart[fieldCount] = start;
+            fieldEnd[fieldCount] = lineEnd;
+        }
+        this.fieldCount = fieldCount + 1;
+        return true;
+    }
+
+    /**
+     * Parses a line through OpenCSV's line parser. Returns null while a quoted field
+     * spans onto the next line.
+     */
+    private String[] parseQuotedLine(int lineStart, int lineEnd) throws IOException {
+        String line = decode(lineStart, lineEnd);
+        String[] tokens = quotedLineParser.parseLineMulti(line);
+        if (tokens.length > 0) {
+            if (pendingTokens == null) {
+                pendingTokens = tokens;
+            } else {
+                String[] combined = new String[pendingTokens.length + tokens.length];
+                System.arraycopy(pendingTokens, 0, combined, 0, pendingTokens.length);
+                System.arraycopy(tokens, 0, combined, pendingTokens.length, tokens.length);
+                pendingTokens = combined;
+            }
+        }
+        if (quotedLineParser.isPending()) {
+            return null;
+        }
+        String[] result = pendingTokens;
+        pendingTokens = null;
+        return result;
+    }
+
+    /**
+     * Builds a record from the field boundaries found by splitSimpleLine
+     */
+    private PricingRecord parseSimpleLine(int lineNumber) {
+        if (fieldCount < MAX_FIELDS) {
+            CSVParser.logger.warn("Line {} has insufficient columns (expected 5, found {})", lineNumber, fieldCount);
+            return null;
+        }
+
+        PricingRecord record = new PricingRecord();
+
+        // instrument_guid
+        record.setInstrumentGuid(decodeTrimmed(0));
+
+        // trade_date
+        LocalDate tradeDate = parseDate(fieldStart[1], fieldEnd[1]);
+        if (tradeDate == null) {
+            String raw = decode(fieldStart[1], fieldEnd[1]);
+            tradeDate = CSVParser.parseDate(raw.trim());
+            if (tradeDate == null) {
+                CSVParser.logger.warn("Invalid date format on line {}: {}", lineNumber, raw);
+            }
+        }
+        record.setTradeDate(tradeDate);
+
+        // price - handle missing or invalid values
+        int priceStart = trimStart(fieldStart[2], fieldEnd[2]);
+        priceText.set(priceStart, trimEnd(priceStart, fieldEnd[2]));
+        CSVParser.applyPrice(record, priceText, lineNumber, decimalParser);
+
+        // exchange
+        record.setExchange(lookupTrimmed(exchanges, 3));
+
+        // product_type
+        record.setProductType(lookupTrimmed(productTypes, 4));
+
+        return record;
+    }
+
+    /**
+     * Decodes yyyy-MM-dd directly from the mapped bytes. Returns null when the field is
+     * not a plain ten character date so that the caller can fall back to the formatter,
+     * which keeps the exact same leniency rules.
+     */
+    private LocalDate parseDate(int start, int end) {
+        int from = trimStart(start, end);
+        int to = trimEnd(from, end);
+        if (to - from != 10 || window.get(from + 4) != '-' || window.get(from + 7) != '-') {
+            return null;
+        }
+        int year = digits(from, 4);
+        int month = digits(from + 5, 2);
+        int day = digits(from + 8, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        // Same as the formatter's SMART resolution: an out of range day is clamped to month end
+        LocalDate firstOfMonth = LocalDate.of(year, month, 1);
+        return firstOfMonth.withDayOfMonth(Math.min(day, firstOfMonth.lengthOfMonth()));
+    }
+
+    /**
+     * Reads a run of ASCII digits, returning -1 if any byte is not a digit
+     */
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = window.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private String decodeTrimmed(int field) {
+        int from = trimStart(fieldStart[field], fieldEnd[field]);
+        return decode(from, trimEnd(from, fieldEnd[field]));
+    }
+
+    private String lookupTrimmed(SymbolTable table, int field) {
+        int from = trimStart(fieldStart[field], fieldEnd[field]);
+        int to = trimEnd(from, fieldEnd[field]);
+        String value = table.lookup(window, from, to);
+        if (value == null) {
+            value = table.add(window, from, to, decode(from, to));
+        }
+        return value;
+    }
+
+    /**
+     * Same whitespace rule as String.trim(): anything at or below a space
+     */
+    private int trimStart(int from, int to) {
+        while (from < to && (window.get(from) & 0xFF) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && (window.get(to - 1) & 0xFF) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    private String decode(int from, int to) {
+        int length = to - from;
+        if (length == 0) {
+            return "";
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Text of a field in the current window. Characters are the raw bytes, which is enough
+     * for number parsing since every byte outside ASCII makes a number invalid anyway;
+     * toString() decodes the bytes as UTF-8.
+     */
+    private final class FieldText implements CharSequence {
+        private int from;
+        private int to;
+
+        void set(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (window.get(from + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            FieldText text = new FieldText();
+            text.set(from + start, from + end);
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return decode(from, to);
+        }
+    }
+
+    /**
+     * Small open-addressing table that maps byte sequences to previously decoded Strings,
+     * so repeated values such as exchange codes never allocate. Stops growing once full.
+     */
+    private static final class SymbolTable {
+        private static final int CAPACITY = 256;
+        private static final int MAX_ENTRIES = CAPACITY / 2;
+
+        private final byte[][] keys = new byte[CAPACITY][];
+        private final String[] values = new String[CAPACITY];
+        private int size;
+
+        String lookup(MappedByteBuffer buffer, int from, int to) {
+            int slot = hash(buffer, from, to) & (CAPACITY - 1);
+            while (keys[slot] != null) {
+                if (matches(keys[slot], buffer, from, to)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            return null;
+        }
+
+        String add(MappedByteBuffer buffer, int from, int to, String value) {
+            if (size >= MAX_ENTRIES) {
+                return value;
+            }
+            int slot = hash(buffer, from, to) & (CAPACITY - 1);
+            while (keys[slot] != null) {
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            byte[] key = new byte[to - from];
+            buffer.get(from, key);
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+            return value;
+        }
+
+        private static int hash(MappedByteBuffer buffer, int from, int to) {
+            int h = 1;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + buffer.get(i);
+            }
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean matches(byte[] key, MappedByteBuffer buffer, int from, int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.cme.pricing.parser;
+
+import com.cme.pricing.model.PricingRecord;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Parses a file with the memory-mapped tokenizer on several threads.
+ * The file is split into byte ranges that start on line boundaries, each range is parsed
+ * by its own MappedCSVReader, and the records are handed to the consumer on the calling
+ * thread in their original file order. Only a few ranges are in flight at a time, so
+ * memory stays bounded for very large files.
+ */
+class ParallelCSVReader {
+
+    private static final long MIN_CHUNK_SIZE = 8L << 20;
+    private static final long MAX_CHUNK_SIZE = 128L << 20;
+
+    private final ForkJoinPool pool;
+
+    ParallelCSVReader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Result of parsing one range
+     */
+    private record Chunk(List<PricingRecord> records, MappedCSVReader reader) {
+    }
+
+    /**
+     * Parses the whole file, skipping the header row. Returns the number of records
+     * passed to the consumer. If progress is given, it is told the end of each range once
+     * the range's records have been handed over.
+     */
+    int read(String filePath, Consumer<PricingRecord> consumer, ParseProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long[] bounds = split(channel);
+            int chunkCount = bounds.length - 1;
+            int[] firstLineNumbers = firstLineNumbers(channel, bounds);
+
+            MappedCSVReader[] readers = new MappedCSVReader[chunkCount];
+            List<Future<Chunk>> futures = new ArrayList<>(chunkCount);
+            int maxInFlight = pool.getParallelism() * 2;
+            int parsedCount = 0;
+            try {
+                for (int i = 0; i < chunkCount; i++) {
+                    while (futures.size() < chunkCount && futures.size() < i + maxInFlight) {
+                        int index = futures.size();
+                        readers[index] = new MappedCSVReader(channel);
+                        readers[index].setLineNumber(firstLineNumbers[index]);
+                        futures.add(pool.submit(() -> parseChunk(readers[index], bounds, index)));
+                    }
+                    Chunk chunk = await(futures.get(i));
+                    futures.set(i, null);
+                    chunk.records().forEach(consumer);
+                    parsedCount += chunk.records().size();
+                    if (progress != null) {
+                        progress.setBytesRead(bounds[i + 1]);
+                    }
+
+                    if (chunk.reader().endedInsideQuotedField()) {
+                        // A quoted field spans the range boundary, so the following ranges did
+                        // not start on a record boundary - finish the file on this thread
+                        CSVParser.logger.info("Quoted field crosses a chunk boundary at offset {}, "
+                                + "parsing the rest of the file sequentially", bounds[i + 1]);
+                        chunk.reader().setProgress(progress);
+                        parsedCount += chunk.reader().readRange(bounds[i + 1], bounds[chunkCount], false, consumer);
+                        break;
+                    }
+                }
+            } finally {
+                // Stop ranges that are still being parsed
+                for (int i = 0; i < futures.size(); i++) {
+                    if (futures.get(i) != null) {
+                        readers[i].cancel();
+                        futures.get(i).cancel(false);
+                    }
+                }
+            }
+            return parsedCount;
+        }
+    }
+
+    /**
+     * Returns the range boundaries: bounds[0] is 0, the last entry is the file size, and
+     * every other entry is the start of a line
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        MappedCSVReader reader = new MappedCSVReader(channel);
+        long fileSize = reader.size();
+        long chunkSize = fileSize / (pool.getParallelism() * 4L);
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = 0;
+        while (position + chunkSize < fileSize) {
+            position = reader.nextLineStart(position + chunkSize);
+            if (position >= fileSize) {
+                break;
+            }
+            bounds.add(position);
+        }
+        bounds.add(fileSize);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Counts the lines of every range in parallel to find the line number each range starts
+     * at, so parse warnings from later ranges still report file line numbers
+     */
+    private int[] firstLineNumbers(FileChannel channel, long[] bounds) throws IOException {
+        int chunkCount = bounds.length - 1;
+        List<Future<Integer>> counts = new ArrayList<>(chunkCount - 1);
+        for (int i = 0; i < chunkCount - 1; i++) {
+            int index = i;
+            counts.add(pool.submit(() -> new MappedCSVReader(channel).countLineBreaks(bounds[index], bounds[index + 1])));
+        }
+
+        // The first range starts with the header, which is line 1
+        int[] firstLineNumbers = new int[chunkCount];
+        firstLineNumbers[0] = 1;
+        int lines = 0;
+        for (int i = 1; i < chunkCount; i++) {
+            lines += await(counts.get(i - 1));
+            firstLineNumbers[i] = lines;
+        }
+        return firstLineNumbers;
+    }
+
+    private Chunk parseChunk(MappedCSVReader reader, long[] bounds, int index) throws IOException {
+        List<PricingRecord> records = new ArrayList<>();
+        reader.readRange(bounds[index], bounds[index + 1], index == 0, records::add);
+        return new Chunk(records, reader);
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing CSV file", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to parse CSV file", cause);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.cme.pricing.parser;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of parsing one file, read from other threads while the parse runs, and a flag
+ * to stop it. The parser is the only writer: counters are published with lazySet, which
+ * costs no more than a plain store in the parse loop, and readers see them shortly after.
+ * Cancelling is cooperative: the parser checks the flag before handing over each record
+ * and then throws CancellationException.
+ */
+public class ParseProgress {
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private volatile boolean cancelled;
+
+    /**
+     * Size of the file being parsed
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * Bytes of the file parsed so far. With the parallel mmap parser this moves in steps
+     * of one range.
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Records parsed and handed over so far
+     */
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    /**
+     * Asks the parse to stop before the next record
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setTotalBytes(long totalBytes) {
+        this.totalBytes.lazySet(totalBytes);
+    }
+
+    void setBytesRead(long bytesRead) {
+        this.bytesRead.lazySet(bytesRead);
+    }
+
+    void setRowsParsed(long rowsParsed) {
+        this.rowsParsed.lazySet(rowsParsed);
+    }
+
+    void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("CSV parsing was cancelled");
+        }
+    }
+}
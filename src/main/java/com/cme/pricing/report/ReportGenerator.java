@@ -1,14 +1,24 @@
 package com.cme.pricing.report;
 
+import com.cme.pricing.metrics.PricingMetrics;
 import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
 import com.cme.pricing.model.ValidationReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.List;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Formatter;
 
 /**
  * Generator for validation reports
@@ -17,31 +27,92 @@ import java.util.List;
 public class ReportGenerator {
     
     private static final Logger logger = LoggerFactory.getLogger(ReportGenerator.class);
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String RULE_27 = "-".repeat(27);
+    private static final String RULE_80 = "-".repeat(80);
+    private static final String DOUBLE_RULE_43 = "=".repeat(43);
+    private static final String DOUBLE_RULE_80 = "=".repeat(80);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     /**
-     * Generates a text report and saves it to a file
+     * Generates a text report, saves it to a file and returns its content
      */
     public String generateTextReport(ValidationReport report, String outputPath) throws IOException {
         logger.info("Generating text report to: {}", outputPath);
+        Timer.Sample sample = Timer.start(meterRegistry);
         
         StringBuilder reportContent = new StringBuilder();
+        appendReport(report, reportContent);
+        
+        // Write to file
+        try (Writer writer = openWriter(outputPath)) {
+            writer.write(reportContent.toString());
+        } finally {
+            sample.stop(PricingMetrics.phaseTimer(meterRegistry, PricingMetrics.PHASE_TEXT_REPORT));
+        }
+        
+        logger.info("Report generated successfully: {}", outputPath);
+        return reportContent.toString();
+    }
+
+    /**
+     * Writes a text report to a file as it is generated, without keeping the content in
+     * memory. The file is the same as the one generateTextReport writes, and the time is
+     * recorded in the same text report phase.
+     */
+    public void writeTextReport(ValidationReport report, String outputPath) throws IOException {
+        logger.info("Writing text report to: {}", outputPath);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        
+        try (Writer writer = openWriter(outputPath)) {
+            BufferedOutput output = new BufferedOutput(writer);
+            appendReport(report, output);
+            output.flush();
+        } finally {
+            sample.stop(PricingMetrics.phaseTimer(meterRegistry, PricingMetrics.PHASE_TEXT_REPORT));
+        }
+        
+        logger.info("Report generated successfully: {}", outputPath);
+    }
+
+    /**
+     * Opens a writer on a file channel. Like FileWriter, it uses the default charset and
+     * replaces characters that cannot be encoded.
+     */
+    private static Writer openWriter(String outputPath) throws IOException {
+        CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return Channels.newWriter(new FileOutputStream(outputPath).getChannel(), encoder, BUFFER_SIZE);
+    }
+
+    /**
+     * Appends the text of the report
+     */
+    private void appendReport(ValidationReport report, Appendable reportContent) throws IOException {
+        // Reused for every price, instead of a new Formatter per String.format call
+        StringBuilder number = new StringBuilder();
+        Formatter formatter = new Formatter(number);
         
         // Header
-        reportContent.append("=".repeat(43)).append("\n");
+        reportContent.append(DOUBLE_RULE_43).append("\n");
         reportContent.append("\n");
         reportContent.append("Pricing Data Validation Report\n");
         reportContent.append("\n");
-        reportContent.append("=".repeat(43)).append("\n");
+        reportContent.append(DOUBLE_RULE_43).append("\n");
         reportContent.append("\n");
         
         // Summary
-        reportContent.append("Total Records: ").append(report.getTotalRecords()).append("\n");
+        reportContent.append("Total Records: ").append(String.valueOf(report.getTotalRecords())).append("\n");
         reportContent.append("\n");
-        reportContent.append("Valid Records: ").append(report.getValidRecords()).append("\n");
+        reportContent.append("Valid Records: ").append(String.valueOf(report.getValidRecords())).append("\n");
         reportContent.append("\n");
-        reportContent.append("Invalid Records: ").append(report.getInvalidRecords()).append("\n");
+        reportContent.append("Invalid Records: ").append(String.valueOf(report.getInvalidRecords())).append("\n");
         reportContent.append("\n");
-        reportContent.append("Duplicate Records: ").append(report.getDuplicateRecords()).append("\n");
+        reportContent.append("Duplicate Records: ").append(String.valueOf(report.getDuplicateRecords())).append("\n");
         reportContent.append("\n");
         
         // Calculate total missing values
@@ -50,134 +121,84 @@ public class ReportGenerator {
                           report.getMissingTradeDateRecords() + 
                           report.getMissingExchangeRecords() + 
                           report.getMissingProductTypeRecords();
-        reportContent.append("Missing Values: ").append(totalMissing).append("\n");
+        reportContent.append("Missing Values: ").append(String.valueOf(totalMissing)).append("\n");
         reportContent.append("\n");
         
         // Error Breakdown
         reportContent.append("Error Breakdown:\n");
         reportContent.append("\n");
-        reportContent.append("-".repeat(27)).append("\n");
+        reportContent.append(RULE_27).append("\n");
         reportContent.append("\n");
         
-        if (report.getMissingPriceRecords() > 0) {
-            reportContent.append("Missing Price: ").append(report.getMissingPriceRecords()).append("\n");
-        }
-        if (report.getInvalidPriceFormatRecords() > 0) {
-            reportContent.append("Invalid Price Format: ").append(report.getInvalidPriceFormatRecords()).append("\n");
-        }
-        if (report.getMissingInstrumentGuidRecords() > 0) {
-            reportContent.append("Missing instrument_guid: ").append(report.getMissingInstrumentGuidRecords()).append("\n");
-        }
-        if (report.getMissingTradeDateRecords() > 0) {
-            reportContent.append("Missing trade_date: ").append(report.getMissingTradeDateRecords()).append("\n");
-        }
-        if (report.getMissingExchangeRecords() > 0) {
-            reportContent.append("Missing exchange: ").append(report.getMissingExchangeRecords()).append("\n");
-        }
-        if (report.getMissingProductTypeRecords() > 0) {
-            reportContent.append("Missing product_type: ").append(report.getMissingProductTypeRecords()).append("\n");
-        }
-        if (report.getInvalidExchangeRecords() > 0) {
-            reportContent.append("Invalid exchange: ").append(report.getInvalidExchangeRecords()).append("\n");
-        }
-        if (report.getInvalidProductTypeRecords() > 0) {
-            reportContent.append("Invalid product_type: ").append(report.getInvalidProductTypeRecords()).append("\n");
-        }
-        if (report.getDuplicateRecords() > 0) {
-            reportContent.append("Duplicate Records: ").append(report.getDuplicateRecords()).append("\n");
-        }
+        appendCount(reportContent, "Missing Price: ", report.getMissingPriceRecords());
+        appendCount(reportContent, "Invalid Price Format: ", report.getInvalidPriceFormatRecords());
+        appendCount(reportContent, "Missing instrument_guid: ", report.getMissingInstrumentGuidRecords());
+        appendCount(reportContent, "Missing trade_date: ", report.getMissingTradeDateRecords());
+        appendCount(reportContent, "Missing exchange: ", report.getMissingExchangeRecords());
+        appendCount(reportContent, "Missing product_type: ", report.getMissingProductTypeRecords());
+        appendCount(reportContent, "Invalid exchange: ", report.getInvalidExchangeRecords());
+        appendCount(reportContent, "Invalid product_type: ", report.getInvalidProductTypeRecords());
+        appendCount(reportContent, "Duplicate Records: ", report.getDuplicateRecords());
         
         reportContent.append("\n");
-        reportContent.append("-".repeat(27)).append("\n");
+        reportContent.append(RULE_27).append("\n");
         
         // Invalid Records Details
         if (!report.getInvalidRecordsList().isEmpty()) {
             reportContent.append("INVALID RECORDS DETAILS\n");
-            reportContent.append("-".repeat(80)).append("\n");
+            reportContent.append(RULE_80).append("\n");
             for (PricingRecord record : report.getInvalidRecordsList()) {
-                String guid = record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()
-                    ? record.getInstrumentGuid() : "";
+                String guid = text(record.getInstrumentGuid());
                 String date = record.getTradeDate() != null ? record.getTradeDate().toString() : "";
                 String price = record.getPrice() != null ? String.valueOf(record.getPrice()) : "";
-                String exchange = record.getExchange() != null && !record.getExchange().trim().isEmpty()
-                    ? record.getExchange() : "";
-                String productType = record.getProductType() != null && !record.getProductType().trim().isEmpty()
-                    ? record.getProductType() : "";
                 String error = record.getValidationError() != null ? record.getValidationError() : "";
                 
-                reportContent.append(String.format("Instrument GUID: %s\n", guid));
-                reportContent.append(String.format("  Trade Date:    %s\n", date));
-                reportContent.append(String.format("  Price:         %s\n", price));
-                reportContent.append(String.format("  Exchange:      %s\n", exchange));
-                reportContent.append(String.format("  Product Type:  %s\n", productType));
-                reportContent.append(String.format("  Error:         %s\n", error));
+                reportContent.append("Instrument GUID: ").append(guid).append("\n");
+                reportContent.append("  Trade Date:    ").append(date).append("\n");
+                reportContent.append("  Price:         ").append(price).append("\n");
+                reportContent.append("  Exchange:      ").append(text(record.getExchange())).append("\n");
+                reportContent.append("  Product Type:  ").append(text(record.getProductType())).append("\n");
+                reportContent.append("  Error:         ").append(error).append("\n");
                 reportContent.append("\n");
             }
         }
         
         // Duplicate Records Details
-        List<PricingRecord> duplicateRecords = new java.util.ArrayList<>();
+        boolean duplicatesStarted = false;
         for (PricingRecord record : report.getInvalidRecordsList()) {
-            if (record.getValidationError() != null && record.getValidationError().contains("Duplicate")) {
-                duplicateRecords.add(record);
+            if (!record.hasError(ValidationError.DUPLICATE_GUID)) {
+                continue;
             }
-        }
-        
-        if (!duplicateRecords.isEmpty()) {
-            reportContent.append("DUPLICATE RECORDS DETAILS\n");
-            reportContent.append("-".repeat(80)).append("\n");
-            for (PricingRecord record : duplicateRecords) {
-                reportContent.append(String.format("Instrument GUID: %s\n", 
-                    record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty() 
-                        ? record.getInstrumentGuid() : ""));
-                reportContent.append(String.format("  Trade Date:    %s\n", 
-                    record.getTradeDate() != null ? record.getTradeDate().toString() : ""));
-                // Format price
-                String price;
-                if (record.getPrice() != null) {
-                    price = String.format("%.2f", record.getPrice());
-                } else {
-                    String error = record.getValidationError();
-                    if (error != null && error.contains("Invalid price format: ")) {
-                        int startIndex = error.indexOf("Invalid price format: ") + "Invalid price format: ".length();
-                        int endIndex = error.indexOf(";", startIndex);
-                        price = (endIndex == -1) ? error.substring(startIndex).trim() 
-                                : error.substring(startIndex, endIndex).trim();
-                    } else {
-                        price = "";
-                    }
-                }
-                reportContent.append(String.format("  Price:         %s\n", price));
-                reportContent.append(String.format("  Exchange:      %s\n", 
-                    record.getExchange() != null && !record.getExchange().trim().isEmpty() 
-                        ? record.getExchange() : ""));
-                reportContent.append(String.format("  Product Type:  %s\n", 
-                    record.getProductType() != null && !record.getProductType().trim().isEmpty() 
-                        ? record.getProductType() : ""));
-                reportContent.append(String.format("  Error:         %s\n", 
-                    record.getValidationError() != null ? record.getValidationError() : ""));
-                reportContent.append("\n");
+            if (!duplicatesStarted) {
+                reportContent.append("DUPLICATE RECORDS DETAILS\n");
+                reportContent.append(RULE_80).append("\n");
+                duplicatesStarted = true;
             }
+            reportContent.append("Instrument GUID: ").append(text(record.getInstrumentGuid())).append("\n");
+            reportContent.append("  Trade Date:    ")
+                .append(record.getTradeDate() != null ? record.getTradeDate().toString() : "").append("\n");
+            reportContent.append("  Price:         ").append(tablePrice(formatter, number, record)).append("\n");
+            reportContent.append("  Exchange:      ").append(text(record.getExchange())).append("\n");
+            reportContent.append("  Product Type:  ").append(text(record.getProductType())).append("\n");
+            reportContent.append("  Error:         ")
+                .append(record.getValidationError() != null ? record.getValidationError() : "").append("\n");
+            reportContent.append("\n");
         }
         
         // Missing Values Details
         if (totalMissing > 0) {
             reportContent.append("MISSING VALUES DETAILS\n");
-            reportContent.append("-".repeat(80)).append("\n");
+            reportContent.append(RULE_80).append("\n");
             
             // Missing Price Records
             if (report.getMissingPriceRecords() > 0) {
                 reportContent.append("Missing Price Records:\n");
                 for (PricingRecord record : report.getInvalidRecordsList()) {
-                    if (record.getValidationError() != null && record.getValidationError().contains("Missing price")) {
-                        reportContent.append(String.format("  - GUID: %s, Trade Date: %s, Exchange: %s, Product Type: %s\n",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty() 
-                                ? record.getInstrumentGuid() : "",
-                            record.getTradeDate() != null ? record.getTradeDate().toString() : "",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty() 
-                                ? record.getExchange() : "",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty() 
-                                ? record.getProductType() : ""));
+                    if (record.hasError(ValidationError.MISSING_PRICE)) {
+                        reportContent.append("  - GUID: ").append(text(record.getInstrumentGuid()))
+                            .append(", Trade Date: ").append(record.getTradeDate() != null ? record.getTradeDate().toString() : "")
+                            .append(", Exchange: ").append(text(record.getExchange()))
+                            .append(", Product Type: ").append(text(record.getProductType())).append("\n");
                     }
                 }
                 reportContent.append("\n");
@@ -187,14 +208,11 @@ public class ReportGenerator {
             if (report.getMissingInstrumentGuidRecords() > 0) {
                 reportContent.append("Missing Instrument GUID Records:\n");
                 for (PricingRecord record : report.getInvalidRecordsList()) {
-                    if (record.getValidationError() != null && record.getValidationError().contains("Missing instrument GUID")) {
-                        reportContent.append(String.format("  - Trade Date: %s, Price: %s, Exchange: %s, Product Type: %s\n",
-                            record.getTradeDate() != null ? record.getTradeDate().toString() : "",
-                            record.getPrice() != null ? String.format("%.2f", record.getPrice()) : "",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty() 
-                                ? record.getExchange() : "",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty() 
-                                ? record.getProductType() : ""));
+                    if (record.hasError(ValidationError.MISSING_INSTRUMENT_GUID)) {
+                        reportContent.append("  - Trade Date: ").append(record.getTradeDate() != null ? record.getTradeDate().toString() : "")
+                            .append(", Price: ").append(record.getPrice() != null ? decimal(formatter, number, record.getPrice()) : "")
+                            .append(", Exchange: ").append(text(record.getExchange()))
+                            .append(", Product Type: ").append(text(record.getProductType())).append("\n");
                     }
                 }
                 reportContent.append("\n");
@@ -204,15 +222,11 @@ public class ReportGenerator {
             if (report.getMissingTradeDateRecords() > 0) {
                 reportContent.append("Missing Trade Date Records:\n");
                 for (PricingRecord record : report.getInvalidRecordsList()) {
-                    if (record.getValidationError() != null && record.getValidationError().contains("Missing trade date")) {
-                        reportContent.append(String.format("  - GUID: %s, Price: %s, Exchange: %s, Product Type: %s\n",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty() 
-                                ? record.getInstrumentGuid() : "",
-                            record.getPrice() != null ? String.format("%.2f", record.getPrice()) : "",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty() 
-                                ? record.getExchange() : "",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty() 
-                                ? record.getProductType() : ""));
+                    if (record.hasError(ValidationError.MISSING_TRADE_DATE)) {
+                        reportContent.append("  - GUID: ").append(text(record.getInstrumentGuid()))
+                            .append(", Price: ").append(record.getPrice() != null ? decimal(formatter, number, record.getPrice()) : "")
+                            .append(", Exchange: ").append(text(record.getExchange()))
+                            .append(", Product Type: ").append(text(record.getProductType())).append("\n");
                     }
                 }
                 reportContent.append("\n");
@@ -222,14 +236,11 @@ public class ReportGenerator {
             if (report.getMissingExchangeRecords() > 0) {
                 reportContent.append("Missing Exchange Records:\n");
                 for (PricingRecord record : report.getInvalidRecordsList()) {
-                    if (record.getValidationError() != null && record.getValidationError().contains("Missing exchange")) {
-                        reportContent.append(String.format("  - GUID: %s, Trade Date: %s, Price: %s, Product Type: %s\n",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty() 
-                                ? record.getInstrumentGuid() : "",
-                            record.getTradeDate() != null ? record.getTradeDate().toString() : "",
-                            record.getPrice() != null ? String.format("%.2f", record.getPrice()) : "",
-                            record.getProductType() != null && !record.getProductType().trim().isEmpty() 
-                                ? record.getProductType() : ""));
+                    if (record.hasError(ValidationError.MISSING_EXCHANGE)) {
+                        reportContent.append("  - GUID: ").append(text(record.getInstrumentGuid()))
+                            .append(", Trade Date: ").append(record.getTradeDate() != null ? record.getTradeDate().toString() : "")
+                            .append(", Price: ").append(record.getPrice() != null ? decimal(formatter, number, record.getPrice()) : "")
+                            .append(", Product Type: ").append(text(record.getProductType())).append("\n");
                     }
                 }
                 reportContent.append("\n");
@@ -239,14 +250,11 @@ public class ReportGenerator {
             if (report.getMissingProductTypeRecords() > 0) {
                 reportContent.append("Missing Product Type Records:\n");
                 for (PricingRecord record : report.getInvalidRecordsList()) {
-                    if (record.getValidationError() != null && record.getValidationError().contains("Missing product type")) {
-                        reportContent.append(String.format("  - GUID: %s, Trade Date: %s, Price: %s, Exchange: %s\n",
-                            record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty() 
-                                ? record.getInstrumentGuid() : "",
-                            record.getTradeDate() != null ? record.getTradeDate().toString() : "",
-                            record.getPrice() != null ? String.format("%.2f", record.getPrice()) : "",
-                            record.getExchange() != null && !record.getExchange().trim().isEmpty() 
-                                ? record.getExchange() : ""));
+                    if (record.hasError(ValidationError.MISSING_PRODUCT_TYPE)) {
+                        reportContent.append("  - GUID: ").append(text(record.getInstrumentGuid()))
+                            .append(", Trade Date: ").append(record.getTradeDate() != null ? record.getTradeDate().toString() : "")
+                            .append(", Price: ").append(record.getPrice() != null ? decimal(formatter, number, record.getPrice()) : "")
+                            .append(", Exchange: ").append(text(record.getExchange())).append("\n");
                     }
                 }
                 reportContent.append("\n");
@@ -255,73 +263,127 @@ public class ReportGenerator {
         
         // All Records
         reportContent.append("ALL RECORDS\n");
-        reportContent.append("-".repeat(80)).append("\n");
-        reportContent.append(String.format("%-15s %-12s %-10s %-8s %-12s %-8s\n", 
-            "Instrument GUID", "Trade Date", "Price", "Exchange", "Product Type", "Status"));
-        reportContent.append("-".repeat(80)).append("\n");
+        reportContent.append(RULE_80).append("\n");
+        appendRow(reportContent, "Instrument GUID", "Trade Date", "Price", "Exchange", "Product Type", "Status");
+        reportContent.append(RULE_80).append("\n");
         
         for (PricingRecord record : report.getAllRecords()) {
-            // Format price: show invalid values, blank for missing
-            String price;
-            if (record.getPrice() != null) {
-                price = String.format("%.2f", record.getPrice());
-            } else {
-                // Check if it's an invalid value (stored in validation error)
-                String error = record.getValidationError();
-                if (error != null && error.contains("Invalid price format: ")) {
-                    // Extract original invalid value from error message
-                    // Error might be: "Invalid price format: INVALID" or "Invalid price format: ABC123; Other error"
-                    int startIndex = error.indexOf("Invalid price format: ") + "Invalid price format: ".length();
-                    int endIndex = error.indexOf(";", startIndex);
-                    if (endIndex == -1) {
-                        // No other errors, take until end of string
-                        price = error.substring(startIndex).trim();
-                    } else {
-                        // Other errors present, take until first semicolon
-                        price = error.substring(startIndex, endIndex).trim();
-                    }
-                } else {
-                    // Actually missing, show blank
-                    price = "";
-                }
-            }
-            
-            // Format date: blank for missing
-            String date = record.getTradeDate() != null ? record.getTradeDate().toString() : "";
-            
-            // Format exchange: blank for missing, show actual value for invalid
-            String exchange = (record.getExchange() != null && !record.getExchange().trim().isEmpty()) 
-                    ? record.getExchange() : "";
-            
-            // Format product type: blank for missing, show actual value for invalid
-            String productType = (record.getProductType() != null && !record.getProductType().trim().isEmpty()) 
-                    ? record.getProductType() : "";
-            
-            // Format GUID: blank for missing
-            String guid = (record.getInstrumentGuid() != null && !record.getInstrumentGuid().trim().isEmpty()) 
-                    ? record.getInstrumentGuid() : "";
-            
-            reportContent.append(String.format("%-15s %-12s %-10s %-8s %-12s %-8s\n",
-                guid,
-                date,
-                price,
-                exchange,
-                productType,
-                record.isValid() ? "VALID" : "INVALID"));
+            // Blank for missing values, actual value for invalid ones
+            appendRow(reportContent,
+                text(record.getInstrumentGuid()),
+                record.getTradeDate() != null ? record.getTradeDate().toString() : "",
+                tablePrice(formatter, number, record),
+                text(record.getExchange()),
+                text(record.getProductType()),
+                record.isValid() ? "VALID" : "INVALID");
         }
         
         reportContent.append("\n");
-        reportContent.append("=".repeat(80)).append("\n");
+        reportContent.append(DOUBLE_RULE_80).append("\n");
         reportContent.append("End of Report\n");
-        reportContent.append("=".repeat(80)).append("\n");
-        
-        // Write to file
-        try (FileWriter writer = new FileWriter(outputPath)) {
-            writer.write(reportContent.toString());
+        reportContent.append(DOUBLE_RULE_80).append("\n");
+    }
+
+    private static void appendCount(Appendable out, String label, int count) throws IOException {
+        if (count > 0) {
+            out.append(label).append(String.valueOf(count)).append("\n");
         }
-        
-        logger.info("Report generated successfully: {}", outputPath);
-        return reportContent.toString();
     }
-}
 
+    /**
+     * Appends a row of the all records table, in the columns of
+     * "%-15s %-12s %-10s %-8s %-12s %-8s\n"
+     */
+    private static void appendRow(Appendable out, String guid, String date, String price,
+                                  String exchange, String productType, String status) throws IOException {
+        appendColumn(out, guid, 15);
+        out.append(' ');
+        appendColumn(out, date, 12);
+        out.append(' ');
+        appendColumn(out, price, 10);
+        out.append(' ');
+        appendColumn(out, exchange, 8);
+        out.append(' ');
+        appendColumn(out, productType, 12);
+        out.append(' ');
+        appendColumn(out, status, 8);
+        out.append('\n');
+    }
+
+    /**
+     * Returns the value, or "" if it is null or blank
+     */
+    private static String text(String value) {
+        return value != null && !value.trim().isEmpty() ? value : "";
+    }
+
+    /**
+     * Formats the price for the tables: two decimals, the original text of an invalid
+     * price, or blank if it is missing
+     */
+    private static String tablePrice(Formatter formatter, StringBuilder number, PricingRecord record) {
+        if (record.getPrice() != null) {
+            return decimal(formatter, number, record.getPrice());
+        } else if (record.hasError(ValidationError.INVALID_PRICE_FORMAT)) {
+            return String.valueOf(record.getOriginalPriceValue()).trim();
+        }
+        return "";
+    }
+
+    /**
+     * Formats the price with two decimals, like String.format("%.2f", price)
+     */
+    private static String decimal(Formatter formatter, StringBuilder number, Double price) {
+        number.setLength(0);
+        formatter.format("%.2f", price);
+        return number.toString();
+    }
+
+    /**
+     * Appends the value left-aligned in a column of the given width, like %-Ns
+     */
+    private static void appendColumn(Appendable out, String value, int width) throws IOException {
+        out.append(value);
+        for (int i = value.length(); i < width; i++) {
+            out.append(' ');
+        }
+    }
+
+    /**
+     * Collects the small appends of the report and passes them on to the writer in blocks.
+     * Unlike BufferedWriter it takes no lock per append.
+     */
+    private static final class BufferedOutput implements Appendable {
+        private final Writer writer;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+
+        BufferedOutput(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public Appendable append(CharSequence text) throws IOException {
+            buffer.append(text);
+            if (buffer.length() >= BUFFER_SIZE) {
+                flush();
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence text, int start, int end) throws IOException {
+            return append(text.subSequence(start, end));
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            buffer.append(c);
+            return this;
+        }
+
+        void flush() throws IOException {
+            writer.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.metrics.PricingMetrics;
+import com.cme.pricing.model.BatchReport;
+import com.cme.pricing.model.FileReport;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Service for validating a batch of CSV files, such as the files of one night.
+ * Files are validated in a single streaming pass each, like POST /api/pricing/validate,
+ * several at a time on a fixed-size pool. The loaded data is left untouched.
+ */
+@Service
+public class BatchValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchValidationService.class);
+
+    @Autowired
+    private CSVParser csvParser;
+
+    @Autowired
+    private PricingValidator validator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Files validated at the same time; 0 uses all available cores
+     */
+    @Value("${pricing.batch.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService batchPool;
+
+    /**
+     * Result of validating one file, before duplicates across files are counted
+     */
+    private static class FileResult {
+        ReportTally tally = new ReportTally(false);
+        // Trimmed GUID of the first record with each GUID, and whether that record was valid
+        Map<String, Boolean> firstRecordValid = new HashMap<>();
+        String error;
+    }
+
+    /**
+     * Validates all CSV files in a directory, or all files matching a glob such as
+     * "/data/incoming/*.csv". Files are reported in name order. With crossFileDuplicates,
+     * a GUID that already appeared in an earlier file is a duplicate too, so the merged
+     * report is the same as for one file with all records in that order.
+     */
+    public BatchReport validateFiles(String path, boolean crossFileDuplicates) throws IOException {
+        List<Path> files = findFiles(path);
+        logger.info("Batch validation of {} files from: {}", files.size(), path);
+
+        ExecutorService pool = getBatchPool();
+        List<Future<FileResult>> futures = new ArrayList<>();
+        for (Path file : files) {
+            futures.add(pool.submit(() -> validateFile(file, crossFileDuplicates)));
+        }
+
+        BatchReport batch = new BatchReport();
+        batch.setCrossFileDuplicateCheck(crossFileDuplicates);
+        ReportTally merged = new ReportTally(false);
+        Set<String> seenGuids = new HashSet<>();
+        int crossFileTotal = 0;
+        // Results are merged in file order, so the first file with a GUID keeps it
+        for (int i = 0; i < files.size(); i++) {
+            FileResult result = await(futures.get(i));
+            FileReport fileReport = new FileReport(files.get(i).toString());
+            if (result.error != null) {
+                fileReport.setError(result.error);
+                batch.getFileReports().add(fileReport);
+                continue;
+            }
+            if (crossFileDuplicates) {
+                int crossFile = 0;
+                for (Map.Entry<String, Boolean> first : result.firstRecordValid.entrySet()) {
+                    if (!seenGuids.add(first.getKey())) {
+                        result.tally.addDuplicate(first.getValue());
+                        crossFile++;
+                    }
+                }
+                fileReport.setCrossFileDuplicates(crossFile);
+                crossFileTotal += crossFile;
+            }
+            ValidationReport report = new ValidationReport();
+            result.tally.applyTo(report);
+            fileReport.setReport(report);
+            merged.addAll(result.tally);
+            batch.getFileReports().add(fileReport);
+        }
+
+        ValidationReport mergedReport = new ValidationReport();
+        merged.applyTo(mergedReport);
+        batch.setMergedReport(mergedReport);
+        PricingMetrics.countValidation(meterRegistry, mergedReport);
+        batch.setCrossFileDuplicates(crossFileTotal);
+
+        logger.info("Batch validation completed. Files: {}, Total records: {}, Valid: {}, Invalid: {}",
+                files.size(),
+                mergedReport.getTotalRecords(),
+                mergedReport.getValidRecords(),
+                mergedReport.getInvalidRecords());
+        return batch;
+    }
+
+    private FileResult validateFile(Path file, boolean keepFirstRecords) {
+        FileResult result = new FileResult();
+        Set<String> seenGuids = new HashSet<>();
+        try {
+            csvParser.parseFile(file.toString(), record -> {
+                validator.validateRecord(record);
+                boolean duplicate = validator.checkDuplicate(record, seenGuids);
+                result.tally.add(record);
+                String guid = record.getInstrumentGuid();
+                if (keepFirstRecords && !duplicate && guid != null && !guid.trim().isEmpty()) {
+                    result.firstRecordValid.put(guid.trim(), record.isValid());
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error validating file {}: {}", file, e.getMessage());
+            result.error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+        return result;
+    }
+
+    private static FileResult await(Future<FileResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch validation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch validation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Lists the CSV files of a directory, or the files matching a glob in its last path
+     * element, sorted by name. A single CSV file is a batch of one.
+     */
+    private List<Path> findFiles(String path) throws IOException {
+        if (path == null || path.trim().isEmpty()) {
+            throw new IllegalArgumentException("path is required");
+        }
+        Path target;
+        try {
+            target = Paths.get(csvParser.resolvePath(path));
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid path: " + path);
+        }
+
+        Path directory;
+        PathMatcher matcher;
+        if (Files.isDirectory(target)) {
+            directory = target;
+            matcher = file -> file.getFileName().toString().toLowerCase().endsWith(".csv");
+        } else if (Files.isRegularFile(target)) {
+            if (!target.toString().toLowerCase().endsWith(".csv")) {
+                throw new IllegalArgumentException("Unsupported file format. Please use CSV format.");
+            }
+            return List.of(target);
+        } else {
+            Path parent = target.getParent() != null ? target.getParent() : Paths.get(".");
+            directory = Paths.get(csvParser.resolvePath(parent.toString()));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + target.getFileName());
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Directory not found: " + directory);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry) && matcher.matches(entry.getFileName())) {
+                    files.add(entry);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No CSV files found for: " + path);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private synchronized ExecutorService getBatchPool() {
+        if (batchPool == null) {
+            int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            // Daemon threads, like the parser's pool, so an idle pool does not keep the CLI running
+            batchPool = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "batch-validation");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return batchPool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (batchPool != null) {
+            batchPool.shutdownNow();
+            batchPool = null;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only journal of record edits, one JSON object per line. PricingService appends
+ * the edits of each commit in one write and forces them to disk before publishing them,
+ * so edits that arrive together share one fsync. At startup the entries newer than the
+ * snapshot (see SnapshotService) are replayed over it, so no acknowledged edit is lost
+ * in a crash. Older entries are skipped but kept, as an audit trail of every change.
+ *
+ * Journaling needs pricing.snapshot.path as well: a load replaces all records, so it is
+ * saved as a snapshot before it is journaled and replay never has to repeat it.
+ */
+@Service
+public class EditJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(EditJournal.class);
+    private static final int TAIL_BLOCK = 64 * 1024;
+
+    /**
+     * Journal file that every edit is appended to; empty turns journaling off
+     */
+    @Value("${pricing.journal.path:}")
+    private String journalPath = "";
+
+    /**
+     * Snapshot the journal is replayed over
+     */
+    @Value("${pricing.snapshot.path:}")
+    private String snapshotPath = "";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FileChannel channel;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (journalPath.isEmpty()) {
+            return;
+        }
+        if (snapshotPath.isEmpty()) {
+            logger.warn("pricing.journal.path is ignored because pricing.snapshot.path is not set");
+            return;
+        }
+        Path path = Path.of(journalPath);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long end = completeLength();
+        if (end < channel.size()) {
+            // A write cut short by a crash; its edits were never acknowledged
+            logger.warn("Discarding incomplete entry at the end of journal {}", journalPath);
+            channel.truncate(end);
+        }
+        channel.position(end);
+        logger.info("Journaling edits to {}", journalPath);
+    }
+
+    /**
+     * Returns whether edits are journaled
+     */
+    boolean isEnabled() {
+        return channel != null;
+    }
+
+    String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Appends entries and forces them to disk. Called while holding the service's write
+     * lock, so entries are written in the order their changes were applied. If the write
+     * fails, nothing of it is left in the journal.
+     */
+    void append(List<JournalEntry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (JournalEntry entry : entries) {
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(bytes)) {
+                write(gen, entry);
+            }
+            bytes.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        long start = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Entries read back from the journal, and the highest sequence number it holds
+     */
+    record Contents(List<JournalEntry> entries, long lastSequence) {
+    }
+
+    /**
+     * Reads the entries with a sequence number above the given one, in journal order.
+     * Entries that cannot be read are logged and skipped; the gap they leave in the
+     * sequence numbers shows where they were.
+     */
+    Contents readAfter(long sequence) throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        long lastSequence = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(journalPath))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                JournalEntry entry;
+                try {
+                    entry = read(mapper.readTree(line));
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Skipping unreadable entry at line {} of journal {}: {}",
+                            lineNumber, journalPath, e.getMessage());
+                    continue;
+                }
+                lastSequence = Math.max(lastSequence, entry.sequence);
+                if (entry.sequence > sequence) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return new Contents(entries, lastSequence);
+    }
+
+    private void write(JsonGenerator gen, JournalEntry entry) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("sequence", entry.sequence);
+        gen.writeStringField("time", entry.time.toString());
+        gen.writeStringField("operation", entry.operation.name());
+        if (entry.position >= 0) {
+            gen.writeNumberField("position", entry.position);
+        }
+        if (entry.instrumentGuid != null) {
+            gen.writeStringField("instrumentGuid", entry.instrumentGuid);
+        }
+        if (entry.changes != null) {
+            PricingRecord changes = entry.changes;
+            gen.writeObjectFieldStart("changes");
+            if (changes.getInstrumentGuid() != null) {
+                gen.writeStringField("instrumentGuid", changes.getInstrumentGuid());
+            }
+            if (changes.getTradeDate() != null) {
+                gen.writeStringField("tradeDate", changes.getTradeDate().toString());
+            }
+            if (changes.getPrice() != null) {
+                gen.writeNumberField("price", changes.getPrice());
+            }
+            if (changes.getOriginalPriceValue() != null) {
+                gen.writeStringField("originalPriceValue", changes.getOriginalPriceValue());
+            }
+            if (changes.getExchange() != null) {
+                gen.writeStringField("exchange", changes.getExchange());
+            }
+            if (changes.getProductType() != null) {
+                gen.writeStringField("productType", changes.getProductType());
+            }
+            if (changes.getErrorMask() != 0) {
+                gen.writeNumberField("errorMask", changes.getErrorMask());
+            }
+            gen.writeEndObject();
+        }
+        if (entry.source != null) {
+            gen.writeStringField("source", entry.source);
+            gen.writeNumberField("totalRecords", entry.totalRecords);
+        }
+        gen.writeEndObject();
+    }
+
+    private JournalEntry read(JsonNode node) {
+        PricingRecord changes = null;
+        JsonNode fields = node.get("changes");
+        if (fields != null) {
+            changes = new PricingRecord();
+            changes.setInstrumentGuid(text(fields, "instrumentGuid"));
+            String tradeDate = text(fields, "tradeDate");
+            changes.setTradeDate(tradeDate != null ? LocalDate.parse(tradeDate) : null);
+            JsonNode price = fields.get("price");
+            if (price != null) {
+                // Written as a string when it is not a finite number
+                changes.setPrice(price.isNumber() ? price.doubleValue() : Double.parseDouble(price.asText()));
+            }
+            changes.setOriginalPriceValue(text(fields, "originalPriceValue"));
+            changes.setExchange(text(fields, "exchange"));
+            changes.setProductType(text(fields, "productType"));
+            if (fields.has("errorMask")) {
+                changes.setErrorMask(fields.get("errorMask").intValue());
+            }
+        }
+        JournalEntry entry = new JournalEntry(
+                JournalEntry.Operation.valueOf(node.get("operation").asText()),
+                Instant.parse(node.get("time").asText()),
+                node.has("position") ? node.get("position").intValue() : -1,
+                text(node, "instrumentGuid"),
+                changes,
+                text(node, "source"),
+                node.has("totalRecords") ? node.get("totalRecords").intValue() : 0);
+        entry.sequence = node.get("sequence").longValue();
+        return entry;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null ? value.asText() : null;
+    }
+
+    /**
+     * Returns the length of the journal up to the end of its last complete line
+     */
+    private long completeLength() throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(TAIL_BLOCK);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - TAIL_BLOCK);
+            block.clear().limit((int) (end - start));
+            while (block.hasRemaining() && channel.read(block, start + block.position()) >= 0) {
+                // Keep reading until the block is full
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
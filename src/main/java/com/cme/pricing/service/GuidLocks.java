@@ -0,0 +1,66 @@
+package com.cme.pricing.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks keyed by trimmed instrument GUID. Changes to records with different GUIDs
+ * usually hold different stripes and can go ahead at the same time, while changes to the
+ * same GUID (including ones that only differ by surrounding blanks) take turns.
+ * A change that moves a record to another GUID holds both stripes, locked lowest first so
+ * that two such changes can never wait on each other.
+ */
+final class GuidLocks {
+
+    private final ReentrantLock[] stripes;
+
+    GuidLocks(int count) {
+        // Round up to a power of two so a stripe is picked with a mask
+        stripes = new ReentrantLock[count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of the given GUIDs, either of which may be null, and returns a
+     * handle to unlock them again with, in a finally block
+     */
+    Held lock(String guid, String otherGuid) {
+        int first = stripe(guid);
+        int second = otherGuid == null ? first : stripe(otherGuid);
+        int low = Math.min(first, second);
+        int high = Math.max(first, second);
+        stripes[low].lock();
+        if (high != low) {
+            stripes[high].lock();
+        }
+        return new Held(low, high);
+    }
+
+    private int stripe(String guid) {
+        int h = guid == null ? 0 : guid.trim().hashCode();
+        // Spread the bits so GUIDs differing only in their last characters use different stripes
+        h *= 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Stripes held by one caller
+     */
+    final class Held {
+        private final int low;
+        private final int high;
+
+        private Held(int low, int high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        void unlock() {
+            if (high != low) {
+                stripes[high].unlock();
+            }
+            stripes[low].unlock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+
+import java.time.Instant;
+
+/**
+ * One change in the edit journal: an update, correction or deletion of the record at a
+ * position, a new record, or a load that replaced all records. Positions are those of the
+ * record list just before the change, so replaying the entries in order over the data
+ * they started from repeats every change.
+ */
+final class JournalEntry {
+
+    enum Operation {
+        UPDATE, CORRECT, DELETE, CREATE, LOAD
+    }
+
+    final Operation operation;
+    final Instant time;
+    // Position of the changed record, or -1 for CREATE and LOAD
+    final int position;
+    // GUID of the record before the change, for the audit trail
+    final String instrumentGuid;
+    // Fields the change sets, or null for DELETE and LOAD
+    final PricingRecord changes;
+    // File the data was loaded from and its record count, for LOAD
+    final String source;
+    final int totalRecords;
+    // Assigned when the change is committed
+    long sequence;
+
+    JournalEntry(Operation operation, Instant time, int position, String instrumentGuid,
+                 PricingRecord changes, String source, int totalRecords) {
+        this.operation = operation;
+        this.time = time;
+        this.position = position;
+        this.instrumentGuid = instrumentGuid;
+        this.changes = changes;
+        this.source = source;
+        this.totalRecords = totalRecords;
+    }
+
+    static JournalEntry update(int position, String instrumentGuid, PricingRecord updatedRecord) {
+        PricingRecord changes = new PricingRecord();
+        changes.setPrice(updatedRecord.getPrice());
+        changes.setExchange(updatedRecord.getExchange());
+        changes.setProductType(updatedRecord.getProductType());
+        changes.setTradeDate(updatedRecord.getTradeDate());
+        return new JournalEntry(Operation.UPDATE, Instant.now(), position, instrumentGuid, changes, null, 0);
+    }
+
+    static JournalEntry correct(int position, String instrumentGuid, PricingRecord correction, String newGuid) {
+        PricingRecord changes = new PricingRecord();
+        changes.setInstrumentGuid(newGuid);
+        changes.setPrice(correction.getPrice());
+        changes.setExchange(correction.getExchange());
+        changes.setProductType(correction.getProductType());
+        changes.setTradeDate(correction.getTradeDate());
+        return new JournalEntry(Operation.CORRECT, Instant.now(), position, instrumentGuid, changes, null, 0);
+    }
+
+    static JournalEntry delete(int position, String instrumentGuid) {
+        return new JournalEntry(Operation.DELETE, Instant.now(), position, instrumentGuid, null, null, 0);
+    }
+
+    static JournalEntry create(PricingRecord newRecord) {
+        PricingRecord changes = new PricingRecord();
+        changes.setInstrumentGuid(newRecord.getInstrumentGuid());
+        changes.setTradeDate(newRecord.getTradeDate());
+        changes.setPrice(newRecord.getPrice());
+        changes.setOriginalPriceValue(newRecord.getOriginalPriceValue());
+        changes.setExchange(newRecord.getExchange());
+        changes.setProductType(newRecord.getProductType());
+        // Validation keeps an invalid price format flag the new record already carries
+        changes.setErrorMask(newRecord.getErrorMask());
+        return new JournalEntry(Operation.CREATE, Instant.now(), -1, null, changes, null, 0);
+    }
+
+    static JournalEntry load(String source, int totalRecords) {
+        return new JournalEntry(Operation.LOAD, Instant.now(), -1, null, null, source, totalRecords);
+    }
+}
@@ -0,0 +1,51 @@
+package com.cme.pricing.service;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Read-only list that is built the first time it is used.
+ * Report lists that are expensive to build, such as the sorted record list, cost
+ * nothing until a caller actually reads them. Concurrent first reads build the list once;
+ * a lock is used rather than synchronized so that waiting virtual threads unmount.
+ */
+final class LazyList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final Supplier<List<T>> builder;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile List<T> list;
+
+    LazyList(Supplier<List<T>> builder) {
+        this.builder = builder;
+    }
+
+    @Override
+    public T get(int index) {
+        return list().get(index);
+    }
+
+    @Override
+    public int size() {
+        return list().size();
+    }
+
+    private List<T> list() {
+        List<T> built = list;
+        if (built == null) {
+            lock.lock();
+            try {
+                built = list;
+                if (built == null) {
+                    built = builder.get();
+                    list = built;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return built;
+    }
+}
@@ -0,0 +1,154 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.ValidationReport;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+/**
+ * A load of a CSV file running in the background (see LoadJobService). Progress can be
+ * read at any time while the job runs; the report is set once it has completed.
+ */
+public class LoadJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final String filePath;
+    private final Instant submittedAt = Instant.now();
+    private final LoadProgress progress = new LoadProgress();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile ValidationReport report;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    LoadJob(String id, String filePath) {
+        this.id = id;
+        this.filePath = filePath;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public LoadProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Report of the loaded data, once the job has completed
+     */
+    public ValidationReport getReport() {
+        return report;
+    }
+
+    /**
+     * Why the job failed, if it did
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    /**
+     * Time spent running so far, or in total once finished
+     */
+    public Duration getElapsed() {
+        Instant start = startedAt;
+        if (start == null) {
+            return Duration.ZERO;
+        }
+        Instant end = finishedAt;
+        return Duration.between(start, end != null ? end : Instant.now());
+    }
+
+    /**
+     * Records parsed per second of running time
+     */
+    public double getRowsPerSecond() {
+        return perSecond(progress.getRowsParsed());
+    }
+
+    /**
+     * Bytes parsed per second of running time
+     */
+    public double getBytesPerSecond() {
+        return perSecond(progress.getBytesRead());
+    }
+
+    /**
+     * Share of the file parsed so far, from 0 to 100
+     */
+    public double getPercentComplete() {
+        if (status == Status.COMPLETED) {
+            return 100;
+        }
+        long total = progress.getTotalBytes();
+        return total > 0 ? Math.min(100.0, 100.0 * progress.getBytesRead() / total) : 0;
+    }
+
+    private double perSecond(long count) {
+        long millis = getElapsed().toMillis();
+        return millis > 0 ? count * 1000.0 / millis : 0;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void completed(ValidationReport report) {
+        this.report = report;
+        finish(Status.COMPLETED);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    void cancelled() {
+        finish(Status.CANCELLED);
+    }
+
+    private void finish(Status finalStatus) {
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+}
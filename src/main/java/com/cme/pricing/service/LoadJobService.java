@@ -0,0 +1,191 @@
+package com.cme.pricing.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Runs loads of CSV files in the background, so a caller gets a job id straight away and
+ * polls the job for progress instead of waiting for the whole load.
+ * Jobs run one at a time in the order they were submitted, as each load replaces the data
+ * of the one before. While a job runs, readers keep seeing the previous data, which is
+ * only replaced once the new file has been loaded in full. Cancelling a job stops it
+ * before its next record and leaves the previous data in place.
+ */
+@Service
+public class LoadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadJobService.class);
+
+    // Finished jobs kept for status polling; the oldest are dropped beyond this
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Value("${pricing.jobs.watch-interval-millis:500}")
+    private long watchIntervalMillis;
+
+    private final Map<String, LoadJob> jobs = new ConcurrentHashMap<>();
+
+    // Daemon thread, like the parser's pool, so an idle worker does not keep the CLI running
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "load-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Calls the watchers of running jobs; they only read the job's counters
+    private final ScheduledExecutorService watchTimer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "load-job-watch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Queues a load of the file and returns its job
+     */
+    public LoadJob submit(String filePath) {
+        if (!filePath.toLowerCase().endsWith(".csv")) {
+            throw new IllegalArgumentException("Unsupported file format. Please use CSV format.");
+        }
+        pruneFinishedJobs();
+        LoadJob job = new LoadJob(UUID.randomUUID().toString(), filePath);
+        jobs.put(job.getId(), job);
+        job.setFuture(worker.submit(() -> run(job)));
+        logger.info("Queued load job {} for file: {}", job.getId(), filePath);
+        return job;
+    }
+
+    /**
+     * Returns the job with the given id, if it is still kept
+     */
+    public Optional<LoadJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Cancels a job that has not finished yet. A queued job never starts; a running job
+     * stops before its next record. Returns the job, if it is known.
+     */
+    public Optional<LoadJob> cancel(String id) {
+        LoadJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.getProgress().cancel();
+        synchronized (job) {
+            if (job.getStatus() == LoadJob.Status.QUEUED) {
+                job.getFuture().cancel(false);
+                job.cancelled();
+                logger.info("Load job {} cancelled before it started", id);
+            }
+        }
+        return Optional.of(job);
+    }
+
+    /**
+     * Calls the listener with the job straight away and then every
+     * pricing.jobs.watch-interval-millis until the job has finished; the last call sees the
+     * job finished. The listener returns false to stop being called before that, for
+     * example once its client has gone.
+     */
+    public void watch(LoadJob job, Predicate<LoadJob> listener) {
+        JobWatch watch = new JobWatch(job, listener);
+        watch.task = watchTimer.scheduleAtFixedRate(watch, 0, watchIntervalMillis, TimeUnit.MILLISECONDS);
+        if (watch.stopped) {
+            watch.task.cancel(false);
+        }
+    }
+
+    private void run(LoadJob job) {
+        synchronized (job) {
+            if (job.isFinished()) {
+                return;
+            }
+            job.started();
+        }
+        try {
+            job.completed(pricingService.loadAndValidateData(job.getFilePath(), job.getProgress()));
+            logger.info("Load job {} completed in {} ms", job.getId(), job.getElapsed().toMillis());
+        } catch (CancellationException e) {
+            job.cancelled();
+            logger.info("Load job {} cancelled after {} rows", job.getId(), job.getProgress().getRowsParsed());
+        } catch (Exception e) {
+            job.failed(e.getMessage() != null ? e.getMessage() : e.toString());
+            logger.error("Load job {} failed: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        jobs.values().stream()
+                .filter(LoadJob::isFinished)
+                .sorted(Comparator.comparing(LoadJob::getFinishedAt).reversed())
+                .skip(MAX_FINISHED_JOBS)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (LoadJob job : jobs.values()) {
+            job.getProgress().cancel();
+        }
+        worker.shutdownNow();
+        watchTimer.shutdownNow();
+    }
+
+    /**
+     * One listener watching a job, which cancels its own timer task once it is done
+     */
+    private static class JobWatch implements Runnable {
+
+        private final LoadJob job;
+        private final Predicate<LoadJob> listener;
+        private volatile ScheduledFuture<?> task;
+        private volatile boolean stopped;
+
+        JobWatch(LoadJob job, Predicate<LoadJob> listener) {
+            this.job = job;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            if (stopped) {
+                return;
+            }
+            // Read before calling the listener, so a job finishing meanwhile gets one more call
+            boolean finished = job.isFinished();
+            boolean more;
+            try {
+                more = listener.test(job);
+            } catch (RuntimeException e) {
+                logger.warn("Watcher of load job {} failed: {}", job.getId(), e.getMessage());
+                more = false;
+            }
+            if (finished || !more) {
+                stopped = true;
+                ScheduledFuture<?> scheduled = task;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+            }
+        }
+    }
+}
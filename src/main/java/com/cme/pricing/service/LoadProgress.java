@@ -0,0 +1,101 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.parser.ParseProgress;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Progress of a load: the parse progress plus running validation counts, read from other
+ * threads while the load runs. Like the parse counters, these have a single writer, the
+ * thread validating the records. It counts in plain fields and publishes each new value
+ * with lazySet, so counting a record costs a few plain stores and never reads an atomic.
+ */
+public class LoadProgress extends ParseProgress {
+
+    private final AtomicLong rowsValidated = new AtomicLong();
+    private final AtomicLong validRows = new AtomicLong();
+    private final AtomicLongArray errorCounts = new AtomicLongArray(ValidationError.values().length);
+
+    // The writer's own copies of the counters
+    private long validated;
+    private long valid;
+    private final long[] counts = new long[ValidationError.values().length];
+
+    /**
+     * Records validated so far
+     */
+    public long getRowsValidated() {
+        return rowsValidated.get();
+    }
+
+    /**
+     * Records validated so far that have no errors
+     */
+    public long getValidRows() {
+        return validRows.get();
+    }
+
+    /**
+     * Records validated so far that have errors. The valid count is read before the total,
+     * which the writer counts first, so this is never negative.
+     */
+    public long getInvalidRows() {
+        long valid = getValidRows();
+        return getRowsValidated() - valid;
+    }
+
+    /**
+     * Records validated so far that have the given error
+     */
+    public long getErrorCount(ValidationError error) {
+        return errorCounts.get(error.ordinal());
+    }
+
+    /**
+     * The counts so far as a report without records, read in the same order as
+     * getInvalidRows
+     */
+    public ValidationReport getRunningReport() {
+        int valid = (int) getValidRows();
+        int total = (int) getRowsValidated();
+        ValidationReport report = new ValidationReport();
+        report.setTotalRecords(total);
+        report.setValidRecords(valid);
+        report.setInvalidRecords(total - valid);
+        report.setMissingPriceRecords(count(ValidationError.MISSING_PRICE));
+        report.setInvalidPriceFormatRecords(count(ValidationError.INVALID_PRICE_FORMAT));
+        report.setNegativePriceRecords(count(ValidationError.NEGATIVE_PRICE));
+        report.setZeroPriceRecords(count(ValidationError.ZERO_PRICE));
+        report.setMissingInstrumentGuidRecords(count(ValidationError.MISSING_INSTRUMENT_GUID));
+        report.setMissingTradeDateRecords(count(ValidationError.MISSING_TRADE_DATE));
+        report.setMissingExchangeRecords(count(ValidationError.MISSING_EXCHANGE));
+        report.setMissingProductTypeRecords(count(ValidationError.MISSING_PRODUCT_TYPE));
+        report.setInvalidExchangeRecords(count(ValidationError.INVALID_EXCHANGE));
+        report.setInvalidProductTypeRecords(count(ValidationError.INVALID_PRODUCT_TYPE));
+        report.setDuplicateRecords(count(ValidationError.DUPLICATE_GUID));
+        return report;
+    }
+
+    /**
+     * Counts a record once it has been validated and checked for duplicates
+     */
+    void recordValidated(PricingRecord record) {
+        rowsValidated.lazySet(++validated);
+        if (record.isValid()) {
+            validRows.lazySet(++valid);
+            return;
+        }
+        for (int errors = record.getErrorMask(); errors != 0; errors &= errors - 1) {
+            int error = Integer.numberOfTrailingZeros(errors);
+            errorCounts.lazySet(error, ++counts[error]);
+        }
+    }
+
+    private int count(ValidationError error) {
+        return (int) getErrorCount(error);
+    }
+}
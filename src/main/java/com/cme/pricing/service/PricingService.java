@@ -1,19 +1,43 @@
 package com.cme.pricing.service;
 
+import com.cme.pricing.metrics.PricingMetrics;
 import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.RecordPage;
+import com.cme.pricing.model.ValidationError;
 import com.cme.pricing.model.ValidationReport;
 import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.parser.ParseProgress;
+import com.cme.pricing.store.RecordStore;
+import com.cme.pricing.store.SnapshotFile;
 import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Service class for pricing data operations
@@ -29,13 +53,78 @@ public class PricingService {
     @Autowired
     private PricingValidator validator;
     
-    private List<PricingRecord> records = new ArrayList<>();
-    private ValidationReport currentReport;
+    @Autowired
+    private EditJournal journal;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Records parsed before they are validated together, split across the validator's threads
+    private static final int VALIDATION_BATCH_SIZE = 65_536;
+    
+    private static final String[] REJECTS_HEADER =
+            {"instrument_guid", "trade_date", "price", "exchange", "product_type", "error"};
+    
+    // The current version of the data. A change is made in a fork of the store and then
+    // published here in one step, so readers never wait and never see half of a change.
+    private volatile Snapshot snapshot = new Snapshot(new RecordStore(), new ReportTally(false), 0, 0);
+    // Numbers the loads, so a change checked against one load is never applied to another
+    private final AtomicLong generations = new AtomicLong();
+    // Serializes publishing; reads never take it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Held while writing a snapshot file, so a load never replaces a newer one with an older
+    private final ReentrantLock saveLock = new ReentrantLock();
+    // Changes waiting to be applied by whichever caller holds writeLock next
+    private final ConcurrentLinkedQueue<PendingChange> pendingChanges = new ConcurrentLinkedQueue<>();
+    // Version being changed and its report counters, kept in step with every edit.
+    // Only used while holding writeLock.
+    private RecordStore store;
+    private ReportTally tally;
+
+    /**
+     * Number of lock stripes for record changes; changes to GUIDs on different stripes
+     * are checked at the same time
+     */
+    @Value("${pricing.edit.lock-stripes:64}")
+    private int lockStripes = 64;
+
+    private volatile GuidLocks guidLocks;
+
+    /**
+     * One published version of the data: read-only records with their counters and report
+     */
+    private static final class Snapshot {
+        final RecordStore store;
+        final ReportTally tally;
+        final ValidationReport report;
+        // Load this version descends from
+        final long generation;
+        // Sequence number of the last journaled change this version contains
+        final long sequence;
+
+        Snapshot(RecordStore store, ReportTally tally, long generation, long sequence) {
+            store.freeze();
+            this.store = store;
+            this.tally = tally;
+            this.generation = generation;
+            this.sequence = sequence;
+            this.report = buildReport(store, tally);
+        }
+    }
 
     /**
      * Loads and validates pricing data from a CSV file
      */
     public ValidationReport loadAndValidateData(String filePath) throws IOException {
+        return loadAndValidateData(filePath, null);
+    }
+
+    /**
+     * Loads and validates pricing data from a CSV file, reporting progress and running
+     * validation counts as it goes if progress is given. If progress is cancelled, the load
+     * stops with a CancellationException and the current data stays in place.
+     */
+    public ValidationReport loadAndValidateData(String filePath, LoadProgress progress) throws IOException {
         logger.info("Loading data from file: {}", filePath);
         
         // Validate file format
@@ -43,139 +132,434 @@ public class PricingService {
             throw new IllegalArgumentException("Unsupported file format. Please use CSV format.");
         }
         
-        // Parse CSV file
-        records = csvParser.parseFile(filePath);
-        
-        // Validate all records
-        validator.validateAllRecords(records);
+        // Parse and validate straight into a new store, so the current data stays
+        // in place if the file cannot be read
+        RecordStore loaded = new RecordStore();
+        ReportTally loadedTally = new ReportTally(false);
+        parseAndValidate(filePath, progress, record -> {
+            loaded.add(record);
+            loadedTally.add(record);
+            if (progress != null) {
+                progress.recordValidated(record);
+            }
+        });
         
-        // Generate report
-        currentReport = generateReport();
+        // Generate report and publish the new data, after any change still in progress
+        ValidationReport report = publishLoaded(loaded, loadedTally, filePath);
+        PricingMetrics.countValidation(meterRegistry, report);
         
         logger.info("Data loaded and validated. Total records: {}, Valid: {}, Invalid: {}", 
-                   currentReport.getTotalRecords(), 
-                   currentReport.getValidRecords(), 
-                   currentReport.getInvalidRecords());
+                   report.getTotalRecords(), 
+                   report.getValidRecords(), 
+                   report.getInvalidRecords());
         
-        return currentReport;
+        return report;
     }
 
     /**
-     * Generates a validation report
+     * Replaces the current data with records loaded from the given source. When edits are
+     * journaled, the new data is saved as the snapshot the journal is replayed over before
+     * it is published, as replaying the journal cannot repeat a load.
      */
-    public ValidationReport generateReport() {
-        ValidationReport report = new ValidationReport();
-        
-        report.setTotalRecords(records.size());
-        
-        // Sort records: null GUIDs stay at original position, non-null GUIDs sorted ascending
-        List<PricingRecord> sortedRecords = sortRecordsForReport(new ArrayList<>(records));
-        report.setAllRecords(sortedRecords);
-        
-        // Count valid and invalid records
-        long validCount = records.stream().filter(PricingRecord::isValid).count();
-        report.setValidRecords((int) validCount);
-        report.setInvalidRecords(records.size() - (int) validCount);
-        
-        // Collect invalid records
-        List<PricingRecord> invalidList = records.stream()
-                .filter(r -> !r.isValid())
-                .collect(Collectors.toList());
-        report.setInvalidRecordsList(invalidList);
-        
-        // Count specific error types
-        int missingPrice = 0;
-        int invalidPriceFormat = 0;
-        int negativePrice = 0;
-        int zeroPrice = 0;
-        int missingInstrumentGuid = 0;
-        int missingTradeDate = 0;
-        int missingExchange = 0;
-        int missingProductType = 0;
-        int invalidExchange = 0;
-        int invalidProductType = 0;
-        int duplicates = 0;
-        List<String> duplicateInfo = new ArrayList<>();
+    private ValidationReport publishLoaded(RecordStore loaded, ReportTally loadedTally, String source)
+            throws IOException {
+        writeLock.lock();
+        try {
+            Snapshot next = new Snapshot(loaded, loadedTally, generations.incrementAndGet(), snapshot.sequence + 1);
+            if (!journal.isEnabled()) {
+                snapshot = next;
+                return next.report;
+            }
+            saveLock.lock();
+            try {
+                SnapshotFile.write(loaded, next.sequence, Path.of(journal.getSnapshotPath()));
+                snapshot = next;
+            } finally {
+                saveLock.unlock();
+            }
+            // Only recorded for the audit trail; the data is already safe in the snapshot
+            JournalEntry entry = JournalEntry.load(source, loaded.size());
+            entry.sequence = next.sequence;
+            try {
+                journal.append(List.of(entry));
+            } catch (IOException e) {
+                logger.error("Could not journal the load of {}: {}", source, e.getMessage());
+            }
+            return next.report;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Saves the current data, including any corrections made to it, to a snapshot file
+     * that loadSnapshot can restore without parsing and validating the CSV again.
+     * Returns the number of records saved.
+     */
+    public int saveSnapshot(String filePath) throws IOException {
+        saveLock.lock();
+        try {
+            Snapshot current = snapshot;
+            SnapshotFile.write(current.store, current.sequence, Path.of(filePath));
+            logger.info("Saved {} records to snapshot file: {}", current.store.size(), filePath);
+            return current.store.size();
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the current data with the records of a snapshot file. The records keep the
+     * validation results they were saved with.
+     */
+    public ValidationReport loadSnapshot(String filePath) throws IOException {
+        logger.info("Loading snapshot file: {}", filePath);
+        RecordStore loaded = SnapshotFile.read(Path.of(filePath)).store();
+        ValidationReport report = publishLoaded(loaded, ReportTally.of(loaded), filePath);
         
-        for (PricingRecord record : records) {
-            if (!record.isValid()) {
-                String error = record.getValidationError();
-                if (error != null) {
-                    if (error.contains("Missing price")) {
-                        missingPrice++;
-                    }
-                    if (error.contains("Invalid price format")) {
-                        invalidPriceFormat++;
-                    }
-                    if (error.contains("Negative price")) {
-                        negativePrice++;
-                    }
-                    if (error.contains("Zero price")) {
-                        zeroPrice++;
-                    }
-                    if (error.contains("Missing instrument GUID")) {
-                        missingInstrumentGuid++;
-                    }
-                    if (error.contains("Missing trade date")) {
-                        missingTradeDate++;
-                    }
-                    if (error.contains("Missing exchange")) {
-                        missingExchange++;
-                    }
-                    if (error.contains("Missing product type")) {
-                        missingProductType++;
-                    }
-                    if (error.contains("Invalid exchange")) {
-                        invalidExchange++;
-                    }
-                    if (error.contains("Invalid product type")) {
-                        invalidProductType++;
+        logger.info("Snapshot loaded. Total records: {}, Valid: {}, Invalid: {}",
+                   report.getTotalRecords(),
+                   report.getValidRecords(),
+                   report.getInvalidRecords());
+
+        return report;
+    }
+
+    /**
+     * Restores the data at startup from a snapshot file, which may not exist yet, and then
+     * replays the journaled edits made after it was saved. If the journal cannot be
+     * replayed in full, what was restored is saved as a new snapshot straight away, so the
+     * edits that could not be replayed are never applied to later data.
+     */
+    public ValidationReport restoreSnapshot(String filePath) throws IOException {
+        Path path = Path.of(filePath);
+        try {
+            SnapshotFile.Contents contents = Files.exists(path) ? SnapshotFile.read(path)
+                    : new SnapshotFile.Contents(new RecordStore(), 0);
+            RecordStore restored = contents.store();
+            ReportTally restoredTally = ReportTally.of(restored);
+            long sequence = contents.sequence();
+            long lastSequence = sequence;
+            int replayed = 0;
+            writeLock.lock();
+            try {
+                if (journal.isEnabled()) {
+                    EditJournal.Contents journaled = journal.readAfter(sequence);
+                    lastSequence = Math.max(sequence, journaled.lastSequence());
+                    store = restored;
+                    tally = restoredTally;
+                    for (JournalEntry entry : journaled.entries()) {
+                        // Sequence numbers have no gaps, so a gap means an entry is missing
+                        if (entry.sequence != sequence + 1 || !replay(entry)) {
+                            logger.warn("Stopped replaying the edit journal at sequence {}", entry.sequence);
+                            break;
+                        }
+                        sequence = entry.sequence;
+                        replayed++;
                     }
-                    if (error.contains("Duplicate GUID") || error.contains("Duplicate record")) {
-                        duplicates++;
-                        duplicateInfo.add(record.getInstrumentGuid() + " - " + record.getTradeDate());
+                }
+                Snapshot next = new Snapshot(restored, restoredTally, generations.incrementAndGet(), lastSequence);
+                if (lastSequence == sequence) {
+                    snapshot = next;
+                } else {
+                    saveLock.lock();
+                    try {
+                        SnapshotFile.write(restored, lastSequence, path);
+                        snapshot = next;
+                    } finally {
+                        saveLock.unlock();
                     }
                 }
+            } finally {
+                store = null;
+                tally = null;
+                writeLock.unlock();
+            }
+
+            ValidationReport report = snapshot.report;
+            logger.info("Snapshot restored with {} journaled edits. Total records: {}, Valid: {}, Invalid: {}",
+                       replayed,
+                       report.getTotalRecords(),
+                       report.getValidRecords(),
+                       report.getInvalidRecords());
+
+            return report;
+        } catch (IOException | RuntimeException e) {
+            if (journal.isEnabled()) {
+                // Number new edits after the journaled ones, which no longer apply to anything
+                long lastSequence = journal.readAfter(Long.MAX_VALUE).lastSequence();
+                writeLock.lock();
+                try {
+                    snapshot = new Snapshot(new RecordStore(), new ReportTally(false),
+                            generations.incrementAndGet(), lastSequence);
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Repeats a journaled edit on the store being changed. Returns false if the record it
+     * names is not there, which means the journal does not belong to this data.
+     */
+    private boolean replay(JournalEntry entry) {
+        if (entry.operation == JournalEntry.Operation.CREATE) {
+            applyCreate(entry.changes);
+            return true;
+        }
+        if (entry.operation == JournalEntry.Operation.LOAD || entry.position >= store.size()) {
+            return false;
+        }
+        int slot = store.slotAt(entry.position);
+        if (!Objects.equals(store.getInstrumentGuid(slot), entry.instrumentGuid)) {
+            return false;
+        }
+        switch (entry.operation) {
+            case UPDATE -> applyUpdate(slot, entry.changes);
+            case CORRECT -> applyCorrection(slot, entry.changes, correctedGuid(entry.changes));
+            default -> applyDelete(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Parses, validates and counts a CSV file in a single streaming pass without keeping
+     * the records in memory. Invalid records are spilled to rejectsPath (if given) as CSV
+     * together with their validation error. The currently loaded data is left untouched.
+     * Memory use is bounded by the number of distinct GUIDs needed for duplicate detection,
+     * plus one batch of records being validated.
+     */
+    public ValidationReport validateFileStreaming(String filePath, String rejectsPath) throws IOException {
+        logger.info("Streaming validation of file: {}", filePath);
+        
+        // Validate file format
+        if (!filePath.toLowerCase().endsWith(".csv")) {
+            throw new IllegalArgumentException("Unsupported file format. Please use CSV format.");
+        }
+        
+        ReportTally tally = new ReportTally(false);
+        
+        try (CSVWriter rejects = rejectsPath != null ? new CSVWriter(new BufferedWriter(new FileWriter(rejectsPath))) : null) {
+            if (rejects != null) {
+                rejects.writeNext(REJECTS_HEADER, false);
             }
+            parseAndValidate(filePath, null, record -> {
+                tally.add(record);
+                if (rejects != null && !record.isValid()) {
+                    rejects.writeNext(toRejectRow(record), false);
+                }
+            });
         }
         
-        report.setMissingPriceRecords(missingPrice);
-        report.setInvalidPriceFormatRecords(invalidPriceFormat);
-        report.setNegativePriceRecords(negativePrice);
-        report.setZeroPriceRecords(zeroPrice);
-        report.setMissingInstrumentGuidRecords(missingInstrumentGuid);
-        report.setMissingTradeDateRecords(missingTradeDate);
-        report.setMissingExchangeRecords(missingExchange);
-        report.setMissingProductTypeRecords(missingProductType);
-        report.setInvalidExchangeRecords(invalidExchange);
-        report.setInvalidProductTypeRecords(invalidProductType);
-        report.setDuplicateRecords(duplicates);
-        report.setDuplicateRecordsList(duplicateInfo);
+        ValidationReport report = new ValidationReport();
+        tally.applyTo(report);
+        PricingMetrics.countValidation(meterRegistry, report);
+        
+        logger.info("Streaming validation completed. Total records: {}, Valid: {}, Invalid: {}",
+                   report.getTotalRecords(),
+                   report.getValidRecords(),
+                   report.getInvalidRecords());
         
         return report;
     }
 
     /**
-     * Gets all pricing records
+     * Parses a file and validates its records in batches of VALIDATION_BATCH_SIZE, then
+     * hands each validated record to the consumer in file order. The per-record rules of a
+     * batch can run on several threads (see PricingValidator.validateRecords). Duplicates
+     * are then marked in order against the GUIDs of the batches before.
+     * Each phase is recorded once per file. Parse is the time spent in the parser, not
+     * counting validating and consuming the batches. Validate covers the rules and the
+     * duplicate checks, and duplicates covers the duplicate checks alone.
+     */
+    private void parseAndValidate(String filePath, ParseProgress progress, Consumer<PricingRecord> validated)
+            throws IOException {
+        Set<String> seenGuids = new HashSet<>();
+        List<PricingRecord> batch = new ArrayList<>(VALIDATION_BATCH_SIZE);
+        // Nanoseconds spent applying the rules, checking duplicates and consuming records
+        long[] nanos = new long[3];
+        long start = System.nanoTime();
+        csvParser.parseFile(filePath, record -> {
+            batch.add(record);
+            if (batch.size() == VALIDATION_BATCH_SIZE) {
+                validateBatch(batch, seenGuids, validated, nanos);
+            }
+        }, progress);
+        validateBatch(batch, seenGuids, validated, nanos);
+        long total = System.nanoTime() - start;
+
+        PricingMetrics.recordPhase(meterRegistry, PricingMetrics.PHASE_PARSE, total - nanos[0] - nanos[1] - nanos[2]);
+        PricingMetrics.recordPhase(meterRegistry, PricingMetrics.PHASE_VALIDATE, nanos[0] + nanos[1]);
+        PricingMetrics.recordPhase(meterRegistry, PricingMetrics.PHASE_DUPLICATES, nanos[1]);
+    }
+
+    /**
+     * Validates one batch of parsed records, hands them to the consumer and empties the
+     * batch, adding the time of each step to nanos
+     */
+    private void validateBatch(List<PricingRecord> batch, Set<String> seenGuids,
+            Consumer<PricingRecord> validated, long[] nanos) {
+        long start = System.nanoTime();
+        validator.validateRecords(batch);
+        long rulesApplied = System.nanoTime();
+        validator.identifyDuplicates(batch, seenGuids);
+        long duplicatesMarked = System.nanoTime();
+        batch.forEach(validated);
+        batch.clear();
+        nanos[0] += rulesApplied - start;
+        nanos[1] += duplicatesMarked - rulesApplied;
+        nanos[2] += System.nanoTime() - duplicatesMarked;
+    }
+
+    /**
+     * Formats an invalid record as a row of the rejects file
+     */
+    private String[] toRejectRow(PricingRecord record) {
+        String price = record.getPrice() != null ? String.valueOf(record.getPrice())
+                : record.getOriginalPriceValue() != null ? record.getOriginalPriceValue() : "";
+        return new String[] {
+                record.getInstrumentGuid() != null ? record.getInstrumentGuid() : "",
+                record.getTradeDate() != null ? record.getTradeDate().toString() : "",
+                price,
+                record.getExchange() != null ? record.getExchange() : "",
+                record.getProductType() != null ? record.getProductType() : "",
+                record.getValidationError() != null ? record.getValidationError() : ""
+        };
+    }
+
+    /**
+     * Generates a validation report, recounting every record in one parallel pass over
+     * the store's columns (see ReportTally.of)
+     */
+    public ValidationReport generateReport() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            snapshot = new Snapshot(current.store, ReportTally.of(current.store), current.generation, current.sequence);
+            return snapshot.report;
+        } finally {
+            writeLock.unlock();
+            sample.stop(PricingMetrics.phaseTimer(meterRegistry, PricingMetrics.PHASE_REPORT));
+        }
+    }
+
+    /**
+     * Builds a report from the maintained counters. The invalid records list is a view of
+     * the store; the sorted record list and the duplicate list are built on first use.
+     */
+    private static ValidationReport buildReport(RecordStore store, ReportTally tally) {
+        ValidationReport report = new ValidationReport();
+        tally.applyTo(report);
+        
+        // Sort records: null GUIDs stay at original position, non-null GUIDs sorted ascending
+        report.setAllRecords(new LazyList<>(() -> store.view(store.reportOrder(), store.size())));
+        
+        List<PricingRecord> invalidRecords = store.invalidRecords();
+        report.setInvalidRecordsList(invalidRecords);
+        report.setDuplicateRecordsList(new LazyList<>(() -> {
+            List<String> duplicates = new ArrayList<>();
+            for (PricingRecord record : invalidRecords) {
+                if (record.hasError(ValidationError.DUPLICATE_GUID)) {
+                    duplicates.add(record.getInstrumentGuid() + " - " + record.getTradeDate());
+                }
+            }
+            return duplicates;
+        }));
+        
+        return report;
+    }
+
+    /**
+     * Gets all pricing records (read-only view in original order)
      */
     public List<PricingRecord> getAllRecords() {
-        return new ArrayList<>(records);
+        return snapshot.store.records();
     }
     
     /**
      * Gets all pricing records sorted for display (null GUIDs stay at original position, non-null GUIDs sorted ascending)
      */
     public List<PricingRecord> getAllRecordsSorted() {
-        return sortRecordsForReport(new ArrayList<>(records));
+        RecordStore store = snapshot.store;
+        return store.view(store.reportOrder(), store.size());
+    }
+
+    /**
+     * Gets the valid or invalid records sorted for display, or all of them if valid is null
+     */
+    public List<PricingRecord> getRecordsSorted(Boolean valid) {
+        RecordStore store = snapshot.store;
+        int[] order = valid == null ? store.reportOrder() : store.reportOrder(valid);
+        return store.view(order, valid == null ? store.size() : order.length);
+    }
+
+    /**
+     * Gets one page of the records sorted for display, optionally only the valid or invalid ones.
+     * The cursor names the last record of the previous page, so records added or deleted
+     * elsewhere do not shift later pages; a null cursor starts at the first record. Cursors
+     * also name the load they were given out for, and are rejected once the data has been
+     * loaded again, as the record they name is then a different one.
+     */
+    public RecordPage getRecordsPage(Boolean valid, String cursor, int limit) {
+        Snapshot current = snapshot;
+        RecordStore store = current.store;
+        int invalid = store.invalidCount();
+        int total = valid == null ? store.size() : valid ? store.size() - invalid : invalid;
+        int after = cursor == null ? -1 : decodeCursor(current, cursor);
+        // One record more than asked for tells whether there is a next page
+        int[] slots = store.reportPage(valid, after, (int) Math.min((long) limit + 1, Integer.MAX_VALUE));
+        int count = Math.min(limit, slots.length);
+
+        RecordPage page = new RecordPage();
+        page.setTotalRecords(total);
+        if (count > 0) {
+            page.setRecords(store.view(slots, count));
+            if (slots.length > limit) {
+                page.setNextCursor(Long.toString(current.generation, 36) + "." + Integer.toString(slots[count - 1], 36));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns the slot named by a cursor of the form generation.slot, both in base 36
+     */
+    private static int decodeCursor(Snapshot current, String cursor) {
+        int dot = cursor.indexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        long generation;
+        int slot;
+        try {
+            generation = Long.parseLong(cursor.substring(0, dot), 36);
+            slot = Integer.parseInt(cursor.substring(dot + 1), 36);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (generation != current.generation) {
+            throw new IllegalArgumentException("Cursor " + cursor
+                    + " is from data that has since been reloaded; start again without a cursor");
+        }
+        if (slot < 0 || slot >= current.store.slotCount()) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return slot;
     }
 
     /**
      * Gets a record by instrument GUID
      */
     public Optional<PricingRecord> getRecordByGuid(String instrumentGuid) {
-        return records.stream()
-                .filter(r -> r.getInstrumentGuid() != null && r.getInstrumentGuid().equals(instrumentGuid))
-                .findFirst();
+        return findByGuid(snapshot.store, instrumentGuid);
+    }
+
+    private static Optional<PricingRecord> findByGuid(RecordStore store, String instrumentGuid) {
+        int slot = store.findFirst(instrumentGuid);
+        return slot >= 0 ? Optional.of(store.get(slot)) : Optional.empty();
     }
     
     /**
@@ -183,84 +567,62 @@ public class PricingService {
      * If instrumentGuid is empty string, returns all records with null or empty GUIDs
      */
     public List<PricingRecord> getAllRecordsByGuid(String instrumentGuid) {
+        RecordStore store = snapshot.store;
+        int[] slots;
         if (instrumentGuid == null || instrumentGuid.trim().isEmpty()) {
             // Return records with null or empty GUIDs
-            return records.stream()
-                    .filter(r -> r.getInstrumentGuid() == null || r.getInstrumentGuid().trim().isEmpty())
-                    .collect(Collectors.toList());
+            slots = store.findAllTrimmed("");
         } else {
             // Return records matching the GUID
-            return records.stream()
-                    .filter(r -> r.getInstrumentGuid() != null && r.getInstrumentGuid().equals(instrumentGuid))
-                    .collect(Collectors.toList());
+            slots = store.findAll(instrumentGuid);
         }
+        return new ArrayList<>(store.view(slots, slots.length));
     }
     
     /**
      * Gets a record by index
      */
     public Optional<PricingRecord> getRecordByIndex(int index) {
-        if (index >= 0 && index < records.size()) {
-            return Optional.of(records.get(index));
-        }
-        return Optional.empty();
+        return findByIndex(snapshot.store, index);
+    }
+
+    private static Optional<PricingRecord> findByIndex(RecordStore store, int index) {
+        int slot = slotAt(store, index);
+        return slot >= 0 ? Optional.of(store.get(slot)) : Optional.empty();
     }
     
     /**
      * Gets the index of a record in the list
      */
     public int getRecordIndex(PricingRecord record) {
-        for (int i = 0; i < records.size(); i++) {
-            if (records.get(i) == record) { // reference equality preserves actual index
-                return i;
-            }
-        }
-        return -1;
+        // Records from the store carry their slot and version, so every view of the same
+        // record matches, and records read before a change keep their position from before it
+        return RecordStore.positionOfRecord(record);
     }
-
+    
     /**
      * Updates a pricing record by GUID (primary key)
      * Since GUID is primary key, only one valid record should exist per GUID.
      * This method updates the first occurrence found.
      */
     public boolean updateRecord(String instrumentGuid, PricingRecord updatedRecord) {
-        Optional<PricingRecord> existing = getRecordByGuid(instrumentGuid);
-        
-        if (existing.isPresent()) {
-            // Validate price before updating - must be > 0
-            if (updatedRecord.getPrice() != null && updatedRecord.getPrice() <= 0) {
-                logger.warn("Cannot update record with price <= 0: {}", updatedRecord.getPrice());
-                return false;
-            }
-            
-            PricingRecord record = existing.get();
-            
-            // Only update fields that are provided (non-null)
-            if (updatedRecord.getPrice() != null) {
-            record.setPrice(updatedRecord.getPrice());
-                record.setOriginalPriceValue(null); // Clear invalid price value
-            }
-            if (updatedRecord.getExchange() != null) {
-            record.setExchange(updatedRecord.getExchange());
-            }
-            if (updatedRecord.getProductType() != null) {
-            record.setProductType(updatedRecord.getProductType());
-            }
-            if (updatedRecord.getTradeDate() != null) {
-            record.setTradeDate(updatedRecord.getTradeDate());
+        GuidLocks.Held held = guidLocks().lock(instrumentGuid, null);
+        try {
+            Snapshot base = snapshot;
+            int slot = base.store.findFirst(instrumentGuid);
+            if (slot >= 0) {
+                // Validate price before updating - must be > 0
+                if (updatedRecord.getPrice() != null && updatedRecord.getPrice() <= 0) {
+                    logger.warn("Cannot update record with price <= 0: {}", updatedRecord.getPrice());
+                    return false;
+                }
+                if (edit(base, () -> applyUpdate(slot, updatedRecord))) {
+                    logger.info("Record {} updated successfully", instrumentGuid);
+                    return true;
+                }
             }
-            
-            // Re-validate the updated record
-            validator.validateRecord(record);
-            
-            // Re-check for duplicates
-            validator.identifyDuplicates(records);
-            
-            // Regenerate report
-            currentReport = generateReport();
-            
-            logger.info("Record {} updated successfully", instrumentGuid);
-            return true;
+        } finally {
+            held.unlock();
         }
         
         logger.warn("Record {} not found for update", instrumentGuid);
@@ -271,132 +633,119 @@ public class PricingService {
      * Updates a pricing record by index
      */
     public boolean updateRecordByIndex(int index, PricingRecord updatedRecord) {
-        Optional<PricingRecord> existing = getRecordByIndex(index);
-        
-        if (existing.isPresent()) {
-            // Validate price before updating - must be > 0
-            if (updatedRecord.getPrice() != null && updatedRecord.getPrice() <= 0) {
-                logger.warn("Cannot update record with price <= 0: {}", updatedRecord.getPrice());
-                return false;
+        while (true) {
+            Snapshot found = snapshot;
+            int slot = slotAt(found.store, index);
+            if (slot < 0) {
+                break;
             }
-            
-            PricingRecord record = existing.get();
-            
-            // Only update fields that are provided (non-null)
-            if (updatedRecord.getPrice() != null) {
-                record.setPrice(updatedRecord.getPrice());
-                record.setOriginalPriceValue(null); // Clear invalid price value
-            }
-            if (updatedRecord.getExchange() != null) {
-                record.setExchange(updatedRecord.getExchange());
-            }
-            if (updatedRecord.getProductType() != null) {
-                record.setProductType(updatedRecord.getProductType());
-            }
-            if (updatedRecord.getTradeDate() != null) {
-                record.setTradeDate(updatedRecord.getTradeDate());
+            GuidLocks.Held held = guidLocks().lock(found.store.getInstrumentGuid(slot), null);
+            try {
+                Snapshot base = snapshot;
+                if (!sameRecord(found, base, slot)) {
+                    // The record changed GUID or was deleted before its stripe was locked
+                    continue;
+                }
+                // Validate price before updating - must be > 0
+                if (updatedRecord.getPrice() != null && updatedRecord.getPrice() <= 0) {
+                    logger.warn("Cannot update record with price <= 0: {}", updatedRecord.getPrice());
+                    return false;
+                }
+                if (edit(base, () -> applyUpdate(slot, updatedRecord))) {
+                    logger.info("Record at index {} updated successfully", index);
+                    return true;
+                }
+                break;
+            } finally {
+                held.unlock();
             }
-            
-            // Re-validate the updated record
-            validator.validateRecord(record);
-            
-            // Re-check for duplicates
-            validator.identifyDuplicates(records);
-            
-            // Regenerate report
-            currentReport = generateReport();
-            
-            logger.info("Record at index {} updated successfully", index);
-            return true;
         }
         
         logger.warn("Record at index {} not found for update", index);
         return false;
     }
 
+    /**
+     * Applies an update to the record in the given slot of the store being changed
+     */
+    private JournalEntry applyUpdate(int slot, PricingRecord updatedRecord) {
+        PricingRecord record = store.get(slot);
+        JournalEntry entry = JournalEntry.update(store.positionOf(slot), record.getInstrumentGuid(), updatedRecord);
+        int[] affected = affectedSlots(slot, record.getInstrumentGuid(), null);
+        uncount(affected);
+        
+        // Only update fields that are provided (non-null)
+        if (updatedRecord.getPrice() != null) {
+            record.setPrice(updatedRecord.getPrice());
+            record.setOriginalPriceValue(null); // Clear invalid price value
+        }
+        if (updatedRecord.getExchange() != null) {
+            record.setExchange(updatedRecord.getExchange());
+        }
+        if (updatedRecord.getProductType() != null) {
+            record.setProductType(updatedRecord.getProductType());
+        }
+        if (updatedRecord.getTradeDate() != null) {
+            record.setTradeDate(updatedRecord.getTradeDate());
+        }
+        
+        // Re-validate the updated record
+        validator.validateRecord(record);
+        
+        // Re-check for duplicates of this GUID
+        remarkDuplicates(record.getInstrumentGuid());
+        
+        // Update the report with the changed records
+        count(affected);
+        return entry;
+    }
+
     /**
      * Deletes a pricing record by GUID (primary key)
      * Since GUID is primary key, only one valid record should exist per GUID.
      * This method deletes the first occurrence found.
      */
     public boolean deleteRecord(String instrumentGuid) {
-        // Find first record with this GUID (primary key should be unique)
-        for (int i = 0; i < records.size(); i++) {
-            PricingRecord record = records.get(i);
-            if (record.getInstrumentGuid() != null && record.getInstrumentGuid().equals(instrumentGuid)) {
-                records.remove(i);
-                // Re-validate all records to clear any duplicate flags
-                validator.validateAllRecords(records);
-                // Regenerate report
-                currentReport = generateReport();
+        GuidLocks.Held held = guidLocks().lock(instrumentGuid, null);
+        try {
+            // Find first record with this GUID (primary key should be unique)
+            Snapshot base = snapshot;
+            int slot = base.store.findFirst(instrumentGuid);
+            if (slot >= 0 && edit(base, () -> applyDelete(slot))) {
                 logger.info("Record {} (primary key) deleted successfully", instrumentGuid);
                 return true;
             }
+        } finally {
+            held.unlock();
         }
         
         logger.warn("Record {} (primary key) not found for deletion", instrumentGuid);
         return false;
     }
 
-    /**
-     * Corrects an invalid record by GUID
-     */
     /**
      * Corrects a pricing record by GUID (primary key)
      * Since GUID is primary key, only one valid record should exist per GUID.
      * This method corrects the first occurrence found.
      */
     public boolean correctRecord(String instrumentGuid, PricingRecord correction) {
-        Optional<PricingRecord> existing = getRecordByGuid(instrumentGuid);
-        
-        if (existing.isPresent()) {
-            // Validate price before correcting - must be > 0
-            if (correction.getPrice() != null && correction.getPrice() <= 0) {
-                logger.warn("Cannot correct record with price <= 0: {}", correction.getPrice());
-                return false;
-            }
-            
-            PricingRecord record = existing.get();
-            String oldGuid = record.getInstrumentGuid();
-            
-            // Apply corrections
-            if (correction.getInstrumentGuid() != null && !correction.getInstrumentGuid().trim().isEmpty()) {
-                String newGuid = correction.getInstrumentGuid().trim();
-                // Check if new GUID already exists (excluding current record)
-                boolean guidExists = records.stream()
-                    .anyMatch(r -> r != record && 
-                                  r.getInstrumentGuid() != null && 
-                                  r.getInstrumentGuid().equals(newGuid));
-                if (guidExists) {
-                    logger.warn("Cannot assign GUID {} - already exists in another record", newGuid);
+        String newGuid = correctedGuid(correction);
+        // Holding the stripe of the new GUID too keeps another record from taking it meanwhile
+        GuidLocks.Held held = guidLocks().lock(instrumentGuid, newGuid);
+        try {
+            Snapshot base = snapshot;
+            int slot = base.store.findFirst(instrumentGuid);
+            if (slot >= 0) {
+                if (!canCorrect(base.store, slot, correction, newGuid)) {
                     return false;
                 }
-                record.setInstrumentGuid(newGuid);
-                logger.info("GUID corrected: {} -> {}", oldGuid, newGuid);
-            }
-            if (correction.getPrice() != null) {
-                record.setPrice(correction.getPrice());
-                record.setOriginalPriceValue(null); // Clear invalid price value
-            }
-            if (correction.getExchange() != null) {
-                record.setExchange(correction.getExchange());
-            }
-            if (correction.getProductType() != null) {
-                record.setProductType(correction.getProductType());
-            }
-            if (correction.getTradeDate() != null) {
-                record.setTradeDate(correction.getTradeDate());
+                if (edit(base, () -> applyCorrection(slot, correction, newGuid))) {
+                    logger.info("Record {} corrected successfully", instrumentGuid);
+                    return true;
+                }
             }
-            
-            // Re-validate
-            validator.validateRecord(record);
-            validator.identifyDuplicates(records);
-            
-            // Regenerate report
-            currentReport = generateReport();
-            
-            logger.info("Record {} corrected successfully", instrumentGuid);
-            return true;
+        } finally {
+            held.unlock();
         }
         
         logger.warn("Record {} not found for correction", instrumentGuid);
@@ -407,194 +756,453 @@ public class PricingService {
      * Corrects an invalid record by index
      */
     public boolean correctRecordByIndex(int index, PricingRecord correction) {
-        Optional<PricingRecord> existing = getRecordByIndex(index);
-        
-        if (existing.isPresent()) {
-            // Validate price before correcting - must be > 0
-            if (correction.getPrice() != null && correction.getPrice() <= 0) {
-                logger.warn("Cannot correct record with price <= 0: {}", correction.getPrice());
-                return false;
+        String newGuid = correctedGuid(correction);
+        while (true) {
+            Snapshot found = snapshot;
+            int slot = slotAt(found.store, index);
+            if (slot < 0) {
+                break;
             }
-            
-            PricingRecord record = existing.get();
-            String oldGuid = record.getInstrumentGuid();
-            
-            // Apply corrections
-            if (correction.getInstrumentGuid() != null && !correction.getInstrumentGuid().trim().isEmpty()) {
-                String newGuid = correction.getInstrumentGuid().trim();
-                // Check if new GUID already exists (excluding current record)
-                boolean guidExists = records.stream()
-                    .anyMatch(r -> r != record && 
-                                  r.getInstrumentGuid() != null && 
-                                  r.getInstrumentGuid().equals(newGuid));
-                if (guidExists) {
-                    logger.warn("Cannot assign GUID {} - already exists in another record", newGuid);
+            GuidLocks.Held held = guidLocks().lock(found.store.getInstrumentGuid(slot), newGuid);
+            try {
+                Snapshot base = snapshot;
+                if (!sameRecord(found, base, slot)) {
+                    // The record changed GUID or was deleted before its stripe was locked
+                    continue;
+                }
+                if (!canCorrect(base.store, slot, correction, newGuid)) {
                     return false;
                 }
-                record.setInstrumentGuid(newGuid);
-                logger.info("GUID corrected: {} -> {}", oldGuid != null ? oldGuid : "(empty)", newGuid);
-            }
-            if (correction.getPrice() != null) {
-                record.setPrice(correction.getPrice());
-                record.setOriginalPriceValue(null); // Clear invalid price value
-            }
-            if (correction.getExchange() != null) {
-                record.setExchange(correction.getExchange());
-            }
-            if (correction.getProductType() != null) {
-                record.setProductType(correction.getProductType());
-            }
-            if (correction.getTradeDate() != null) {
-                record.setTradeDate(correction.getTradeDate());
+                if (edit(base, () -> applyCorrection(slot, correction, newGuid))) {
+                    logger.info("Record at index {} corrected successfully", index);
+                    return true;
+                }
+                break;
+            } finally {
+                held.unlock();
             }
-            
-            // Re-validate
-            validator.validateRecord(record);
-            validator.identifyDuplicates(records);
-            
-            // Regenerate report
-            currentReport = generateReport();
-            
-            logger.info("Record at index {} corrected successfully", index);
-            return true;
         }
         
         logger.warn("Record at index {} not found for correction", index);
         return false;
     }
+
+    /**
+     * Returns the trimmed GUID a correction assigns, or null if it keeps the current one
+     */
+    private static String correctedGuid(PricingRecord correction) {
+        String guid = correction.getInstrumentGuid();
+        return guid != null && !guid.trim().isEmpty() ? guid.trim() : null;
+    }
+
+    /**
+     * Checks a correction of the record in the given slot before it is applied
+     */
+    private boolean canCorrect(RecordStore store, int slot, PricingRecord correction, String newGuid) {
+        // Validate price before correcting - must be > 0
+        if (correction.getPrice() != null && correction.getPrice() <= 0) {
+            logger.warn("Cannot correct record with price <= 0: {}", correction.getPrice());
+            return false;
+        }
+        // Check if new GUID already exists (excluding current record)
+        if (newGuid != null && store.guidExistsElsewhere(newGuid, slot)) {
+            logger.warn("Cannot assign GUID {} - already exists in another record", newGuid);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Applies a correction to the record in the given slot of the store being changed
+     */
+    private JournalEntry applyCorrection(int slot, PricingRecord correction, String newGuid) {
+        PricingRecord record = store.get(slot);
+        String oldGuid = record.getInstrumentGuid();
+        JournalEntry entry = JournalEntry.correct(store.positionOf(slot), oldGuid, correction, newGuid);
+        int[] affected = affectedSlots(slot, oldGuid, newGuid);
+        uncount(affected);
+        
+        // Apply corrections
+        if (newGuid != null) {
+            record.setInstrumentGuid(newGuid);
+            logger.info("GUID corrected: {} -> {}", oldGuid != null ? oldGuid : "(empty)", newGuid);
+        }
+        if (correction.getPrice() != null) {
+            record.setPrice(correction.getPrice());
+            record.setOriginalPriceValue(null); // Clear invalid price value
+        }
+        if (correction.getExchange() != null) {
+            record.setExchange(correction.getExchange());
+        }
+        if (correction.getProductType() != null) {
+            record.setProductType(correction.getProductType());
+        }
+        if (correction.getTradeDate() != null) {
+            record.setTradeDate(correction.getTradeDate());
+        }
+        
+        // Re-validate
+        validator.validateRecord(record);
+        if (!sameTrimmedGuid(oldGuid, record.getInstrumentGuid())) {
+            // The record left its old GUID, which may now have a new first occurrence
+            revalidateGuid(oldGuid);
+        }
+        remarkDuplicates(record.getInstrumentGuid());
+        
+        // Update the report with the changed records
+        count(affected);
+        return entry;
+    }
     
     /**
      * Deletes a record by index
      */
     public boolean deleteRecordByIndex(int index) {
-        if (index >= 0 && index < records.size()) {
-            records.remove(index);
-            // Re-validate all records to clear any duplicate flags
-            validator.validateAllRecords(records);
-            
-            // Regenerate report
-            currentReport = generateReport();
-            logger.info("Record at index {} deleted successfully", index);
-            return true;
+        while (true) {
+            Snapshot found = snapshot;
+            int slot = slotAt(found.store, index);
+            if (slot < 0) {
+                break;
+            }
+            GuidLocks.Held held = guidLocks().lock(found.store.getInstrumentGuid(slot), null);
+            try {
+                Snapshot base = snapshot;
+                if (!sameRecord(found, base, slot)) {
+                    // The record changed GUID or was deleted before its stripe was locked
+                    continue;
+                }
+                if (edit(base, () -> applyDelete(slot))) {
+                    logger.info("Record at index {} deleted successfully", index);
+                    return true;
+                }
+                break;
+            } finally {
+                held.unlock();
+            }
         }
         
         logger.warn("Record at index {} not found for deletion", index);
         return false;
     }
 
+    /**
+     * Deletes the record in the given slot of the store being changed
+     */
+    private JournalEntry applyDelete(int slot) {
+        String guid = store.getInstrumentGuid(slot);
+        JournalEntry entry = JournalEntry.delete(store.positionOf(slot), guid);
+        int[] affected = affectedSlots(slot, guid, null);
+        uncount(affected);
+        store.delete(slot);
+        // Re-validate the remaining records with this GUID to clear any duplicate flags
+        revalidateGuid(guid);
+        
+        // Update the report with the changed records
+        count(affected);
+        return entry;
+    }
+
     /**
      * Creates a new pricing record
      */
     public boolean createRecord(PricingRecord newRecord) {
+        // Validate price before creating - must be > 0
+        if (newRecord.getPrice() != null && newRecord.getPrice() <= 0) {
+            logger.warn("Cannot create record with price <= 0: {}", newRecord.getPrice());
+            return false;
+        }
+        
+        // Holding the stripe of the new GUID keeps a correction from checking that GUID is
+        // free while the record is being added with it
+        GuidLocks.Held held = guidLocks().lock(newRecord.getInstrumentGuid(), null);
         try {
-            // Validate price before creating - must be > 0
-            if (newRecord.getPrice() != null && newRecord.getPrice() <= 0) {
-                logger.warn("Cannot create record with price <= 0: {}", newRecord.getPrice());
-                return false;
-            }
-            
-            // Add the record to the list
-            records.add(newRecord);
-            
-            // Validate the new record
-            validator.validateRecord(newRecord);
-            
-            // Check for duplicates (this will mark duplicates as invalid)
-            validator.identifyDuplicates(records);
-            
-            // Regenerate report
-            currentReport = generateReport();
+            // Nothing was checked against the current data, so a reload meanwhile only means
+            // adding the record to the new data instead
+            boolean created;
+            do {
+                created = edit(snapshot, () -> applyCreate(newRecord));
+            } while (!created);
             
             logger.info("Record {} created successfully", newRecord.getInstrumentGuid());
             return true;
         } catch (Exception e) {
             logger.error("Error creating record: {}", e.getMessage());
             return false;
+        } finally {
+            held.unlock();
+        }
+    }
+
+    /**
+     * Adds a new record to the store being changed
+     */
+    private JournalEntry applyCreate(PricingRecord newRecord) {
+        JournalEntry entry = JournalEntry.create(newRecord);
+        // Records with the same GUID may change too, so take them out of the report first
+        int[] affected = affectedSlots(-1, newRecord.getInstrumentGuid(), null);
+        uncount(affected);
+        
+        // Add the record to the store
+        int slot = store.add(newRecord);
+        
+        // Validate the new record
+        validator.validateRecord(store.get(slot));
+        
+        // Check for duplicates (this will mark duplicates as invalid)
+        remarkDuplicates(newRecord.getInstrumentGuid());
+        
+        // Update the report with the changed records, now including the new one
+        count(affectedSlots(slot, newRecord.getInstrumentGuid(), null));
+        return entry;
+    }
+
+    /**
+     * Returns the slot of the record at the given position, or -1 if there is none
+     */
+    private static int slotAt(RecordStore store, int index) {
+        return index >= 0 && index < store.size() ? store.slotAt(index) : -1;
+    }
+
+    /**
+     * Checks that a record found in one version still has the same trimmed GUID in a later
+     * one, so the stripe locked for it still covers it
+     */
+    private static boolean sameRecord(Snapshot found, Snapshot current, int slot) {
+        return found == current
+                || (found.generation == current.generation && current.store.isLive(slot)
+                    && sameTrimmedGuid(found.store.getInstrumentGuid(slot), current.store.getInstrumentGuid(slot)));
+    }
+
+    /**
+     * Marks every record with the given trimmed GUID except the first one as a duplicate.
+     * Records with other GUIDs cannot be affected by a change to this GUID, so only its
+     * bucket in the GUID index is checked.
+     */
+    private void remarkDuplicates(String instrumentGuid) {
+        if (instrumentGuid == null || instrumentGuid.trim().isEmpty()) {
+            return;
+        }
+        int[] slots = store.findAllTrimmed(instrumentGuid);
+        validator.identifyDuplicates(store.view(slots, slots.length), new HashSet<>());
+    }
+
+    /**
+     * Validates the records with the given trimmed GUID again from scratch, which clears
+     * duplicate flags that no longer apply, and then marks the duplicates among them
+     */
+    private void revalidateGuid(String instrumentGuid) {
+        if (instrumentGuid == null || instrumentGuid.trim().isEmpty()) {
+            return;
+        }
+        int[] slots = store.findAllTrimmed(instrumentGuid);
+        List<PricingRecord> records = store.view(slots, slots.length);
+        for (PricingRecord record : records) {
+            validator.validateRecord(record);
+        }
+        validator.identifyDuplicates(records, new HashSet<>());
+    }
+
+    /**
+     * Returns the slots an edit of the given slot can change: the slot itself and every
+     * record sharing one of the given trimmed GUIDs. Null or blank GUIDs add nothing because
+     * duplicates are not tracked for them. Use -1 for a record that is not in the store yet.
+     */
+    private int[] affectedSlots(int slot, String guid, String otherGuid) {
+        int[] sameGuid = isBlank(guid) ? new int[0] : store.findAllTrimmed(guid);
+        int[] sameOtherGuid = isBlank(otherGuid) ? new int[0] : store.findAllTrimmed(otherGuid);
+        int[] slots = new int[sameGuid.length + sameOtherGuid.length + 1];
+        System.arraycopy(sameGuid, 0, slots, 0, sameGuid.length);
+        System.arraycopy(sameOtherGuid, 0, slots, sameGuid.length, sameOtherGuid.length);
+        slots[slots.length - 1] = slot;
+        return Arrays.stream(slots).filter(s -> s >= 0).sorted().distinct().toArray();
+    }
+
+    /**
+     * Takes the records in the given slots out of the report counters
+     */
+    private void uncount(int[] slots) {
+        for (int slot : slots) {
+            if (store.isLive(slot)) {
+                tally.remove(store.get(slot));
+            }
         }
     }
 
+    /**
+     * Adds the records in the given slots to the report counters, skipping deleted ones
+     */
+    private void count(int[] slots) {
+        for (int slot : slots) {
+            if (store.isLive(slot)) {
+                tally.add(store.get(slot));
+            }
+        }
+    }
+
+    private static boolean isBlank(String guid) {
+        return guid == null || guid.trim().isEmpty();
+    }
+
+    private static boolean sameTrimmedGuid(String a, String b) {
+        String trimmedA = a == null ? "" : a.trim();
+        String trimmedB = b == null ? "" : b.trim();
+        return trimmedA.equals(trimmedB);
+    }
+
     /**
      * Gets the current validation report
      */
     public ValidationReport getCurrentReport() {
-        if (currentReport == null) {
-            currentReport = generateReport();
+        return snapshot.report;
+    }
+
+    /**
+     * Identifies a version of the data: each load starts a new generation and each edit
+     * takes the next sequence number, while a regenerated report keeps both
+     */
+    record DataVersion(long generation, long sequence) {
+    }
+
+    /**
+     * Returns the version of the current data
+     */
+    DataVersion getDataVersion() {
+        Snapshot current = snapshot;
+        return new DataVersion(current.generation, current.sequence);
+    }
+
+    /**
+     * Returns the lock stripes for record changes, creating them on first use
+     */
+    private GuidLocks guidLocks() {
+        GuidLocks locks = guidLocks;
+        if (locks == null) {
+            synchronized (this) {
+                locks = guidLocks;
+                if (locks == null) {
+                    locks = new GuidLocks(lockStripes);
+                    guidLocks = locks;
+                }
+            }
         }
-        return currentReport;
+        return locks;
     }
-    
+
     /**
-     * Sorts records for report: null GUIDs stay at original position, non-null GUIDs sorted ascending
-     */
-    private List<PricingRecord> sortRecordsForReport(List<PricingRecord> recordsToSort) {
-        // Separate records with null GUIDs and non-null GUIDs
-        List<PricingRecord> nullGuidRecords = new ArrayList<>();
-        List<PricingRecord> nonNullGuidRecords = new ArrayList<>();
-        List<Integer> nullGuidOriginalIndices = new ArrayList<>();
-        
-        for (int i = 0; i < recordsToSort.size(); i++) {
-            PricingRecord record = recordsToSort.get(i);
-            String guid = record.getInstrumentGuid();
-            if (guid == null || guid.trim().isEmpty()) {
-                nullGuidRecords.add(record);
-                nullGuidOriginalIndices.add(i);
-            } else {
-                nonNullGuidRecords.add(record);
+     * A change queued for the next commit. The fields after change are only accessed while
+     * holding writeLock.
+     */
+    private static final class PendingChange {
+        final long generation;
+        final Supplier<JournalEntry> change;
+        boolean done;
+        boolean applied;
+        RuntimeException failure;
+
+        PendingChange(long generation, Supplier<JournalEntry> change) {
+            this.generation = generation;
+            this.change = change;
+        }
+    }
+
+    /**
+     * Applies a change to the current data and publishes it, unless the data was reloaded
+     * since the change was checked against base. Changes queued by other callers meanwhile
+     * are applied to the same fork and published together, so the fork and the new report
+     * are paid for once per batch rather than once per change.
+     * When edits are journaled, the batch is written to the journal in one go before it is
+     * published, so a change is only reported as applied once it is on disk.
+     * Returns whether the change was applied; a change that throws leaves the data as it was.
+     */
+    private boolean edit(Snapshot base, Supplier<JournalEntry> change) {
+        PendingChange pending = new PendingChange(base.generation, change);
+        pendingChanges.add(pending);
+        writeLock.lock();
+        try {
+            if (!pending.done) {
+                commitPending();
             }
+        } finally {
+            writeLock.unlock();
         }
-        
-        // Sort non-null GUID records in ascending order
-        // Numeric GUIDs sorted numerically, non-numeric GUIDs sorted alphabetically after numeric ones
-        nonNullGuidRecords.sort((r1, r2) -> {
-            String guid1 = r1.getInstrumentGuid();
-            String guid2 = r2.getInstrumentGuid();
-            
-            // Try to parse both as integers for numeric comparison
-            try {
-                int num1 = Integer.parseInt(guid1);
-                int num2 = Integer.parseInt(guid2);
-                return Integer.compare(num1, num2);
-            } catch (NumberFormatException e1) {
-                // At least one is not numeric
+        if (pending.failure != null) {
+            throw pending.failure;
+        }
+        return pending.applied;
+    }
+
+    private void commitPending() {
+        List<PendingChange> batch = new ArrayList<>();
+        for (PendingChange pending; (pending = pendingChanges.poll()) != null; ) {
+            batch.add(pending);
+        }
+        try {
+            if (!applyAll(batch)) {
+                // Drop the batch and apply its changes one by one, so only the failing one fails
+                for (PendingChange pending : batch) {
+                    applyAll(List.of(pending));
+                }
+            }
+        } finally {
+            for (PendingChange pending : batch) {
+                pending.done = true;
+            }
+        }
+    }
+
+    /**
+     * Applies the changes to a fork of the current store and publishes it. Returns false,
+     * publishing nothing, if one change of several throws; a single change keeps its failure.
+     */
+    private boolean applyAll(List<PendingChange> batch) {
+        Snapshot current = snapshot;
+        store = current.store.fork();
+        tally = current.tally.copy();
+        try {
+            List<PendingChange> applied = new ArrayList<>(batch.size());
+            List<JournalEntry> entries = new ArrayList<>(batch.size());
+            for (PendingChange pending : batch) {
+                if (pending.generation != current.generation) {
+                    // Checked against data that has been reloaded since
+                    continue;
+                }
                 try {
-                    // If guid1 is numeric but guid2 is not, guid1 comes first
-                    Integer.parseInt(guid1);
-                    return -1;
-                } catch (NumberFormatException e2) {
-                    try {
-                        // If guid2 is numeric but guid1 is not, guid2 comes first
-                        Integer.parseInt(guid2);
-                        return 1;
-                    } catch (NumberFormatException e3) {
-                        // Both are non-numeric, use string comparison
-                        return guid1.compareTo(guid2);
+                    entries.add(pending.change.get());
+                } catch (RuntimeException e) {
+                    if (batch.size() > 1) {
+                        return false;
                     }
+                    pending.failure = e;
+                    return true;
                 }
+                applied.add(pending);
             }
-        });
-        
-        // Reconstruct list: place null GUIDs at their original positions, fill rest with sorted non-null GUIDs
-        List<PricingRecord> sortedList = new ArrayList<>(recordsToSort.size());
-        for (int i = 0; i < recordsToSort.size(); i++) {
-            sortedList.add(null); // Initialize with null
-        }
-        
-        // Place null GUID records at their original positions
-        for (int i = 0; i < nullGuidRecords.size(); i++) {
-            int originalIndex = nullGuidOriginalIndices.get(i);
-            sortedList.set(originalIndex, nullGuidRecords.get(i));
-        }
-        
-        // Fill remaining positions with sorted non-null GUID records
-        int nonNullIndex = 0;
-        for (int i = 0; i < sortedList.size(); i++) {
-            if (sortedList.get(i) == null) {
-                sortedList.set(i, nonNullGuidRecords.get(nonNullIndex));
-                nonNullIndex++;
+            if (!applied.isEmpty()) {
+                long sequence = current.sequence;
+                for (JournalEntry entry : entries) {
+                    entry.sequence = ++sequence;
+                }
+                if (journal.isEnabled()) {
+                    try {
+                        journal.append(entries);
+                    } catch (IOException e) {
+                        logger.error("Could not write edit journal: {}", e.getMessage());
+                        UncheckedIOException failure = new UncheckedIOException("Could not write edit journal", e);
+                        for (PendingChange pending : applied) {
+                            pending.failure = failure;
+                        }
+                        return true;
+                    }
+                }
+                snapshot = new Snapshot(store, tally, current.generation, sequence);
+                for (PendingChange pending : applied) {
+                    pending.applied = true;
+                }
             }
+            return true;
+        } finally {
+            store = null;
+            tally = null;
         }
-        
-        return sortedList;
     }
 }
-
@@ -0,0 +1,194 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.store.RecordStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Running per-category counters for a validation report.
+ * Records are added one at a time, so the counts can be built while streaming.
+ * A record can also be removed again, which lets the counters follow edits: remove the
+ * record before changing it and add it back afterwards.
+ */
+class ReportTally {
+
+    private int total;
+    private int valid;
+    private int missingPrice;
+    private int invalidPriceFormat;
+    private int negativePrice;
+    private int zeroPrice;
+    private int missingInstrumentGuid;
+    private int missingTradeDate;
+    private int missingExchange;
+    private int missingProductType;
+    private int invalidExchange;
+    private int invalidProductType;
+    private int duplicates;
+    private final List<String> duplicateInfo = new ArrayList<>();
+    private final boolean collectDuplicateInfo;
+
+    ReportTally(boolean collectDuplicateInfo) {
+        this.collectDuplicateInfo = collectDuplicateInfo;
+    }
+
+    /**
+     * Counts all records of a store that is not being changed, with the same result as
+     * adding them one by one. The store's chunks are counted on the common fork/join pool,
+     * each thread into its own block of per-error counts straight from the columns, and
+     * the blocks are then added together. The valid count comes from the store's own
+     * count of invalid records.
+     */
+    static ReportTally of(RecordStore store) {
+        int[] counts = IntStream.range(0, store.chunkCount()).parallel()
+                .collect(() -> new int[ValidationError.values().length],
+                        (block, chunk) -> store.countErrors(chunk, block),
+                        (block, other) -> {
+                            for (int i = 0; i < block.length; i++) {
+                                block[i] += other[i];
+                            }
+                        });
+
+        ReportTally tally = new ReportTally(false);
+        tally.total = store.size();
+        tally.valid = store.size() - store.invalidCount();
+        tally.missingPrice = counts[ValidationError.MISSING_PRICE.ordinal()];
+        tally.invalidPriceFormat = counts[ValidationError.INVALID_PRICE_FORMAT.ordinal()];
+        tally.negativePrice = counts[ValidationError.NEGATIVE_PRICE.ordinal()];
+        tally.zeroPrice = counts[ValidationError.ZERO_PRICE.ordinal()];
+        tally.missingInstrumentGuid = counts[ValidationError.MISSING_INSTRUMENT_GUID.ordinal()];
+        tally.missingTradeDate = counts[ValidationError.MISSING_TRADE_DATE.ordinal()];
+        tally.missingExchange = counts[ValidationError.MISSING_EXCHANGE.ordinal()];
+        tally.missingProductType = counts[ValidationError.MISSING_PRODUCT_TYPE.ordinal()];
+        tally.invalidExchange = counts[ValidationError.INVALID_EXCHANGE.ordinal()];
+        tally.invalidProductType = counts[ValidationError.INVALID_PRODUCT_TYPE.ordinal()];
+        tally.duplicates = counts[ValidationError.DUPLICATE_GUID.ordinal()];
+        return tally;
+    }
+
+    /**
+     * Returns a copy of the counters, which can then change without affecting these
+     */
+    ReportTally copy() {
+        ReportTally copy = new ReportTally(collectDuplicateInfo);
+        copy.addAll(this);
+        return copy;
+    }
+
+    /**
+     * Adds a validated record to the counters
+     */
+    void add(PricingRecord record) {
+        count(record, 1);
+    }
+
+    /**
+     * Removes a record that was added before. Duplicate info collected for it stays in the list.
+     */
+    void remove(PricingRecord record) {
+        count(record, -1);
+    }
+
+    private void count(PricingRecord record, int delta) {
+        total += delta;
+        if (record.isValid()) {
+            valid += delta;
+            return;
+        }
+
+        int errors = record.getErrorMask();
+        if ((errors & ValidationError.MISSING_PRICE.bit()) != 0) {
+            missingPrice += delta;
+        }
+        if ((errors & ValidationError.INVALID_PRICE_FORMAT.bit()) != 0) {
+            invalidPriceFormat += delta;
+        }
+        if ((errors & ValidationError.NEGATIVE_PRICE.bit()) != 0) {
+            negativePrice += delta;
+        }
+        if ((errors & ValidationError.ZERO_PRICE.bit()) != 0) {
+            zeroPrice += delta;
+        }
+        if ((errors & ValidationError.MISSING_INSTRUMENT_GUID.bit()) != 0) {
+            missingInstrumentGuid += delta;
+        }
+        if ((errors & ValidationError.MISSING_TRADE_DATE.bit()) != 0) {
+            missingTradeDate += delta;
+        }
+        if ((errors & ValidationError.MISSING_EXCHANGE.bit()) != 0) {
+            missingExchange += delta;
+        }
+        if ((errors & ValidationError.MISSING_PRODUCT_TYPE.bit()) != 0) {
+            missingProductType += delta;
+        }
+        if ((errors & ValidationError.INVALID_EXCHANGE.bit()) != 0) {
+            invalidExchange += delta;
+        }
+        if ((errors & ValidationError.INVALID_PRODUCT_TYPE.bit()) != 0) {
+            invalidProductType += delta;
+        }
+        if ((errors & ValidationError.DUPLICATE_GUID.bit()) != 0) {
+            duplicates += delta;
+            if (collectDuplicateInfo && delta > 0) {
+                duplicateInfo.add(record.getInstrumentGuid() + " - " + record.getTradeDate());
+            }
+        }
+    }
+
+    /**
+     * Marks a record that was added before as a duplicate as well, without needing the
+     * record itself: it is now invalid, with the same errors plus DUPLICATE_GUID
+     */
+    void addDuplicate(boolean wasValid) {
+        if (wasValid) {
+            valid--;
+        }
+        duplicates++;
+    }
+
+    /**
+     * Adds the counters of another tally to this one
+     */
+    void addAll(ReportTally other) {
+        total += other.total;
+        valid += other.valid;
+        missingPrice += other.missingPrice;
+        invalidPriceFormat += other.invalidPriceFormat;
+        negativePrice += other.negativePrice;
+        zeroPrice += other.zeroPrice;
+        missingInstrumentGuid += other.missingInstrumentGuid;
+        missingTradeDate += other.missingTradeDate;
+        missingExchange += other.missingExchange;
+        missingProductType += other.missingProductType;
+        invalidExchange += other.invalidExchange;
+        invalidProductType += other.invalidProductType;
+        duplicates += other.duplicates;
+        duplicateInfo.addAll(other.duplicateInfo);
+    }
+
+    /**
+     * Copies the counters into the report
+     */
+    void applyTo(ValidationReport report) {
+        report.setTotalRecords(total);
+        report.setValidRecords(valid);
+        report.setInvalidRecords(total - valid);
+        report.setMissingPriceRecords(missingPrice);
+        report.setInvalidPriceFormatRecords(invalidPriceFormat);
+        report.setNegativePriceRecords(negativePrice);
+        report.setZeroPriceRecords(zeroPrice);
+        report.setMissingInstrumentGuidRecords(missingInstrumentGuid);
+        report.setMissingTradeDateRecords(missingTradeDate);
+        report.setMissingExchangeRecords(missingExchange);
+        report.setMissingProductTypeRecords(missingProductType);
+        report.setInvalidExchangeRecords(invalidExchange);
+        report.setInvalidProductTypeRecords(invalidProductType);
+        report.setDuplicateRecords(duplicates);
+        report.setDuplicateRecordsList(duplicateInfo);
+    }
+}
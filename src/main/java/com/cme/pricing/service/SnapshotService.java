@@ -0,0 +1,148 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.ValidationReport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the loaded data in a snapshot file (see SnapshotFile) so it survives a restart.
+ * When a snapshot path is configured, the file is loaded at startup instead of the CSV
+ * having to be loaded and validated again, and the data is saved back every
+ * interval-seconds and at shutdown whenever it has changed. Snapshots can also be saved
+ * and loaded on request. Edits made since the last save are replayed from the edit
+ * journal (see EditJournal), if one is configured.
+ */
+@Service
+public class SnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    @Autowired
+    private PricingService pricingService;
+
+    /**
+     * Snapshot file restored at startup and saved to afterwards; empty turns this off
+     */
+    @Value("${pricing.snapshot.path:}")
+    private String snapshotPath = "";
+
+    /**
+     * Seconds between saves of changed data; 0 only saves on request and at shutdown
+     */
+    @Value("${pricing.snapshot.interval-seconds:0}")
+    private long intervalSeconds;
+
+    private ScheduledExecutorService scheduler;
+
+    // Version of the data last saved to or restored from the snapshot path, so unchanged
+    // data is not saved again. Reports are no guide, as regenerating one publishes a new
+    // report for the same data.
+    private volatile PricingService.DataVersion savedVersion;
+    // Held while saving, so two saves never write the same file at once
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    @PostConstruct
+    public void restore() {
+        if (snapshotPath.isEmpty()) {
+            return;
+        }
+        try {
+            // Also run without a snapshot file, as there may be journaled edits to replay
+            pricingService.restoreSnapshot(snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not restore snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+        savedVersion = pricingService.getDataVersion();
+        if (intervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::saveIfChanged, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Returns the configured snapshot path, or null if there is none
+     */
+    public String getSnapshotPath() {
+        return snapshotPath.isEmpty() ? null : snapshotPath;
+    }
+
+    /**
+     * Saves the current data to the given file, or to the configured snapshot path if
+     * filePath is null. Returns the number of records saved.
+     */
+    public int save(String filePath) throws IOException {
+        String path = filePath != null ? filePath : getSnapshotPath();
+        if (path == null) {
+            throw new IllegalArgumentException("path is required when pricing.snapshot.path is not set");
+        }
+        saveLock.lock();
+        try {
+            PricingService.DataVersion current = pricingService.getDataVersion();
+            int saved = pricingService.saveSnapshot(path);
+            if (path.equals(getSnapshotPath())) {
+                savedVersion = current;
+            }
+            return saved;
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the current data with the records of the given snapshot file, or of the
+     * configured snapshot path if filePath is null
+     */
+    public ValidationReport load(String filePath) throws IOException {
+        String path = filePath != null ? filePath : getSnapshotPath();
+        if (path == null) {
+            throw new IllegalArgumentException("path is required when pricing.snapshot.path is not set");
+        }
+        ValidationReport report = pricingService.loadSnapshot(path);
+        if (path.equals(getSnapshotPath())) {
+            // Only if nothing was published since the load, which would not be in the file
+            PricingService.DataVersion version = pricingService.getDataVersion();
+            if (pricingService.getCurrentReport() == report) {
+                savedVersion = version;
+            }
+        }
+        return report;
+    }
+
+    private void saveIfChanged() {
+        if (pricingService.getDataVersion().equals(savedVersion)) {
+            return;
+        }
+        try {
+            save(null);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not save snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            // Not interrupted, so a save in progress completes before the last one below
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        if (!snapshotPath.isEmpty()) {
+            saveIfChanged();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.cme.pricing.store;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Byte codes for a low-cardinality text column such as exchange or product type.
+ * Code 0 stands for null and codes 1 to 254 are handed out in order of first use.
+ * Once those run out, OVERFLOW is returned and the caller has to keep the value itself.
+ * All versions of a store share one dictionary: encoding is synchronized, and a code is
+ * only decoded after the record holding it has been published, so decoding needs no lock.
+ */
+final class CodeDictionary {
+
+    static final int NULL_CODE = 0;
+    static final int OVERFLOW = 255;
+
+    private final String[] values = new String[OVERFLOW];
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Returns the code for the value, assigning a new one if there is room
+     */
+    synchronized int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size() + 1;
+        if (next >= OVERFLOW) {
+            return OVERFLOW;
+        }
+        values[next] = value;
+        codes.put(value, next);
+        return next;
+    }
+
+    /**
+     * Returns the number of codes handed out, not counting NULL_CODE
+     */
+    synchronized int size() {
+        return codes.size();
+    }
+
+    /**
+     * Returns the value for a code other than OVERFLOW
+     */
+    String decode(int code) {
+        return values[code];
+    }
+}
@@ -0,0 +1,295 @@
+package com.cme.pricing.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns instrument GUIDs. Every distinct GUID gets an int id, and its UTF-8 bytes are
+ * stored once in shared byte pages instead of one String object per record.
+ * Each id also knows the id of its trimmed form, which is how GUIDs are compared for
+ * duplicates, and its report sort key (see GuidOrder). Ids are never reused; the
+ * dictionary only grows until the store is replaced.
+ *
+ * All versions of a store share one dictionary. Adding is synchronized, while reads take
+ * no lock: an entry is complete before the size that covers it is published, and lookups
+ * ignore table entries beyond the size they read. Other reads use ids taken from a
+ * published version of the store, which was published after those entries were added.
+ */
+final class GuidDictionary {
+
+    private static final int PAGE_SIZE = 1 << 16;
+
+    // Not volatile: readers reach it through a volatile read of size or of a store version,
+    // both written after the entries they cover
+    private Entries entries = new Entries(new byte[16][], 256);
+    private volatile int size;
+    private int pageCount;
+    private int pageFill;
+
+    // Open addressing table holding entry id + 1, 0 for an empty slot
+    private volatile int[] table = new int[512];
+
+    /**
+     * Per entry: page and offset packed as (page << 32 | offset), byte length, hash,
+     * id of the trimmed form and sort key. Replaced by a larger copy when full.
+     */
+    private static final class Entries {
+        final byte[][] pages;
+        final long[] offsets;
+        final int[] lengths;
+        final int[] hashes;
+        final int[] normalizedIds;
+        final long[] sortKeys;
+
+        Entries(byte[][] pages, int capacity) {
+            this.pages = pages;
+            this.offsets = new long[capacity];
+            this.lengths = new int[capacity];
+            this.hashes = new int[capacity];
+            this.normalizedIds = new int[capacity];
+            this.sortKeys = new long[capacity];
+        }
+
+        Entries(Entries from, byte[][] pages, int capacity) {
+            this.pages = pages;
+            this.offsets = Arrays.copyOf(from.offsets, capacity);
+            this.lengths = Arrays.copyOf(from.lengths, capacity);
+            this.hashes = Arrays.copyOf(from.hashes, capacity);
+            this.normalizedIds = Arrays.copyOf(from.normalizedIds, capacity);
+            this.sortKeys = Arrays.copyOf(from.sortKeys, capacity);
+        }
+    }
+
+    GuidDictionary() {
+    }
+
+    /**
+     * Creates a dictionary holding the given GUIDs as ids 0 to count - 1, whose UTF-8 bytes
+     * follow each other in one array, with a lookup table from table(). Used to load a saved
+     * store without interning every GUID again; the trimmed form of each GUID must be among them.
+     */
+    GuidDictionary(byte[] bytes, int[] lengths, int[] normalizedIds, long[] sortKeys, int[] table) {
+        int count = lengths.length;
+        byte[][] pages = new byte[16][];
+        pages[0] = bytes;
+        Entries loaded = new Entries(pages, Math.max(256, count));
+        long offset = 0;
+        for (int id = 0; id < count; id++) {
+            loaded.offsets[id] = offset;
+            loaded.lengths[id] = lengths[id];
+            loaded.hashes[id] = hash(bytes, (int) offset, lengths[id]);
+            offset += lengths[id];
+        }
+        System.arraycopy(normalizedIds, 0, loaded.normalizedIds, 0, count);
+        System.arraycopy(sortKeys, 0, loaded.sortKeys, 0, count);
+        entries = loaded;
+        pageCount = 1;
+        pageFill = bytes.length;
+        this.table = table;
+        size = count;
+    }
+
+    /**
+     * Returns the size of the lookup table for the given number of GUIDs: a power of two at
+     * least twice as large, as intern expects
+     */
+    static int tableSize(int count) {
+        return Math.max(512, Integer.highestOneBit(Math.max(1, count)) << 2);
+    }
+
+    /**
+     * Builds the lookup table for GUIDs with the given hashes, as ids 0 to hashes.length - 1
+     */
+    static int[] table(int[] hashes) {
+        int[] table = new int[tableSize(hashes.length)];
+        insertAll(table, hashes, hashes.length);
+        return table;
+    }
+
+    /**
+     * Returns the number of distinct GUIDs
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of the GUID, adding it if it is new
+     */
+    synchronized int intern(String guid) {
+        byte[] bytes = guid.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int found = table[findSlot(bytes, hash, size)];
+        if (found != 0) {
+            return found - 1;
+        }
+        // The trimmed form goes in first, so the entry is complete when it is added
+        String trimmed = guid.trim();
+        int normalizedId = trimmed.length() == guid.length() ? size : intern(trimmed);
+        int id = add(bytes, hash, normalizedId, GuidOrder.sortKey(guid));
+        int[] current = table;
+        current[findSlot(bytes, hash, id)] = id + 1;
+        size = id + 1;
+        if (size * 2 > current.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the GUID, or -1 if it was never added
+     */
+    int find(String guid) {
+        byte[] bytes = guid.getBytes(StandardCharsets.UTF_8);
+        int count = size;
+        int[] current = table;
+        int found = current[findSlot(current, entries, bytes, hash(bytes), count)];
+        return found != 0 && found <= count ? found - 1 : -1;
+    }
+
+    /**
+     * Returns the id of the trimmed form of the GUID with the given id
+     */
+    int normalizedId(int id) {
+        return entries.normalizedIds[id];
+    }
+
+    /**
+     * Returns the report sort key of the GUID with the given id
+     */
+    long sortKey(int id) {
+        return entries.sortKeys[id];
+    }
+
+    /**
+     * Returns the GUID with the given id
+     */
+    String get(int id) {
+        Entries current = entries;
+        long offset = current.offsets[id];
+        return new String(current.pages[(int) (offset >>> 32)], (int) offset, current.lengths[id],
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares two GUIDs like String.compareTo, without creating Strings where possible.
+     * UTF-8 byte order matches String order except between supplementary characters and
+     * U+E000 to U+FFFF, whose lead bytes are 0xEE and above; those fall back to Strings.
+     */
+    int compareText(int a, int b) {
+        Entries current = entries;
+        long offsetA = current.offsets[a];
+        long offsetB = current.offsets[b];
+        int lengthA = current.lengths[a];
+        int lengthB = current.lengths[b];
+        byte[] pageA = current.pages[(int) (offsetA >>> 32)];
+        byte[] pageB = current.pages[(int) (offsetB >>> 32)];
+        int fromA = (int) offsetA;
+        int fromB = (int) offsetB;
+        int mismatch = Arrays.mismatch(pageA, fromA, fromA + lengthA, pageB, fromB, fromB + lengthB);
+        if (mismatch < 0) {
+            return 0;
+        }
+        if (mismatch == lengthA || mismatch == lengthB) {
+            // One is a prefix of the other
+            return lengthA - lengthB;
+        }
+        int byteA = pageA[fromA + mismatch] & 0xFF;
+        int byteB = pageB[fromB + mismatch] & 0xFF;
+        if (byteA >= 0xEE || byteB >= 0xEE) {
+            return get(a).compareTo(get(b));
+        }
+        return byteA - byteB;
+    }
+
+    private int findSlot(byte[] bytes, int hash, int count) {
+        return findSlot(table, entries, bytes, hash, count);
+    }
+
+    /**
+     * Returns the slot holding the GUID, or the empty slot where it would go. Entries with
+     * an id of count or more may still be in the middle of being added and are skipped.
+     */
+    private static int findSlot(int[] table, Entries entries, byte[] bytes, int hash, int count) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (id < count && entries.hashes[id] == hash && matches(entries, id, bytes)) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static boolean matches(Entries entries, int id, byte[] bytes) {
+        if (entries.lengths[id] != bytes.length) {
+            return false;
+        }
+        long offset = entries.offsets[id];
+        int from = (int) offset;
+        return Arrays.equals(entries.pages[(int) (offset >>> 32)], from, from + bytes.length, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Stores a new entry without publishing it; the caller raises size afterwards
+     */
+    private int add(byte[] bytes, int hash, int normalizedId, long sortKey) {
+        Entries current = entries;
+        int id = size;
+        byte[][] pages = current.pages;
+        if (pageCount == 0 || pageFill + bytes.length > pages[pageCount - 1].length) {
+            if (pageCount == pages.length) {
+                pages = Arrays.copyOf(pages, pageCount * 2);
+            }
+            pages[pageCount++] = new byte[Math.max(PAGE_SIZE, bytes.length)];
+            pageFill = 0;
+        }
+        System.arraycopy(bytes, 0, pages[pageCount - 1], pageFill, bytes.length);
+
+        if (id == current.offsets.length || pages != current.pages) {
+            current = new Entries(current, pages, id == current.offsets.length ? id * 2 : current.offsets.length);
+            entries = current;
+        }
+        current.offsets[id] = ((long) (pageCount - 1) << 32) | pageFill;
+        current.lengths[id] = bytes.length;
+        current.hashes[id] = hash;
+        current.normalizedIds[id] = normalizedId;
+        current.sortKeys[id] = sortKey;
+        pageFill += bytes.length;
+        return id;
+    }
+
+    private void rehash() {
+        Entries current = entries;
+        int[] newTable = new int[table.length * 2];
+        insertAll(newTable, current.hashes, size);
+        table = newTable;
+    }
+
+    private static void insertAll(int[] newTable, int[] hashes, int count) {
+        int mask = newTable.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = hashes[id] & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id + 1;
+        }
+    }
+
+    static int hash(byte[] bytes) {
+        return hash(bytes, 0, bytes.length);
+    }
+
+    private static int hash(byte[] bytes, int from, int length) {
+        int h = 1;
+        for (int i = from; i < from + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        // Spread the bits so sequential GUIDs do not cluster in the table
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,409 @@
+package com.cme.pricing.store;
+
+import java.util.Arrays;
+
+/**
+ * Live slots with a non-blank GUID, sorted the way reports list records: GUIDs that parse
+ * as an int first, by value, then all other GUIDs by text, and equal GUIDs by slot.
+ * Each distinct GUID has a precomputed sort key (its int value, or a marker plus its first
+ * three characters), so most comparisons are a single long comparison and no comparison
+ * parses or throws. Once built, the order is updated one slot at a time.
+ *
+ * The sorted slots are kept in pages of at most PAGE_SIZE entries, with the index each
+ * page starts at, so an update shifts entries within one page and finding an entry by
+ * index or by GUID is a binary search. A copy made for a new version of the store shares
+ * the pages; it copies the page table on its first update and each page the first time
+ * it writes it, like IntPages, so the order of the version it was copied from never
+ * changes.
+ */
+final class GuidOrder {
+
+    // Text keys sort after every int key, which stay below 2^32
+    private static final long TEXT = 1L << 62;
+    private static final long NOT_AN_INT = Long.MIN_VALUE;
+    private static final int RUN = 32;
+    private static final int PAGE_SIZE = 1024;
+
+    private final RecordStore store;
+    private final GuidDictionary guids;
+
+    private int[][] pages;
+    private int[] pageSizes;
+    // Index of the first entry of each page
+    private int[] pageStarts;
+    // Whether each page belongs to this order rather than being shared with another one
+    private boolean[] owned;
+    private int pageCount;
+    private int size;
+    // Whether the page table is still shared with the order this one was copied from
+    private boolean shared;
+
+    /**
+     * Sorts the given slots, which must all be live with a non-blank GUID
+     */
+    GuidOrder(RecordStore store, GuidDictionary guids, int[] unsorted, int count) {
+        this.store = store;
+        this.guids = guids;
+        int[] sorted = sort(unsorted, count);
+        pageCount = (count + PAGE_SIZE - 1) / PAGE_SIZE;
+        int capacity = Math.max(4, pageCount);
+        pages = new int[capacity][];
+        pageSizes = new int[capacity];
+        pageStarts = new int[capacity];
+        owned = new boolean[capacity];
+        for (int page = 0; page < pageCount; page++) {
+            int from = page * PAGE_SIZE;
+            pageSizes[page] = Math.min(PAGE_SIZE, count - from);
+            pages[page] = Arrays.copyOfRange(sorted, from, from + PAGE_SIZE);
+            pageStarts[page] = from;
+            owned[page] = true;
+        }
+        size = count;
+    }
+
+    private GuidOrder(GuidOrder from, RecordStore store) {
+        this.store = store;
+        this.guids = from.guids;
+        this.pages = from.pages;
+        this.pageSizes = from.pageSizes;
+        this.pageStarts = from.pageStarts;
+        this.owned = from.owned;
+        this.pageCount = from.pageCount;
+        this.size = from.size;
+        this.shared = true;
+        // The other order must not write the pages either, should it ever change again
+        from.shared = true;
+    }
+
+    /**
+     * Returns a copy of this order for a new version of the store
+     */
+    GuidOrder copyFor(RecordStore store) {
+        return new GuidOrder(this, store);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot at the given index
+     */
+    int get(int index) {
+        int page = pageOf(index);
+        return pages[page][index - pageStarts[page]];
+    }
+
+    /**
+     * Copies the sorted slots into the target array, from its start
+     */
+    void copyTo(int[] target) {
+        for (int page = 0; page < pageCount; page++) {
+            System.arraycopy(pages[page], 0, target, pageStarts[page], pageSizes[page]);
+        }
+    }
+
+    /**
+     * Adds a slot with the given GUID id
+     */
+    void insert(int slot, int id) {
+        if (pageCount == 0) {
+            unshare();
+            pages[0] = new int[PAGE_SIZE];
+            pageSizes[0] = 0;
+            pageStarts[0] = 0;
+            owned[0] = true;
+            pageCount = 1;
+        }
+        int page = pageFor(slot, id);
+        if (page == pageCount) {
+            page--;
+        }
+        int index = searchPage(page, slot, id);
+        if (pageSizes[page] == PAGE_SIZE) {
+            splitPage(page);
+            if (index > PAGE_SIZE / 2) {
+                page++;
+                index -= PAGE_SIZE / 2;
+            }
+        }
+        int[] entries = writablePage(page);
+        System.arraycopy(entries, index, entries, index + 1, pageSizes[page] - index);
+        entries[index] = slot;
+        pageSizes[page]++;
+        for (int later = page + 1; later < pageCount; later++) {
+            pageStarts[later]++;
+        }
+        size++;
+    }
+
+    /**
+     * Removes a slot that was added with the given GUID id
+     */
+    void remove(int slot, int id) {
+        int page = pageFor(slot, id);
+        if (page == pageCount) {
+            return;
+        }
+        int index = searchPage(page, slot, id);
+        if (index == pageSizes[page] || pages[page][index] != slot) {
+            return;
+        }
+        int[] entries = writablePage(page);
+        System.arraycopy(entries, index + 1, entries, index, pageSizes[page] - index - 1);
+        pageSizes[page]--;
+        for (int later = page + 1; later < pageCount; later++) {
+            pageStarts[later]--;
+        }
+        size--;
+        if (pageSizes[page] == 0) {
+            removePage(page);
+        }
+    }
+
+    /**
+     * Returns the index of the first entry that does not sort before the slot
+     */
+    int search(int slot, int id) {
+        int page = pageFor(slot, id);
+        if (page == pageCount) {
+            return size;
+        }
+        return pageStarts[page] + searchPage(page, slot, id);
+    }
+
+    /**
+     * Returns the first page whose last entry does not sort before the slot, or pageCount
+     */
+    private int pageFor(int slot, int id) {
+        int low = 0;
+        int high = pageCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int last = pages[mid][pageSizes[mid] - 1];
+            if (compare(store.guidId(last), last, id, slot) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index within the page of the first entry that does not sort before the slot
+     */
+    private int searchPage(int page, int slot, int id) {
+        int[] entries = pages[page];
+        int low = 0;
+        int high = pageSizes[page];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int other = entries[mid];
+            if (compare(store.guidId(other), other, id, slot) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the page holding the entry at the given index
+     */
+    private int pageOf(int index) {
+        int low = 0;
+        int high = pageCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pageStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copies the page table if it is shared, leaving every page shared until written
+     */
+    private void unshare() {
+        if (shared) {
+            pages = pages.clone();
+            pageSizes = pageSizes.clone();
+            pageStarts = pageStarts.clone();
+            owned = new boolean[pages.length];
+            shared = false;
+        }
+    }
+
+    private int[] writablePage(int page) {
+        unshare();
+        if (!owned[page]) {
+            pages[page] = pages[page].clone();
+            owned[page] = true;
+        }
+        return pages[page];
+    }
+
+    /**
+     * Moves the upper half of a full page into a new page after it
+     */
+    private void splitPage(int page) {
+        unshare();
+        if (pageCount == pages.length) {
+            int capacity = pageCount + (pageCount >> 1) + 1;
+            pages = Arrays.copyOf(pages, capacity);
+            pageSizes = Arrays.copyOf(pageSizes, capacity);
+            pageStarts = Arrays.copyOf(pageStarts, capacity);
+            owned = Arrays.copyOf(owned, capacity);
+        }
+        int moved = pageCount - page - 1;
+        System.arraycopy(pages, page + 1, pages, page + 2, moved);
+        System.arraycopy(pageSizes, page + 1, pageSizes, page + 2, moved);
+        System.arraycopy(pageStarts, page + 1, pageStarts, page + 2, moved);
+        System.arraycopy(owned, page + 1, owned, page + 2, moved);
+        pageCount++;
+
+        int half = PAGE_SIZE / 2;
+        int[] upper = new int[PAGE_SIZE];
+        System.arraycopy(pages[page], half, upper, 0, PAGE_SIZE - half);
+        pages[page + 1] = upper;
+        owned[page + 1] = true;
+        pageSizes[page + 1] = PAGE_SIZE - half;
+        pageStarts[page + 1] = pageStarts[page] + half;
+        // The lower half stays where it is; entries past pageSizes are never read
+        pageSizes[page] = half;
+    }
+
+    private void removePage(int page) {
+        unshare();
+        int moved = pageCount - page - 1;
+        System.arraycopy(pages, page + 1, pages, page, moved);
+        System.arraycopy(pageSizes, page + 1, pageSizes, page, moved);
+        System.arraycopy(pageStarts, page + 1, pageStarts, page, moved);
+        System.arraycopy(owned, page + 1, owned, page, moved);
+        pageCount--;
+        pages[pageCount] = null;
+        owned[pageCount] = false;
+    }
+
+    private int compare(int idA, int slotA, int idB, int slotB) {
+        if (idA != idB) {
+            long keyA = guids.sortKey(idA);
+            long keyB = guids.sortKey(idB);
+            if (keyA != keyB) {
+                return Long.compare(keyA, keyB);
+            }
+            if (keyA >= TEXT) {
+                int text = guids.compareText(idA, idB);
+                if (text != 0) {
+                    return text;
+                }
+            }
+        }
+        return Integer.compare(slotA, slotB);
+    }
+
+    private int compareSlots(int slotA, int slotB) {
+        return compare(store.guidId(slotA), slotA, store.guidId(slotB), slotB);
+    }
+
+    /**
+     * Returns the sort key of a GUID, computed once when it is added to the dictionary
+     */
+    static long sortKey(String guid) {
+        long number = parseInt(guid);
+        if (number != NOT_AN_INT) {
+            return number - Integer.MIN_VALUE;
+        }
+        long prefix = 0;
+        for (int i = 0; i < 3; i++) {
+            prefix = prefix << 16 | (i < guid.length() ? guid.charAt(i) : 0);
+        }
+        return TEXT | prefix;
+    }
+
+    /**
+     * Returns the value Integer.parseInt would return, or NOT_AN_INT where it would throw.
+     * Plain ASCII text is checked here; text with other characters (which may be digits in
+     * other scripts) is left to Integer.parseInt.
+     */
+    private static long parseInt(String text) {
+        int length = text.length();
+        if (length == 0) {
+            return NOT_AN_INT;
+        }
+        int i = 0;
+        char first = text.charAt(0);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            if (length == 1) {
+                return NOT_AN_INT;
+            }
+            i = 1;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    return NOT_AN_INT;
+                }
+            } else if (c < 128) {
+                return NOT_AN_INT;
+            } else {
+                try {
+                    return Integer.parseInt(text);
+                } catch (NumberFormatException e) {
+                    return NOT_AN_INT;
+                }
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? NOT_AN_INT : value;
+    }
+
+    /**
+     * Bottom-up merge sort of the first count slots: insertion sort for short runs, then
+     * merges. Returns the array holding the sorted slots, which may be either one.
+     */
+    private int[] sort(int[] slots, int count) {
+        for (int from = 0; from < count; from += RUN) {
+            int to = Math.min(from + RUN, count);
+            for (int i = from + 1; i < to; i++) {
+                int slot = slots[i];
+                int j = i - 1;
+                while (j >= from && compareSlots(slots[j], slot) > 0) {
+                    slots[j + 1] = slots[j];
+                    j--;
+                }
+                slots[j + 1] = slot;
+            }
+        }
+        int[] source = slots;
+        int[] target = new int[count];
+        for (int width = RUN; width < count; width *= 2) {
+            for (int low = 0; low < count; low += 2 * width) {
+                int mid = Math.min(low + width, count);
+                int high = Math.min(low + 2 * width, count);
+                int left = low;
+                int right = mid;
+                for (int k = low; k < high; k++) {
+                    if (left < mid && (right >= high || compareSlots(source[left], source[right]) <= 0)) {
+                        target[k] = source[left++];
+                    } else {
+                        target[k] = source[right++];
+                    }
+                }
+            }
+            int[] merged = target;
+            target = source;
+            source = merged;
+        }
+        return source;
+    }
+}
@@ -0,0 +1,79 @@
+package com.cme.pricing.store;
+
+import java.util.Arrays;
+
+/**
+ * Growable int array split into pages, so that a copy can share the pages with the array
+ * it was made from. A shared page is copied the first time the copy writes to it.
+ * Entries that were never written read as the fill value.
+ */
+final class IntPages {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int fill;
+    private int[][] pages = new int[0][];
+    // Whether each page belongs to this array rather than being shared with another one
+    private boolean[] owned = new boolean[0];
+
+    IntPages(int fill) {
+        this.fill = fill;
+    }
+
+    private IntPages(IntPages from) {
+        this.fill = from.fill;
+        this.pages = from.pages.clone();
+        this.owned = new boolean[pages.length];
+    }
+
+    /**
+     * Returns a copy that shares every page with this array until either of them writes it
+     */
+    IntPages copy() {
+        // This array loses ownership too, so neither side writes a page the other one reads
+        Arrays.fill(owned, false);
+        return new IntPages(this);
+    }
+
+    /**
+     * Fills an array that was never written with the given values, as if set one by one
+     */
+    void load(int[] values) {
+        int count = (values.length + PAGE_MASK) >>> PAGE_BITS;
+        pages = new int[count][];
+        owned = new boolean[count];
+        for (int page = 0; page < count; page++) {
+            int from = page << PAGE_BITS;
+            int length = Math.min(PAGE_SIZE, values.length - from);
+            pages[page] = Arrays.copyOfRange(values, from, from + PAGE_SIZE);
+            Arrays.fill(pages[page], length, PAGE_SIZE, fill);
+            owned[page] = true;
+        }
+    }
+
+    int get(int index) {
+        int page = index >>> PAGE_BITS;
+        return page < pages.length && pages[page] != null ? pages[page][index & PAGE_MASK] : fill;
+    }
+
+    void set(int index, int value) {
+        int page = index >>> PAGE_BITS;
+        if (page >= pages.length) {
+            int length = Math.max(page + 1, pages.length * 2);
+            pages = Arrays.copyOf(pages, length);
+            owned = Arrays.copyOf(owned, length);
+        }
+        if (!owned[page]) {
+            if (pages[page] == null) {
+                pages[page] = new int[PAGE_SIZE];
+                Arrays.fill(pages[page], fill);
+            } else {
+                pages[page] = pages[page].clone();
+            }
+            owned[page] = true;
+        }
+        pages[page][index & PAGE_MASK] = value;
+    }
+}
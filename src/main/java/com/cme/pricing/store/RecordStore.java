@@ -0,0 +1,1285 @@
+package com.cme.pricing.store;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Column-oriented storage for pricing records.
+ * Records live in fixed-size chunks of primitive columns: prices as doubles with a
+ * presence bitmap, trade dates as epoch days, exchange and product type as dictionary
+ * byte codes, validation errors as ValidationError bits and GUIDs as ids into a GUID
+ * dictionary. Columns that are usually empty (original price text, free-text validation
+ * errors, unusual exchange or product type values) are only allocated for chunks that
+ * need them.
+ *
+ * Every record has a fixed slot. Deleting a record only marks its slot as deleted, so
+ * slots stay valid while the position of a record (its index in the record list)
+ * shifts the same way it would in a list. Records are read and written through
+ * PricingRecord views from get(), which read and write the columns directly.
+ *
+ * Live records are indexed by trimmed GUID: each bucket is a doubly linked list of
+ * slots in slot order, so lookups, inserts and deletes only touch records with the
+ * same GUID. Null and blank GUIDs share the bucket of "".
+ *
+ * The report order of the records (see reportOrder) is kept as the sorted order of the
+ * records with a GUID, built on first use and then updated as records are added, deleted
+ * or change GUID, merged with the positions of the records without one. Pages of it are
+ * read through reportPage, which finds where a page starts with per-chunk counts and
+ * binary searches, so neither an edit nor a page rebuilds anything the size of the store.
+ *
+ * A store can be forked into a new version that shares all its data. Chunks and index
+ * pages are copied the first time the new version writes them, and the forked store
+ * becomes read-only, so it can be read from any number of threads without locking while
+ * the new version is being changed. The two versions share the GUID and code dictionaries,
+ * which only ever grow.
+ */
+public class RecordStore {
+
+    static final int CHUNK_BITS = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int WORDS_PER_CHUNK = CHUNK_SIZE / 64;
+    private static final int NO_GUID = -1;
+    private static final int NONE = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final GuidDictionary guids;
+    private final CodeDictionary exchanges;
+    private final CodeDictionary productTypes;
+
+    // GUID index: first and last slot of each bucket, by GuidDictionary id of the trimmed GUID
+    private final int blankKey;
+    private final IntPages bucketHeads;
+    private final IntPages bucketTails;
+
+    // Built on first use of the report order
+    private volatile GuidOrder guidOrder;
+    // All slots in report order, for reads of the whole order, rebuilt on the first such
+    // read after a change; the valid and invalid orders are the same order filtered by status
+    private volatile int[] reportOrder;
+    private volatile int[] validOrder;
+    private volatile int[] invalidOrder;
+    // Held while building the orders, so concurrent readers build them only once
+    private final ReentrantLock orderLock = new ReentrantLock();
+
+    private Chunk[] chunks;
+    // Whether each chunk belongs to this store rather than being shared with another version
+    private boolean[] ownedChunks;
+    private int chunkCount;
+    private int slotCount;
+    private int deletedCount;
+    private int invalidCount;
+    private boolean readOnly;
+
+    // Position of the first live record in each chunk, rebuilt lazily after deletes
+    private volatile int[] chunkStarts;
+    // Number of live records with a GUID before each chunk, rebuilt lazily after changes
+    private volatile int[] sortedStarts;
+
+    /**
+     * One block of CHUNK_SIZE slots
+     */
+    static final class Chunk {
+        final int[] guids;
+        final double[] prices;
+        final long[] hasPrice;
+        final int[] tradeDates;
+        final byte[] exchanges;
+        final byte[] productTypes;
+        final long[] valid;
+        final short[] errorMasks;
+        final long[] live;
+        // Slots whose GUID is null or blank, live or not
+        final long[] blankGuids;
+        final int[] nextInBucket;
+        final int[] prevInBucket;
+        int liveCount;
+        int invalidCount;
+        // Live slots whose GUID is null or blank
+        int blankCount;
+
+        // Allocated on first use
+        String[] originalPrices;
+        String[] validationErrors;
+        String[] otherExchanges;
+        String[] otherProductTypes;
+
+        Chunk() {
+            guids = new int[CHUNK_SIZE];
+            prices = new double[CHUNK_SIZE];
+            hasPrice = new long[WORDS_PER_CHUNK];
+            tradeDates = new int[CHUNK_SIZE];
+            exchanges = new byte[CHUNK_SIZE];
+            productTypes = new byte[CHUNK_SIZE];
+            valid = new long[WORDS_PER_CHUNK];
+            errorMasks = new short[CHUNK_SIZE];
+            live = new long[WORDS_PER_CHUNK];
+            blankGuids = new long[WORDS_PER_CHUNK];
+            nextInBucket = new int[CHUNK_SIZE];
+            prevInBucket = new int[CHUNK_SIZE];
+        }
+
+        Chunk(Chunk from) {
+            guids = from.guids.clone();
+            prices = from.prices.clone();
+            hasPrice = from.hasPrice.clone();
+            tradeDates = from.tradeDates.clone();
+            exchanges = from.exchanges.clone();
+            productTypes = from.productTypes.clone();
+            valid = from.valid.clone();
+            errorMasks = from.errorMasks.clone();
+            live = from.live.clone();
+            blankGuids = from.blankGuids.clone();
+            nextInBucket = from.nextInBucket.clone();
+            prevInBucket = from.prevInBucket.clone();
+            liveCount = from.liveCount;
+            invalidCount = from.invalidCount;
+            blankCount = from.blankCount;
+            originalPrices = from.originalPrices != null ? from.originalPrices.clone() : null;
+            validationErrors = from.validationErrors != null ? from.validationErrors.clone() : null;
+            otherExchanges = from.otherExchanges != null ? from.otherExchanges.clone() : null;
+            otherProductTypes = from.otherProductTypes != null ? from.otherProductTypes.clone() : null;
+        }
+    }
+
+    public RecordStore() {
+        this(new GuidDictionary(), new CodeDictionary(), new CodeDictionary());
+    }
+
+    RecordStore(GuidDictionary guids, CodeDictionary exchanges, CodeDictionary productTypes) {
+        this.guids = guids;
+        this.exchanges = exchanges;
+        this.productTypes = productTypes;
+        blankKey = guids.intern("");
+        bucketHeads = new IntPages(NONE);
+        bucketTails = new IntPages(NONE);
+        chunks = new Chunk[16];
+        ownedChunks = new boolean[16];
+    }
+
+    private RecordStore(RecordStore from) {
+        guids = from.guids;
+        exchanges = from.exchanges;
+        productTypes = from.productTypes;
+        blankKey = from.blankKey;
+        bucketHeads = from.bucketHeads.copy();
+        bucketTails = from.bucketTails.copy();
+        // Readers of the other version may be building these; the report order is published
+        // after the sorted GUIDs, so reading it first means those are there as well
+        reportOrder = from.reportOrder;
+        validOrder = from.validOrder;
+        invalidOrder = from.invalidOrder;
+        GuidOrder order = from.guidOrder;
+        guidOrder = order != null ? order.copyFor(this) : null;
+        chunks = from.chunks.clone();
+        ownedChunks = new boolean[chunks.length];
+        chunkCount = from.chunkCount;
+        slotCount = from.slotCount;
+        deletedCount = from.deletedCount;
+        invalidCount = from.invalidCount;
+        chunkStarts = from.chunkStarts;
+        sortedStarts = from.sortedStarts;
+    }
+
+    /**
+     * Returns a new version of this store to make changes in. This store becomes read-only
+     * and keeps showing the records as they are now.
+     */
+    public RecordStore fork() {
+        readOnly = true;
+        return new RecordStore(this);
+    }
+
+    /**
+     * Makes the store read-only, so it can be shared between threads. Setters on its
+     * record views throw IllegalStateException from then on.
+     */
+    public void freeze() {
+        readOnly = true;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Record store is read-only; fork it to make changes");
+        }
+    }
+
+    /**
+     * Returns the chunk holding the slot, copying it first if it is shared with another version
+     */
+    private Chunk writable(int slot) {
+        checkWritable();
+        int c = slot >>> CHUNK_BITS;
+        if (!ownedChunks[c]) {
+            chunks[c] = new Chunk(chunks[c]);
+            ownedChunks[c] = true;
+        }
+        return chunks[c];
+    }
+
+    /**
+     * Appends a copy of the record and returns its slot
+     */
+    public int add(PricingRecord record) {
+        checkWritable();
+        int slot = slotCount;
+        int index = slot & CHUNK_MASK;
+        if (index == 0) {
+            addChunk();
+        }
+        Chunk chunk = writable(slot);
+        slotCount++;
+        chunk.live[index >>> 6] |= 1L << index;
+        chunk.liveCount++;
+        // The valid bit starts cleared; setValid below corrects the count
+        chunk.invalidCount++;
+        invalidCount++;
+        if (deletedCount > 0 && chunkStarts != null) {
+            chunkStarts = null;
+        }
+        orderChanged();
+
+        chunk.guids[index] = NO_GUID;
+        chunk.blankGuids[index >>> 6] |= 1L << index;
+        chunk.blankCount++;
+        link(slot, blankKey);
+        setInstrumentGuid(slot, record.getInstrumentGuid());
+        setTradeDate(slot, record.getTradeDate());
+        setPrice(slot, record.getPrice());
+        setOriginalPriceValue(slot, record.getOriginalPriceValue());
+        setExchange(slot, record.getExchange());
+        setProductType(slot, record.getProductType());
+        setValid(slot, record.isValid());
+        if (record.getErrorMask() != 0) {
+            setErrorMask(slot, record.getErrorMask());
+        } else {
+            setValidationError(slot, record.getValidationError());
+        }
+        return slot;
+    }
+
+    /**
+     * Appends an empty chunk and returns it
+     */
+    Chunk addChunk() {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            ownedChunks = Arrays.copyOf(ownedChunks, chunkCount * 2);
+        }
+        Chunk chunk = new Chunk();
+        chunks[chunkCount] = chunk;
+        ownedChunks[chunkCount++] = true;
+        return chunk;
+    }
+
+    /**
+     * Completes a store whose chunks were filled in directly (see SnapshotFile): the first
+     * count slots become live records, which are counted and indexed by GUID
+     */
+    void finishLoad(int count) {
+        checkWritable();
+        slotCount = count;
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            chunk.liveCount = Math.min(CHUNK_SIZE, count - (c << CHUNK_BITS));
+            for (int w = 0; w << 6 < chunk.liveCount; w++) {
+                int bits = chunk.liveCount - (w << 6);
+                chunk.live[w] = bits >= 64 ? -1L : (1L << bits) - 1;
+                chunk.invalidCount += Long.bitCount(chunk.live[w] & ~chunk.valid[w]);
+            }
+            invalidCount += chunk.invalidCount;
+        }
+        // Slots are added in order, so each one goes at the tail of its bucket
+        int[] heads = new int[guids.size()];
+        int[] tails = new int[guids.size()];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        for (int slot = 0; slot < count; slot++) {
+            int key = bucketKey(slot);
+            int prev = tails[key];
+            Chunk chunk = chunks[slot >>> CHUNK_BITS];
+            if (key == blankKey) {
+                int index = slot & CHUNK_MASK;
+                chunk.blankGuids[index >>> 6] |= 1L << index;
+                chunk.blankCount++;
+            }
+            chunk.prevInBucket[slot & CHUNK_MASK] = prev;
+            chunk.nextInBucket[slot & CHUNK_MASK] = NONE;
+            if (prev == NONE) {
+                heads[key] = slot;
+            } else {
+                chunks[prev >>> CHUNK_BITS].nextInBucket[prev & CHUNK_MASK] = slot;
+            }
+            tails[key] = slot;
+        }
+        bucketHeads.load(heads);
+        bucketTails.load(tails);
+    }
+
+    /**
+     * Returns the chunk holding the slot, for reading its columns
+     */
+    Chunk chunkOf(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    GuidDictionary guids() {
+        return guids;
+    }
+
+    CodeDictionary exchangeCodes() {
+        return exchanges;
+    }
+
+    CodeDictionary productTypeCodes() {
+        return productTypes;
+    }
+
+    /**
+     * Returns a view of the record in the given slot. Setters on the view update the store.
+     */
+    public PricingRecord get(int slot) {
+        return new StoredRecord(this, slot);
+    }
+
+    /**
+     * Returns the slot of a record obtained from this store, or -1 for any other record
+     */
+    public int slotOf(PricingRecord record) {
+        if (record instanceof StoredRecord stored && stored.store == this) {
+            return stored.slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of a record obtained from a store in the version it came from,
+     * or -1 for any other record or a deleted one
+     */
+    public static int positionOfRecord(PricingRecord record) {
+        if (record instanceof StoredRecord stored) {
+            return stored.store.positionOf(stored.slot);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of records that have not been deleted
+     */
+    public int size() {
+        return slotCount - deletedCount;
+    }
+
+    /**
+     * Returns the number of slots ever used, including deleted ones
+     */
+    public int slotCount() {
+        return slotCount;
+    }
+
+    public boolean isLive(int slot) {
+        if (slot < 0 || slot >= slotCount) {
+            return false;
+        }
+        int index = slot & CHUNK_MASK;
+        return (chunks[slot >>> CHUNK_BITS].live[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Deletes the record in the given slot. Records after it move up one position.
+     */
+    public void delete(int slot) {
+        if (!isLive(slot)) {
+            return;
+        }
+        Chunk chunk = writable(slot);
+        unlink(slot, bucketKey(slot));
+        int id = guidId(slot);
+        GuidOrder sorted = guidOrder;
+        if (sorted != null && !isBlankGuid(id)) {
+            sorted.remove(slot, id);
+        }
+        orderChanged();
+        int index = slot & CHUNK_MASK;
+        if (!isValid(slot)) {
+            chunk.invalidCount--;
+            invalidCount--;
+        }
+        if (isBlankSlot(slot)) {
+            chunk.blankCount--;
+        }
+        chunk.live[index >>> 6] &= ~(1L << index);
+        chunk.liveCount--;
+        deletedCount++;
+        chunkStarts = null;
+        sortedStarts = null;
+    }
+
+    /**
+     * Returns the slot of the record at the given position
+     */
+    public int slotAt(int position) {
+        Objects.checkIndex(position, size());
+        if (deletedCount == 0) {
+            return position;
+        }
+        int[] starts = chunkStarts();
+        int c = Arrays.binarySearch(starts, 0, chunkCount, position);
+        if (c < 0) {
+            c = -c - 2;
+        }
+        // Skip chunks before c that start at the same position because they are empty
+        while (chunks[c].liveCount == 0 || position - starts[c] >= chunks[c].liveCount) {
+            c++;
+        }
+        long[] live = chunks[c].live;
+        int remaining = position - starts[c];
+        for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+            int count = Long.bitCount(live[w]);
+            if (remaining < count) {
+                long word = live[w];
+                for (int i = 0; i < remaining; i++) {
+                    word &= word - 1;
+                }
+                return (c << CHUNK_BITS) + (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            remaining -= count;
+        }
+        throw new IllegalStateException("Live record count out of sync at position " + position);
+    }
+
+    /**
+     * Returns the position of the record in the given slot, or -1 if it was deleted
+     */
+    public int positionOf(int slot) {
+        if (!isLive(slot)) {
+            return -1;
+        }
+        return livePositionsBefore(slot);
+    }
+
+    /**
+     * Returns the number of live records in slots before the given one
+     */
+    private int livePositionsBefore(int slot) {
+        if (deletedCount == 0) {
+            return slot;
+        }
+        int c = slot >>> CHUNK_BITS;
+        int index = slot & CHUNK_MASK;
+        long[] live = chunks[c].live;
+        int position = chunkStarts()[c];
+        for (int w = 0; w < index >>> 6; w++) {
+            position += Long.bitCount(live[w]);
+        }
+        return position + Long.bitCount(live[index >>> 6] & ((1L << index) - 1));
+    }
+
+    private int[] chunkStarts() {
+        int[] starts = chunkStarts;
+        if (starts == null || starts.length < chunkCount) {
+            // Cheap enough that threads racing to build it can each build their own
+            starts = new int[chunkCount];
+            int position = 0;
+            for (int c = 0; c < chunkCount; c++) {
+                starts[c] = position;
+                position += chunks[c].liveCount;
+            }
+            chunkStarts = starts;
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the number of live records that are not valid
+     */
+    public int invalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * Returns a read-only list of the records that are not valid, in position order.
+     * The list follows later changes to the store.
+     */
+    public List<PricingRecord> invalidRecords() {
+        return new InvalidRecords();
+    }
+
+    /**
+     * Returns the number of chunks of slots, so work over the whole store can be split up
+     * with countErrors
+     */
+    public int chunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Adds up the error bits of the live records that are not valid in one chunk: for every
+     * such record, counts[error.ordinal()] goes up by one for each ValidationError it has.
+     * Only the bitmaps and the error column are read, and chunks without invalid records
+     * are skipped, so different chunks of a read-only store can be counted on different
+     * threads.
+     */
+    public void countErrors(int chunk, int[] counts) {
+        Chunk c = chunks[chunk];
+        if (c.invalidCount == 0) {
+            return;
+        }
+        for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+            long invalid = c.live[w] & ~c.valid[w];
+            while (invalid != 0) {
+                int mask = c.errorMasks[(w << 6) + Long.numberOfTrailingZeros(invalid)] & 0xFFFF;
+                while (mask != 0) {
+                    counts[Integer.numberOfTrailingZeros(mask)]++;
+                    mask &= mask - 1;
+                }
+                invalid &= invalid - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the first live slot whose GUID is exactly the given one, or -1
+     */
+    public int findFirst(String guid) {
+        int id = guid == null ? NO_GUID : guids.find(guid);
+        if (id == NO_GUID) {
+            return NONE;
+        }
+        for (int slot = bucketHead(guids.normalizedId(id)); slot != NONE; slot = nextInBucket(slot)) {
+            if (guidId(slot) == id) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the live slots whose GUID is exactly the given one, in slot order
+     */
+    public int[] findAll(String guid) {
+        int id = guid == null ? NO_GUID : guids.find(guid);
+        if (id == NO_GUID) {
+            return new int[0];
+        }
+        int[] slots = new int[4];
+        int count = 0;
+        for (int slot = bucketHead(guids.normalizedId(id)); slot != NONE; slot = nextInBucket(slot)) {
+            if (guidId(slot) == id) {
+                if (count == slots.length) {
+                    slots = Arrays.copyOf(slots, count * 2);
+                }
+                slots[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    /**
+     * Returns the live slots whose trimmed GUID equals the trimmed given one, in slot order.
+     * A null or blank GUID returns all records with a null or blank GUID.
+     */
+    public int[] findAllTrimmed(String guid) {
+        int key = guid == null ? blankKey : guids.find(guid.trim());
+        if (key == NO_GUID) {
+            return new int[0];
+        }
+        int[] slots = new int[4];
+        int count = 0;
+        for (int slot = bucketHead(key); slot != NONE; slot = nextInBucket(slot)) {
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count * 2);
+            }
+            slots[count++] = slot;
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    /**
+     * Checks whether a live record other than the one in the given slot has exactly this GUID
+     */
+    public boolean guidExistsElsewhere(String guid, int exceptSlot) {
+        int id = guid == null ? NO_GUID : guids.find(guid);
+        if (id == NO_GUID) {
+            return false;
+        }
+        for (int slot = bucketHead(guids.normalizedId(id)); slot != NONE; slot = nextInBucket(slot)) {
+            if (slot != exceptSlot && guidId(slot) == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the slots of all records in report order. Records with a null or blank GUID
+     * keep their position; the others fill the remaining positions sorted by GUID, with
+     * GUIDs that are ints first by value, then the rest by text, and equal GUIDs in position
+     * order. The array is built on the first call after a change and shared until the next
+     * one, and must not be modified; read pages with reportPage instead.
+     */
+    public int[] reportOrder() {
+        int[] order = reportOrder;
+        if (order != null) {
+            return order;
+        }
+        GuidOrder sorted = guidOrder();
+        orderLock.lock();
+        try {
+            if (reportOrder == null) {
+                int[] sortedSlots = new int[sorted.size()];
+                sorted.copyTo(sortedSlots);
+                order = new int[size()];
+                int position = 0;
+                int next = 0;
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (isLive(slot)) {
+                        order[position++] = isBlankSlot(slot) ? slot : sortedSlots[next++];
+                    }
+                }
+                reportOrder = order;
+            }
+            return reportOrder;
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the live records with a non-blank GUID in report order, sorting them on first use
+     */
+    private GuidOrder guidOrder() {
+        GuidOrder sorted = guidOrder;
+        if (sorted != null) {
+            return sorted;
+        }
+        orderLock.lock();
+        try {
+            if (guidOrder == null) {
+                int[] unsorted = new int[size()];
+                int count = 0;
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (isLive(slot) && !isBlankSlot(slot)) {
+                        unsorted[count++] = slot;
+                    }
+                }
+                guidOrder = new GuidOrder(this, guids, unsorted, count);
+            }
+            return guidOrder;
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slots of the valid or of the invalid records in report order.
+     * The array is shared until the next change and must not be modified.
+     */
+    public int[] reportOrder(boolean valid) {
+        int[] order = valid ? validOrder : invalidOrder;
+        if (order != null) {
+            return order;
+        }
+        int[] all = reportOrder();
+        orderLock.lock();
+        try {
+            order = valid ? validOrder : invalidOrder;
+            if (order == null) {
+                order = new int[valid ? all.length - invalidCount : invalidCount];
+                int count = 0;
+                for (int slot : all) {
+                    if (isValid(slot) == valid) {
+                        order[count++] = slot;
+                    }
+                }
+                if (valid) {
+                    validOrder = order;
+                } else {
+                    invalidOrder = order;
+                }
+            }
+            return order;
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slots of up to count records that follow the record in the given slot in
+     * report order, or that start the order if the slot is -1, keeping only the valid or
+     * only the invalid ones if valid is not null. A page can so continue from the last
+     * record of the previous one; if that record has since been deleted, the page continues
+     * from the record that now has its place in the order.
+     *
+     * Report position p holds the record at position p if it has a blank GUID, and otherwise
+     * the next entry of the GUID order, so the page is merged from the two starting at the
+     * counts before p. Finding the start takes binary searches and a scan of one chunk's
+     * bitmaps, and the page then costs the records it reads: count of them, or more when
+     * records of the other status are skipped.
+     */
+    public int[] reportPage(Boolean valid, int afterSlot, int count) {
+        int start = afterSlot < 0 ? 0 : reportIndexAfter(afterSlot);
+        int[] page = new int[Math.max(0, Math.min(count, size() - start))];
+        if (page.length == 0) {
+            return page;
+        }
+        GuidOrder sorted = guidOrder();
+        int found = 0;
+        int slot = slotAt(start);
+        int rank = sortedBefore(slot);
+        while (slot < slotCount && found < page.length) {
+            int next = isBlankSlot(slot) ? slot : sorted.get(rank++);
+            if (valid == null || isValid(next) == valid) {
+                page[found++] = next;
+            }
+            slot = nextLive(slot + 1);
+        }
+        return found == page.length ? page : Arrays.copyOf(page, found);
+    }
+
+    /**
+     * Returns the index in report order of the first record that comes after the record in
+     * the given slot, or that now has its place if it was deleted
+     */
+    private int reportIndexAfter(int slot) {
+        if (isBlankSlot(slot)) {
+            // Blank GUIDs keep their place, which is held by the next live record once deleted
+            return livePositionsBefore(slot) + (isLive(slot) ? 1 : 0);
+        }
+        GuidOrder sorted = guidOrder();
+        // The index of the slot among the sorted GUIDs, or of the first GUID that sorts
+        // after it if it was deleted; that GUID now holds its place
+        int rank = sorted.search(slot, guidId(slot));
+        if (isLive(slot)) {
+            return livePositionsBefore(sortedSlotAt(rank)) + 1;
+        }
+        if (rank < sorted.size()) {
+            return livePositionsBefore(sortedSlotAt(rank));
+        }
+        return rank == 0 ? 0 : livePositionsBefore(sortedSlotAt(rank - 1)) + 1;
+    }
+
+    /**
+     * Returns the first live slot at or after the given one, or slotCount if there is none
+     */
+    private int nextLive(int slot) {
+        while (slot < slotCount) {
+            int index = slot & CHUNK_MASK;
+            long word = chunks[slot >>> CHUNK_BITS].live[index >>> 6] & (-1L << index);
+            if (word != 0) {
+                return (slot & ~63) + Long.numberOfTrailingZeros(word);
+            }
+            slot = (slot | 63) + 1;
+        }
+        return slotCount;
+    }
+
+    /**
+     * Returns the number of live records with a non-blank GUID in slots before the given one
+     */
+    private int sortedBefore(int slot) {
+        int c = slot >>> CHUNK_BITS;
+        int index = slot & CHUNK_MASK;
+        Chunk chunk = chunks[c];
+        int count = sortedStarts()[c];
+        for (int w = 0; w < index >>> 6; w++) {
+            count += Long.bitCount(chunk.live[w] & ~chunk.blankGuids[w]);
+        }
+        long word = chunk.live[index >>> 6] & ~chunk.blankGuids[index >>> 6];
+        return count + Long.bitCount(word & ((1L << index) - 1));
+    }
+
+    /**
+     * Returns the slot of the live record with a non-blank GUID that has the given number
+     * of such records before it
+     */
+    private int sortedSlotAt(int rank) {
+        int[] starts = sortedStarts();
+        int c = Arrays.binarySearch(starts, 0, chunkCount, rank);
+        if (c < 0) {
+            c = -c - 2;
+        }
+        // Skip chunks before c that start at the same count because they have no such records
+        while (sortedCount(chunks[c]) == 0 || rank - starts[c] >= sortedCount(chunks[c])) {
+            c++;
+        }
+        Chunk chunk = chunks[c];
+        int remaining = rank - starts[c];
+        for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+            long word = chunk.live[w] & ~chunk.blankGuids[w];
+            int count = Long.bitCount(word);
+            if (remaining < count) {
+                for (int i = 0; i < remaining; i++) {
+                    word &= word - 1;
+                }
+                return (c << CHUNK_BITS) + (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            remaining -= count;
+        }
+        throw new IllegalStateException("GUID count out of sync at rank " + rank);
+    }
+
+    private static int sortedCount(Chunk chunk) {
+        return chunk.liveCount - chunk.blankCount;
+    }
+
+    private int[] sortedStarts() {
+        int[] starts = sortedStarts;
+        if (starts == null || starts.length < chunkCount) {
+            // Cheap enough that threads racing to build it can each build their own
+            starts = new int[chunkCount];
+            int count = 0;
+            for (int c = 0; c < chunkCount; c++) {
+                starts[c] = count;
+                count += sortedCount(chunks[c]);
+            }
+            sortedStarts = starts;
+        }
+        return starts;
+    }
+
+    private boolean isBlankSlot(int slot) {
+        int index = slot & CHUNK_MASK;
+        return (chunks[slot >>> CHUNK_BITS].blankGuids[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void orderChanged() {
+        // Checked first, as adding records one by one would otherwise write these every time
+        if (reportOrder != null || validOrder != null || invalidOrder != null) {
+            reportOrder = null;
+            validOrder = null;
+            invalidOrder = null;
+        }
+    }
+
+    int guidId(int slot) {
+        return chunks[slot >>> CHUNK_BITS].guids[slot & CHUNK_MASK];
+    }
+
+    private boolean isBlankGuid(int id) {
+        return id == NO_GUID || guids.normalizedId(id) == blankKey;
+    }
+
+    private int bucketKey(int slot) {
+        int id = guidId(slot);
+        return id == NO_GUID ? blankKey : guids.normalizedId(id);
+    }
+
+    private int bucketHead(int key) {
+        return bucketHeads.get(key);
+    }
+
+    private int nextInBucket(int slot) {
+        return chunks[slot >>> CHUNK_BITS].nextInBucket[slot & CHUNK_MASK];
+    }
+
+    private int prevInBucket(int slot) {
+        return chunks[slot >>> CHUNK_BITS].prevInBucket[slot & CHUNK_MASK];
+    }
+
+    private void setLinks(int slot, int prev, int next) {
+        Chunk chunk = writable(slot);
+        chunk.prevInBucket[slot & CHUNK_MASK] = prev;
+        chunk.nextInBucket[slot & CHUNK_MASK] = next;
+    }
+
+    /**
+     * Adds a live slot to a bucket, keeping the bucket in slot order
+     */
+    private void link(int slot, int key) {
+        // Usually the new slot is the highest, so search back from the tail
+        int prev = bucketTails.get(key);
+        while (prev != NONE && prev > slot) {
+            prev = prevInBucket(prev);
+        }
+        int next = prev == NONE ? bucketHeads.get(key) : nextInBucket(prev);
+        setLinks(slot, prev, next);
+        if (prev == NONE) {
+            bucketHeads.set(key, slot);
+        } else {
+            writable(prev).nextInBucket[prev & CHUNK_MASK] = slot;
+        }
+        if (next == NONE) {
+            bucketTails.set(key, slot);
+        } else {
+            writable(next).prevInBucket[next & CHUNK_MASK] = slot;
+        }
+    }
+
+    private void unlink(int slot, int key) {
+        int prev = prevInBucket(slot);
+        int next = nextInBucket(slot);
+        if (prev == NONE) {
+            bucketHeads.set(key, next);
+        } else {
+            writable(prev).nextInBucket[prev & CHUNK_MASK] = next;
+        }
+        if (next == NONE) {
+            bucketTails.set(key, prev);
+        } else {
+            writable(next).prevInBucket[next & CHUNK_MASK] = prev;
+        }
+    }
+
+    /**
+     * Returns a read-only list of all records in position order
+     */
+    public List<PricingRecord> records() {
+        return new LiveRecords();
+    }
+
+    /**
+     * Returns a read-only list of the records in the given slots
+     */
+    public List<PricingRecord> view(int[] slots, int size) {
+        return new SlotRecords(slots, size);
+    }
+
+    // Column access, used by the record views
+
+    public String getInstrumentGuid(int slot) {
+        int id = guidId(slot);
+        return id == NO_GUID ? null : guids.get(id);
+    }
+
+    public void setInstrumentGuid(int slot, String instrumentGuid) {
+        Chunk chunk = writable(slot);
+        boolean live = isLive(slot);
+        GuidOrder sorted = guidOrder;
+        if (live) {
+            unlink(slot, bucketKey(slot));
+            int id = guidId(slot);
+            if (sorted != null && !isBlankGuid(id)) {
+                sorted.remove(slot, id);
+            }
+            orderChanged();
+        }
+        int id = instrumentGuid == null ? NO_GUID : guids.intern(instrumentGuid);
+        int index = slot & CHUNK_MASK;
+        chunk.guids[index] = id;
+        boolean blank = isBlankGuid(id);
+        if (blank != isBlankSlot(slot)) {
+            chunk.blankGuids[index >>> 6] ^= 1L << index;
+            if (live) {
+                chunk.blankCount += blank ? 1 : -1;
+                // Appending to the last chunk leaves the counts before each chunk as they are
+                if ((slot >>> CHUNK_BITS) < chunkCount - 1) {
+                    sortedStarts = null;
+                }
+            }
+        }
+        if (live) {
+            link(slot, bucketKey(slot));
+            if (sorted != null && !isBlankGuid(id)) {
+                sorted.insert(slot, id);
+            }
+        }
+    }
+
+    public LocalDate getTradeDate(int slot) {
+        int epochDay = chunks[slot >>> CHUNK_BITS].tradeDates[slot & CHUNK_MASK];
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public void setTradeDate(int slot, LocalDate tradeDate) {
+        writable(slot).tradeDates[slot & CHUNK_MASK] =
+                tradeDate == null ? NO_DATE : (int) tradeDate.toEpochDay();
+    }
+
+    public Double getPrice(int slot) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        int index = slot & CHUNK_MASK;
+        return (chunk.hasPrice[index >>> 6] & (1L << index)) != 0 ? chunk.prices[index] : null;
+    }
+
+    public void setPrice(int slot, Double price) {
+        Chunk chunk = writable(slot);
+        int index = slot & CHUNK_MASK;
+        if (price == null) {
+            chunk.hasPrice[index >>> 6] &= ~(1L << index);
+            chunk.prices[index] = 0;
+        } else {
+            chunk.hasPrice[index >>> 6] |= 1L << index;
+            chunk.prices[index] = price;
+        }
+    }
+
+    public String getOriginalPriceValue(int slot) {
+        String[] column = chunks[slot >>> CHUNK_BITS].originalPrices;
+        return column == null ? null : column[slot & CHUNK_MASK];
+    }
+
+    public void setOriginalPriceValue(int slot, String originalPriceValue) {
+        Chunk chunk = writable(slot);
+        if (chunk.originalPrices == null) {
+            if (originalPriceValue == null) {
+                return;
+            }
+            chunk.originalPrices = new String[CHUNK_SIZE];
+        }
+        chunk.originalPrices[slot & CHUNK_MASK] = originalPriceValue;
+    }
+
+    public String getExchange(int slot) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        return decode(exchanges, chunk.exchanges, chunk.otherExchanges, slot & CHUNK_MASK);
+    }
+
+    public void setExchange(int slot, String exchange) {
+        Chunk chunk = writable(slot);
+        int index = slot & CHUNK_MASK;
+        int code = exchanges.encode(exchange);
+        chunk.exchanges[index] = (byte) code;
+        if (code == CodeDictionary.OVERFLOW && chunk.otherExchanges == null) {
+            chunk.otherExchanges = new String[CHUNK_SIZE];
+        }
+        if (chunk.otherExchanges != null) {
+            chunk.otherExchanges[index] = code == CodeDictionary.OVERFLOW ? exchange : null;
+        }
+    }
+
+    public String getProductType(int slot) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        return decode(productTypes, chunk.productTypes, chunk.otherProductTypes, slot & CHUNK_MASK);
+    }
+
+    public void setProductType(int slot, String productType) {
+        Chunk chunk = writable(slot);
+        int index = slot & CHUNK_MASK;
+        int code = productTypes.encode(productType);
+        chunk.productTypes[index] = (byte) code;
+        if (code == CodeDictionary.OVERFLOW && chunk.otherProductTypes == null) {
+            chunk.otherProductTypes = new String[CHUNK_SIZE];
+        }
+        if (chunk.otherProductTypes != null) {
+            chunk.otherProductTypes[index] = code == CodeDictionary.OVERFLOW ? productType : null;
+        }
+    }
+
+    private static String decode(CodeDictionary dictionary, byte[] codes, String[] others, int index) {
+        int code = codes[index] & 0xFF;
+        return code == CodeDictionary.OVERFLOW ? others[index] : dictionary.decode(code);
+    }
+
+    public boolean isValid(int slot) {
+        int index = slot & CHUNK_MASK;
+        return (chunks[slot >>> CHUNK_BITS].valid[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void setValid(int slot, boolean valid) {
+        Chunk chunk = writable(slot);
+        int index = slot & CHUNK_MASK;
+        if (valid != isValid(slot) && isLive(slot)) {
+            int change = valid ? -1 : 1;
+            chunk.invalidCount += change;
+            invalidCount += change;
+            validOrder = null;
+            invalidOrder = null;
+        }
+        if (valid) {
+            chunk.valid[index >>> 6] |= 1L << index;
+        } else {
+            chunk.valid[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Returns the validation error message, built from the error bits if there are any
+     */
+    public String getValidationError(int slot) {
+        int mask = getErrorMask(slot);
+        if (mask != 0) {
+            return ValidationError.render(mask, get(slot));
+        }
+        String[] column = chunks[slot >>> CHUNK_BITS].validationErrors;
+        return column == null ? null : column[slot & CHUNK_MASK];
+    }
+
+    /**
+     * Sets a free-text validation error, replacing any error bits
+     */
+    public void setValidationError(int slot, String validationError) {
+        Chunk chunk = writable(slot);
+        int index = slot & CHUNK_MASK;
+        chunk.errorMasks[index] = 0;
+        if (chunk.validationErrors == null) {
+            if (validationError == null) {
+                return;
+            }
+            chunk.validationErrors = new String[CHUNK_SIZE];
+        }
+        chunk.validationErrors[index] = validationError;
+    }
+
+    public int getErrorMask(int slot) {
+        return chunks[slot >>> CHUNK_BITS].errorMasks[slot & CHUNK_MASK] & 0xFFFF;
+    }
+
+    /**
+     * Sets the validation errors as ValidationError bits, replacing any free-text error
+     */
+    public void setErrorMask(int slot, int errorMask) {
+        Chunk chunk = writable(slot);
+        int index = slot & CHUNK_MASK;
+        chunk.errorMasks[index] = (short) errorMask;
+        if (chunk.validationErrors != null) {
+            chunk.validationErrors[index] = null;
+        }
+    }
+
+    /**
+     * All live records in position order. Iteration walks the slots directly.
+     */
+    private final class LiveRecords extends AbstractList<PricingRecord> implements RandomAccess {
+
+        @Override
+        public PricingRecord get(int index) {
+            return RecordStore.this.get(slotAt(index));
+        }
+
+        @Override
+        public int size() {
+            return RecordStore.this.size();
+        }
+
+        @Override
+        public Iterator<PricingRecord> iterator() {
+            return new Iterator<>() {
+                private int next = nextLive(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < slotCount;
+                }
+
+                @Override
+                public PricingRecord next() {
+                    if (next >= slotCount) {
+                        throw new NoSuchElementException();
+                    }
+                    PricingRecord record = RecordStore.this.get(next);
+                    next = nextLive(next + 1);
+                    return record;
+                }
+            };
+        }
+
+        private int nextLive(int slot) {
+            while (slot < slotCount && !isLive(slot)) {
+                slot++;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Live records that are not valid, in position order. Chunks without invalid records
+     * are skipped using the per-chunk counts.
+     */
+    private final class InvalidRecords extends AbstractList<PricingRecord> {
+
+        @Override
+        public PricingRecord get(int index) {
+            Objects.checkIndex(index, invalidCount);
+            int c = 0;
+            while (index >= chunks[c].invalidCount) {
+                index -= chunks[c].invalidCount;
+                c++;
+            }
+            Chunk chunk = chunks[c];
+            for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+                long word = chunk.live[w] & ~chunk.valid[w];
+                int count = Long.bitCount(word);
+                if (index < count) {
+                    for (int i = 0; i < index; i++) {
+                        word &= word - 1;
+                    }
+                    return RecordStore.this.get((c << CHUNK_BITS) + (w << 6) + Long.numberOfTrailingZeros(word));
+                }
+                index -= count;
+            }
+            throw new IllegalStateException("Invalid record count out of sync in chunk " + c);
+        }
+
+        @Override
+        public int size() {
+            return invalidCount;
+        }
+
+        @Override
+        public Iterator<PricingRecord> iterator() {
+            return new Iterator<>() {
+                private int next = nextInvalid(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < slotCount;
+                }
+
+                @Override
+                public PricingRecord next() {
+                    if (next >= slotCount) {
+                        throw new NoSuchElementException();
+                    }
+                    PricingRecord record = RecordStore.this.get(next);
+                    next = nextInvalid(next + 1);
+                    return record;
+                }
+            };
+        }
+
+        private int nextInvalid(int slot) {
+            while (slot < slotCount) {
+                int c = slot >>> CHUNK_BITS;
+                Chunk chunk = chunks[c];
+                if (chunk.invalidCount > 0) {
+                    int w = (slot & CHUNK_MASK) >>> 6;
+                    // Shifting by the slot uses only its low six bits, the offset within the word
+                    long word = chunk.live[w] & ~chunk.valid[w] & (-1L << slot);
+                    while (word == 0 && ++w < WORDS_PER_CHUNK) {
+                        word = chunk.live[w] & ~chunk.valid[w];
+                    }
+                    if (word != 0) {
+                        return (c << CHUNK_BITS) + (w << 6) + Long.numberOfTrailingZeros(word);
+                    }
+                }
+                slot = (c + 1) << CHUNK_BITS;
+            }
+            return slotCount;
+        }
+    }
+
+    /**
+     * Records in an explicit slot order, such as a sorted or filtered list
+     */
+    private final class SlotRecords extends AbstractList<PricingRecord> implements RandomAccess {
+        private final int[] slots;
+        private final int size;
+
+        SlotRecords(int[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        @Override
+        public PricingRecord get(int index) {
+            Objects.checkIndex(index, size);
+            return RecordStore.this.get(slots[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.cme.pricing.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves a record store to a binary file and loads it back, so validated data and the
+ * corrections made to it survive a restart without parsing and validating the CSV again.
+ *
+ * The file is laid out by column like the store itself: a header, the GUID dictionary,
+ * one section per column holding that column for every record, and finally the code
+ * dictionaries and the rarely used text columns as (position, value) pairs. Numbers are
+ * little-endian and sections start on 8-byte boundaries. Loading maps the file and copies
+ * each column section into the chunks of a new store in bulk, so nothing is parsed or
+ * validated again. Deleted records are left out; a loaded store has none.
+ *
+ * The header also carries a sequence number chosen by the caller, which the service uses
+ * to tell which journaled edits the file already contains.
+ */
+public final class SnapshotFile {
+
+    private static final long MAGIC = 0x5041_4E53_5043_5250L;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 40;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * A loaded store and the sequence number it was saved with
+     */
+    public record Contents(RecordStore store, long sequence) {
+    }
+
+    /**
+     * Writes the live records of a read-only store to the file. The file is written next to
+     * its final name and moved into place, so a failed write leaves any earlier file intact.
+     */
+    public static void write(RecordStore store, long sequence, Path path) throws IOException {
+        int count = store.size();
+        int[] slots = new int[count];
+        for (int slot = 0, i = 0; i < count; slot++) {
+            if (store.isLive(slot)) {
+                slots[i++] = slot;
+            }
+        }
+
+        // Only GUIDs still in use are saved, keeping their order, so trimmed forms stay first
+        GuidDictionary guids = store.guids();
+        int[] savedIds = new int[guids.size()];
+        for (int slot : slots) {
+            int id = store.guidId(slot);
+            if (id >= 0) {
+                savedIds[id] = 1;
+                savedIds[guids.normalizedId(id)] = 1;
+            }
+        }
+        int guidCount = 0;
+        for (int id = 0; id < savedIds.length; id++) {
+            savedIds[id] = savedIds[id] != 0 ? guidCount++ : -1;
+        }
+        int[] usedIds = new int[guidCount];
+        byte[][] guidBytes = new byte[guidCount][];
+        long guidByteCount = 0;
+        for (int id = 0; id < savedIds.length; id++) {
+            if (savedIds[id] >= 0) {
+                usedIds[savedIds[id]] = id;
+                guidBytes[savedIds[id]] = guids.get(id).getBytes(StandardCharsets.UTF_8);
+                guidByteCount += guidBytes[savedIds[id]].length;
+            }
+        }
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Output out = new Output(FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.putLong(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(count);
+            out.putInt(guidCount);
+            out.putInt(0);
+            out.putLong(guidByteCount);
+            out.putLong(sequence);
+
+            // GUID dictionary
+            for (byte[] bytes : guidBytes) {
+                out.putInt(bytes.length);
+            }
+            out.align();
+            for (int id : usedIds) {
+                out.putInt(savedIds[guids.normalizedId(id)]);
+            }
+            out.align();
+            int[] hashes = new int[guidCount];
+            for (int id = 0; id < guidCount; id++) {
+                hashes[id] = GuidDictionary.hash(guidBytes[id]);
+            }
+            // The lookup table is saved as well, as building it is most of the work of loading
+            for (int entry : GuidDictionary.table(hashes)) {
+                out.putInt(entry);
+            }
+            out.align();
+            for (int id : usedIds) {
+                out.putLong(guids.sortKey(id));
+            }
+            for (byte[] bytes : guidBytes) {
+                out.putBytes(bytes);
+            }
+            out.align();
+
+            // Columns
+            for (int slot : slots) {
+                int id = store.guidId(slot);
+                out.putInt(id >= 0 ? savedIds[id] : id);
+            }
+            out.align();
+            for (int slot : slots) {
+                out.putDouble(store.chunkOf(slot).prices[slot & (RecordStore.CHUNK_SIZE - 1)]);
+            }
+            putBits(out, store, slots, true);
+            for (int slot : slots) {
+                out.putInt(store.chunkOf(slot).tradeDates[slot & (RecordStore.CHUNK_SIZE - 1)]);
+            }
+            out.align();
+            for (int slot : slots) {
+                out.putByte(store.chunkOf(slot).exchanges[slot & (RecordStore.CHUNK_SIZE - 1)]);
+            }
+            out.align();
+            for (int slot : slots) {
+                out.putByte(store.chunkOf(slot).productTypes[slot & (RecordStore.CHUNK_SIZE - 1)]);
+            }
+            out.align();
+            putBits(out, store, slots, false);
+            for (int slot : slots) {
+                out.putShort(store.chunkOf(slot).errorMasks[slot & (RecordStore.CHUNK_SIZE - 1)]);
+            }
+            out.align();
+
+            // Code dictionaries and sparse text columns
+            putCodes(out, store.exchangeCodes());
+            putCodes(out, store.productTypeCodes());
+            for (int column = 0; column < 4; column++) {
+                putSparse(out, store, slots, column);
+            }
+            out.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a store and its sequence number from a file written by write. The store is
+     * writable, like a freshly loaded one; freeze or fork it before sharing it.
+     */
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Input in = new Input(channel, path);
+            ByteBuffer header = in.section(HEADER_SIZE);
+            if (header.getLong() != MAGIC) {
+                throw new IOException("Not a pricing snapshot file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            int count = header.getInt();
+            int guidCount = header.getInt();
+            header.getInt();
+            long guidByteCount = header.getLong();
+            long sequence = header.getLong();
+            if (guidByteCount > Integer.MAX_VALUE - 8) {
+                throw new IOException("Snapshot GUIDs too large to load: " + path);
+            }
+
+            // GUID dictionary
+            int[] lengths = new int[guidCount];
+            in.section(4L * guidCount).asIntBuffer().get(lengths);
+            int[] normalizedIds = new int[guidCount];
+            in.section(4L * guidCount).asIntBuffer().get(normalizedIds);
+            int[] table = new int[GuidDictionary.tableSize(guidCount)];
+            in.section(4L * table.length).asIntBuffer().get(table);
+            long[] sortKeys = new long[guidCount];
+            in.section(8L * guidCount).asLongBuffer().get(sortKeys);
+            byte[] bytes = new byte[(int) guidByteCount];
+            in.section(guidByteCount).get(bytes);
+            for (int i = 0; i < guidCount; i++) {
+                if (normalizedIds[i] < 0 || normalizedIds[i] > i) {
+                    throw new IOException("Corrupt snapshot file: " + path);
+                }
+            }
+            GuidDictionary guids = new GuidDictionary(bytes, lengths, normalizedIds, sortKeys, table);
+
+            // Columns, copied chunk by chunk
+            int words = (count + 63) >>> 6;
+            ByteBuffer guidIds = in.section(4L * count);
+            ByteBuffer prices = in.section(8L * count);
+            ByteBuffer hasPrice = in.section(8L * words);
+            ByteBuffer tradeDates = in.section(4L * count);
+            ByteBuffer exchangeCodes = in.section(count);
+            ByteBuffer productTypeCodes = in.section(count);
+            ByteBuffer valid = in.section(8L * words);
+            ByteBuffer errorMasks = in.section(2L * count);
+            ByteBuffer rest = in.section(channel.size() - in.position);
+
+            CodeDictionary exchanges = getCodes(rest, path);
+            CodeDictionary productTypes = getCodes(rest, path);
+            RecordStore store = new RecordStore(guids, exchanges, productTypes);
+            for (int from = 0; from < count; from += RecordStore.CHUNK_SIZE) {
+                RecordStore.Chunk chunk = store.addChunk();
+                int size = Math.min(RecordStore.CHUNK_SIZE, count - from);
+                int word = from >>> 6;
+                int wordCount = (size + 63) >>> 6;
+                guidIds.asIntBuffer().get(from, chunk.guids, 0, size);
+                prices.asDoubleBuffer().get(from, chunk.prices, 0, size);
+                hasPrice.asLongBuffer().get(word, chunk.hasPrice, 0, wordCount);
+                tradeDates.asIntBuffer().get(from, chunk.tradeDates, 0, size);
+                exchangeCodes.get(from, chunk.exchanges, 0, size);
+                productTypeCodes.get(from, chunk.productTypes, 0, size);
+                valid.asLongBuffer().get(word, chunk.valid, 0, wordCount);
+                errorMasks.asShortBuffer().get(from, chunk.errorMasks, 0, size);
+                for (int i = 0; i < size; i++) {
+                    if (chunk.guids[i] < -1 || chunk.guids[i] >= guidCount) {
+                        throw new IOException("Corrupt snapshot file: " + path);
+                    }
+                }
+            }
+            for (int column = 0; column < 4; column++) {
+                getSparse(rest, store, count, column, path);
+            }
+            store.finishLoad(count);
+            return new Contents(store, sequence);
+        }
+    }
+
+    private static void putBits(Output out, RecordStore store, int[] slots, boolean prices) throws IOException {
+        long word = 0;
+        for (int i = 0; i < slots.length; i++) {
+            RecordStore.Chunk chunk = store.chunkOf(slots[i]);
+            int index = slots[i] & (RecordStore.CHUNK_SIZE - 1);
+            long bits = prices ? chunk.hasPrice[index >>> 6] : chunk.valid[index >>> 6];
+            if ((bits & (1L << index)) != 0) {
+                word |= 1L << i;
+            }
+            if ((i & 63) == 63) {
+                out.putLong(word);
+                word = 0;
+            }
+        }
+        if ((slots.length & 63) != 0) {
+            out.putLong(word);
+        }
+    }
+
+    private static void putCodes(Output out, CodeDictionary codes) throws IOException {
+        int size = codes.size();
+        out.putInt(size);
+        for (int code = 1; code <= size; code++) {
+            out.putString(codes.decode(code));
+        }
+    }
+
+    private static CodeDictionary getCodes(ByteBuffer in, Path path) throws IOException {
+        CodeDictionary codes = new CodeDictionary();
+        int size = getInt(in, path);
+        for (int code = 1; code <= size; code++) {
+            // A new dictionary hands out the same codes in the same order
+            if (codes.encode(getString(in, path)) != code) {
+                throw new IOException("Corrupt snapshot file: " + path);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Writes one of the text columns that are only allocated for chunks that need them:
+     * original prices, free-text validation errors, other exchanges, other product types
+     */
+    private static void putSparse(Output out, RecordStore store, int[] slots, int column) throws IOException {
+        int count = 0;
+        for (int slot : slots) {
+            if (sparseValue(store, slot, column) != null) {
+                count++;
+            }
+        }
+        out.putInt(count);
+        for (int position = 0; position < slots.length; position++) {
+            String value = sparseValue(store, slots[position], column);
+            if (value != null) {
+                out.putInt(position);
+                out.putString(value);
+            }
+        }
+    }
+
+    private static void getSparse(ByteBuffer in, RecordStore store, int recordCount, int column, Path path)
+            throws IOException {
+        int count = getInt(in, path);
+        for (int i = 0; i < count; i++) {
+            int position = getInt(in, path);
+            if (position < 0 || position >= recordCount) {
+                throw new IOException("Corrupt snapshot file: " + path);
+            }
+            RecordStore.Chunk chunk = store.chunkOf(position);
+            String[] values = sparseColumn(chunk, column);
+            if (values == null) {
+                values = new String[RecordStore.CHUNK_SIZE];
+                switch (column) {
+                    case 0 -> chunk.originalPrices = values;
+                    case 1 -> chunk.validationErrors = values;
+                    case 2 -> chunk.otherExchanges = values;
+                    default -> chunk.otherProductTypes = values;
+                }
+            }
+            values[position & (RecordStore.CHUNK_SIZE - 1)] = getString(in, path);
+        }
+    }
+
+    private static String sparseValue(RecordStore store, int slot, int column) {
+        String[] values = sparseColumn(store.chunkOf(slot), column);
+        return values != null ? values[slot & (RecordStore.CHUNK_SIZE - 1)] : null;
+    }
+
+    private static String[] sparseColumn(RecordStore.Chunk chunk, int column) {
+        return switch (column) {
+            case 0 -> chunk.originalPrices;
+            case 1 -> chunk.validationErrors;
+            case 2 -> chunk.otherExchanges;
+            default -> chunk.otherProductTypes;
+        };
+    }
+
+    /**
+     * Reads an int from the last section, which has no length of its own, so a file cut
+     * short only shows as running out of it
+     */
+    private static int getInt(ByteBuffer in, Path path) throws IOException {
+        if (in.remaining() < 4) {
+            throw new IOException("Truncated snapshot file: " + path);
+        }
+        return in.getInt();
+    }
+
+    private static String getString(ByteBuffer in, Path path) throws IOException {
+        int length = getInt(in, path);
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Truncated snapshot file: " + path);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffered little-endian writer that keeps track of the file position for alignment
+     */
+    private static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private ByteBuffer room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            position += bytes;
+            return buffer;
+        }
+
+        void putByte(byte value) throws IOException {
+            room(1).put(value);
+        }
+
+        void putShort(short value) throws IOException {
+            room(2).putShort(value);
+        }
+
+        void putInt(int value) throws IOException {
+            room(4).putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(8).putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            room(8).putDouble(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int from = 0; from < bytes.length; from += BUFFER_SIZE) {
+                int length = Math.min(BUFFER_SIZE, bytes.length - from);
+                room(length).put(bytes, from, length);
+            }
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+
+        /**
+         * Pads with zeros up to the next 8-byte boundary
+         */
+        void align() throws IOException {
+            while ((position & 7) != 0) {
+                putByte((byte) 0);
+            }
+        }
+
+        void force() throws IOException {
+            flush();
+            channel.force(true);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    /**
+     * Maps consecutive sections of the file, each starting on an 8-byte boundary
+     */
+    private static final class Input {
+        private final FileChannel channel;
+        private final Path path;
+        private long position;
+
+        Input(FileChannel channel, Path path) {
+            this.channel = channel;
+            this.path = path;
+        }
+
+        ByteBuffer section(long size) throws IOException {
+            if (size < 0 || size > Integer.MAX_VALUE || position + size > channel.size()) {
+                throw new IOException("Corrupt snapshot file: " + path);
+            }
+            ByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, position, size)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            position = (position + size + 7) & ~7L;
+            return section;
+        }
+    }
+}
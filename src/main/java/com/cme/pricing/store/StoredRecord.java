@@ -0,0 +1,110 @@
+package com.cme.pricing.store;
+
+import com.cme.pricing.model.PricingRecord;
+
+import java.time.LocalDate;
+
+/**
+ * PricingRecord view of one slot in a RecordStore. Getters read the columns and setters
+ * write them, so the view always shows the current state of the record.
+ */
+final class StoredRecord extends PricingRecord {
+
+    final RecordStore store;
+    final int slot;
+
+    StoredRecord(RecordStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
+    @Override
+    public String getInstrumentGuid() {
+        return store.getInstrumentGuid(slot);
+    }
+
+    @Override
+    public void setInstrumentGuid(String instrumentGuid) {
+        store.setInstrumentGuid(slot, instrumentGuid);
+    }
+
+    @Override
+    public LocalDate getTradeDate() {
+        return store.getTradeDate(slot);
+    }
+
+    @Override
+    public void setTradeDate(LocalDate tradeDate) {
+        store.setTradeDate(slot, tradeDate);
+    }
+
+    @Override
+    public Double getPrice() {
+        return store.getPrice(slot);
+    }
+
+    @Override
+    public void setPrice(Double price) {
+        store.setPrice(slot, price);
+    }
+
+    @Override
+    public String getOriginalPriceValue() {
+        return store.getOriginalPriceValue(slot);
+    }
+
+    @Override
+    public void setOriginalPriceValue(String originalPriceValue) {
+        store.setOriginalPriceValue(slot, originalPriceValue);
+    }
+
+    @Override
+    public String getExchange() {
+        return store.getExchange(slot);
+    }
+
+    @Override
+    public void setExchange(String exchange) {
+        store.setExchange(slot, exchange);
+    }
+
+    @Override
+    public String getProductType() {
+        return store.getProductType(slot);
+    }
+
+    @Override
+    public void setProductType(String productType) {
+        store.setProductType(slot, productType);
+    }
+
+    @Override
+    public boolean isValid() {
+        return store.isValid(slot);
+    }
+
+    @Override
+    public void setValid(boolean valid) {
+        store.setValid(slot, valid);
+    }
+
+    @Override
+    public String getValidationError() {
+        return store.getValidationError(slot);
+    }
+
+    @Override
+    public void setValidationError(String validationError) {
+        store.setValidationError(slot, validationError);
+    }
+
+    @Override
+    public int getErrorMask() {
+        return store.getErrorMask(slot);
+    }
+
+    @Override
+    public void setErrorMask(int errorMask) {
+        store.setErrorMask(slot, errorMask);
+    }
+}
@@ -0,0 +1,138 @@
+package com.cme.pricing.validator;
+
+import com.cme.pricing.model.PricingRecord;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Validates a list of records on several threads, with the same results as
+ * validateAllRecords gives on one thread.
+ * The per-record rules run over ranges of the list. For duplicates, every record is put in
+ * a partition by the hash of its trimmed GUID, so all records with one GUID end up in the
+ * same partition, listed in their original order. Each partition is then checked on its
+ * own, and the first record of a GUID is the first one in the list, as before.
+ */
+class ParallelValidation {
+
+    private final PricingValidator validator;
+    private final ForkJoinPool pool;
+    private final int rangeCount;
+    private final int partitionCount;
+
+    ParallelValidation(PricingValidator validator, ForkJoinPool pool) {
+        this.validator = validator;
+        this.pool = pool;
+        rangeCount = pool.getParallelism() * 4;
+        partitionCount = pool.getParallelism() * 4;
+    }
+
+    /**
+     * Applies the per-record rules to every record
+     */
+    void validateRecords(List<PricingRecord> records) {
+        int size = records.size();
+        forEach(rangeCount, range -> {
+            for (int i = start(range, size); i < start(range + 1, size); i++) {
+                validator.validateRecord(records.get(i));
+            }
+        });
+    }
+
+    /**
+     * Marks every record whose trimmed GUID appeared earlier in the list as a duplicate
+     */
+    void identifyDuplicates(List<PricingRecord> records) {
+        int size = records.size();
+        String[] guids = new String[size];
+        int[] partitions = new int[size];
+        // counts[range * partitionCount + partition]: records of the range in the partition
+        int[] counts = new int[rangeCount * partitionCount];
+
+        forEach(rangeCount, range -> {
+            for (int i = start(range, size); i < start(range + 1, size); i++) {
+                String guid = records.get(i).getInstrumentGuid();
+                // Blank GUIDs are not checked, like in checkDuplicate
+                if (guid == null || guid.trim().isEmpty()) {
+                    partitions[i] = -1;
+                    continue;
+                }
+                guids[i] = guid.trim();
+                int hash = guids[i].hashCode();
+                partitions[i] = Math.floorMod(hash ^ (hash >>> 16), partitionCount);
+                counts[range * partitionCount + partitions[i]]++;
+            }
+        });
+
+        // Turn the counts into where each range starts writing in each partition, with the
+        // partitions one after another and the ranges in list order within each one
+        int[] partitionStarts = new int[partitionCount + 1];
+        int position = 0;
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitionStarts[partition] = position;
+            for (int range = 0; range < rangeCount; range++) {
+                int count = counts[range * partitionCount + partition];
+                counts[range * partitionCount + partition] = position;
+                position += count;
+            }
+        }
+        partitionStarts[partitionCount] = position;
+
+        int[] ordered = new int[position];
+        forEach(rangeCount, range -> {
+            for (int i = start(range, size); i < start(range + 1, size); i++) {
+                if (partitions[i] >= 0) {
+                    ordered[counts[range * partitionCount + partitions[i]]++] = i;
+                }
+            }
+        });
+
+        forEach(partitionCount, partition -> {
+            Set<String> seenGuids = new HashSet<>();
+            for (int j = partitionStarts[partition]; j < partitionStarts[partition + 1]; j++) {
+                int i = ordered[j];
+                if (!seenGuids.add(guids[i])) {
+                    validator.markDuplicate(records.get(i), guids[i]);
+                }
+            }
+        });
+    }
+
+    private int start(int range, int size) {
+        return (int) ((long) size * range / rangeCount);
+    }
+
+    /**
+     * Runs the task for 0 to count - 1 on the pool and waits for all of them
+     */
+    private void forEach(int count, IntConsumer task) {
+        List<Callable<Void>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(() -> {
+                task.accept(index);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while validating records", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Failed to validate records", e.getCause());
+            }
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.cme.pricing.validator;
 
+import com.cme.pricing.metrics.PricingMetrics;
 import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Validator class for pricing records
@@ -23,122 +32,186 @@ public class PricingValidator {
     // Valid product types
     private static final Set<String> VALID_PRODUCT_TYPES = Set.of("FUT", "OPT");
 
+    /**
+     * Threads used by validateBatch and validateAllRecords for large lists; 0 uses all
+     * available cores
+     */
+    @Value("${pricing.validation.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * Lists smaller than this are validated on a single thread
+     */
+    @Value("${pricing.validation.parallel-threshold:10000}")
+    private int parallelThreshold = 10_000;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ForkJoinPool validationPool;
+
     /**
      * Validates a single pricing record
      */
     public void validateRecord(PricingRecord record) {
-        record.setValid(true);
-        
-        // Preserve parser's error message if it's about invalid format (only if price is still null)
-        String parserError = record.getValidationError();
-        boolean isInvalidFormat = (parserError != null && parserError.contains("Invalid price format"));
-        
-        // Clear error at the start - will be set again if validation fails
-            record.setValidationError(null);
+        // Preserve parser's invalid format flag (only if price is still null)
+        boolean isInvalidFormat = record.hasError(ValidationError.INVALID_PRICE_FORMAT);
         
-        List<String> errors = new java.util.ArrayList<>();
+        int errors = 0;
         
         // Check for missing price
         if (record.getPrice() == null) {
             // Check if it's already marked as invalid format by parser
             if (isInvalidFormat) {
                 // Already marked as invalid format, preserve it
-                errors.add(parserError);
+                errors |= ValidationError.INVALID_PRICE_FORMAT.bit();
             } else {
                 // Actually missing
-                errors.add("Missing price value");
+                errors |= ValidationError.MISSING_PRICE.bit();
             }
-            record.setValid(false);
         } else if (record.getPrice() < 0) {
-            errors.add("Negative price");
-            record.setValid(false);
+            errors |= ValidationError.NEGATIVE_PRICE.bit();
         } else if (record.getPrice() == 0) {
-            errors.add("Zero price");
-            record.setValid(false);
+            errors |= ValidationError.ZERO_PRICE.bit();
         }
         
         // Validate exchange
         if (record.getExchange() == null || record.getExchange().trim().isEmpty()) {
-            errors.add("Missing exchange");
-            record.setValid(false);
+            errors |= ValidationError.MISSING_EXCHANGE.bit();
         } else if (!VALID_EXCHANGES.contains(record.getExchange().toUpperCase())) {
-            errors.add("Invalid exchange: " + record.getExchange());
-            record.setValid(false);
+            errors |= ValidationError.INVALID_EXCHANGE.bit();
         }
         
         // Validate product type
         if (record.getProductType() == null || record.getProductType().trim().isEmpty()) {
-            errors.add("Missing product type");
-            record.setValid(false);
+            errors |= ValidationError.MISSING_PRODUCT_TYPE.bit();
         } else if (!VALID_PRODUCT_TYPES.contains(record.getProductType().toUpperCase())) {
-            errors.add("Invalid product type: " + record.getProductType());
-            record.setValid(false);
+            errors |= ValidationError.INVALID_PRODUCT_TYPE.bit();
         }
         
         // Validate instrument GUID (primary key - must be present and unique)
         if (record.getInstrumentGuid() == null || record.getInstrumentGuid().trim().isEmpty()) {
-            errors.add("Missing instrument GUID (primary key required)");
-            record.setValid(false);
+            errors |= ValidationError.MISSING_INSTRUMENT_GUID.bit();
         }
         
         // Validate trade date
         if (record.getTradeDate() == null) {
-            errors.add("Missing trade date");
-            record.setValid(false);
+            errors |= ValidationError.MISSING_TRADE_DATE.bit();
         }
         
-        if (!errors.isEmpty()) {
-            record.setValidationError(String.join("; ", errors));
-            logger.warn("Validation failed for record {}: {}", record.getInstrumentGuid(), record.getValidationError());
+        // Error messages are only built when they are read. Loads log a summary; a line
+        // per invalid record would flood the log on large files.
+        record.setErrorMask(errors);
+        record.setValid(errors == 0);
+        if (errors != 0 && logger.isDebugEnabled()) {
+            logger.debug("Validation failed for record {}: {}", record.getInstrumentGuid(), record.getValidationError());
         }
     }
 
     /**
      * Identifies duplicate GUIDs in a list (GUID is primary key - must be unique)
-     * First occurrence is valid, subsequent occurrences are invalid
+     * First occurrence is valid, subsequent occurrences are invalid.
+     * The time taken is recorded as the duplicates phase.
      */
     public void identifyDuplicates(List<PricingRecord> records) {
-        Set<String> seenGuids = new HashSet<>();
-        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        identifyDuplicates(records, new HashSet<>());
+        sample.stop(PricingMetrics.phaseTimer(meterRegistry, PricingMetrics.PHASE_DUPLICATES));
+    }
+
+    /**
+     * Marks every record whose trimmed GUID is among the GUIDs seen so far, or appeared
+     * earlier in the list, as a duplicate, and adds the GUIDs of the others to seenGuids.
+     * Lists must be passed in original order. Nothing is timed, so callers that check a
+     * file batch by batch can time it as a whole, and checks of a few records after an
+     * edit stay out of the duplicates phase.
+     */
+    public void identifyDuplicates(List<PricingRecord> records, Set<String> seenGuids) {
         for (PricingRecord record : records) {
-            String guid = record.getInstrumentGuid();
-            
-            // Skip records with null/empty GUID (already marked invalid by validateRecord)
-            if (guid == null || guid.trim().isEmpty()) {
-                continue;
-            }
-            
-            // Normalize GUID for comparison (trim and case-insensitive if needed)
-            String normalizedGuid = guid.trim();
-            
-            // If this GUID has been seen before, mark this record as invalid
-            if (seenGuids.contains(normalizedGuid)) {
-                record.setValid(false);
-                String currentError = record.getValidationError();
-                // Only add "Duplicate GUID" if it's not already in the error message
-                boolean isNewDuplicate = (currentError == null || !currentError.contains("Duplicate GUID"));
-                if (isNewDuplicate) {
-                    if (currentError == null || currentError.trim().isEmpty()) {
-                        record.setValidationError("Duplicate GUID (primary key violation)");
-                } else {
-                        record.setValidationError(currentError + "; Duplicate GUID (primary key violation)");
-                    }
-                    // Only log if this is a newly discovered duplicate
-                    logger.warn("Duplicate GUID found: {} - marking as invalid", normalizedGuid);
-                }
-            } else {
-                // First occurrence of this GUID - add to seen set
-                // Note: Record may still be invalid due to other validation errors
-                seenGuids.add(normalizedGuid);
+            checkDuplicate(record, seenGuids);
+        }
+    }
+
+    /**
+     * Checks a single record against the GUIDs seen so far, marking it invalid if its GUID
+     * was already seen. Records must be passed in original order so the first occurrence wins.
+     * Returns true if the record is a duplicate.
+     */
+    public boolean checkDuplicate(PricingRecord record, Set<String> seenGuids) {
+        String guid = record.getInstrumentGuid();
+        
+        // Skip records with null/empty GUID (already marked invalid by validateRecord)
+        if (guid == null || guid.trim().isEmpty()) {
+            return false;
+        }
+        
+        // Normalize GUID for comparison (trim and case-insensitive if needed)
+        String normalizedGuid = guid.trim();
+        
+        // First occurrence of this GUID - add to seen set
+        // Note: Record may still be invalid due to other validation errors
+        if (seenGuids.add(normalizedGuid)) {
+            return false;
+        }
+        
+        // This GUID has been seen before, mark this record as invalid
+        markDuplicate(record, normalizedGuid);
+        return true;
+    }
+
+    /**
+     * Marks a record whose trimmed GUID was seen before as an invalid duplicate
+     */
+    void markDuplicate(PricingRecord record, String normalizedGuid) {
+        record.setValid(false);
+        // Only log if this is a newly discovered duplicate
+        if (!record.hasError(ValidationError.DUPLICATE_GUID)) {
+            record.addError(ValidationError.DUPLICATE_GUID);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Duplicate GUID found: {} - marking as invalid", normalizedGuid);
             }
         }
     }
 
     /**
-     * Validates all records and identifies duplicates
+     * Applies the per-record rules to every record of a list, without checking for
+     * duplicates. Lists of at least pricing.validation.parallel-threshold records are
+     * split across several threads. Loads pass each batch of parsed records here, and then
+     * to identifyDuplicates with the GUIDs of the batches before it. Nothing is timed; the
+     * caller times the whole file.
+     */
+    public void validateRecords(List<PricingRecord> records) {
+        int threads = threads();
+        if (threads > 1 && records.size() >= parallelThreshold && records instanceof RandomAccess) {
+            new ParallelValidation(this, getValidationPool(threads)).validateRecords(records);
+            return;
+        }
+        for (PricingRecord record : records) {
+            validateRecord(record);
+        }
+    }
+
+    /**
+     * Validates all records and identifies duplicates.
+     * Lists of at least pricing.validation.parallel-threshold records are validated on
+     * several threads, with exactly the same results. The records must then be separate
+     * objects, like the ones the parser returns, as different threads change them.
      */
     public void validateAllRecords(List<PricingRecord> records) {
         logger.info("Starting validation of {} records", records.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        
+        int threads = threads();
+        if (threads > 1 && records.size() >= parallelThreshold && records instanceof RandomAccess) {
+            ParallelValidation parallel = new ParallelValidation(this, getValidationPool(threads));
+            parallel.validateRecords(records);
+            Timer.Sample duplicates = Timer.start(meterRegistry);
+            parallel.identifyDuplicates(records);
+            duplicates.stop(PricingMetrics.phaseTimer(meterRegistry, PricingMetrics.PHASE_DUPLICATES));
+            sample.stop(PricingMetrics.phaseTimer(meterRegistry, PricingMetrics.PHASE_VALIDATE));
+            logger.info("Validation completed on {} threads", threads);
+            return;
+        }
         
         // First, validate each record individually
         for (PricingRecord record : records) {
@@ -148,7 +221,27 @@ public class PricingValidator {
         // Then, identify duplicates
         identifyDuplicates(records);
         
+        sample.stop(PricingMetrics.phaseTimer(meterRegistry, PricingMetrics.PHASE_VALIDATE));
         logger.info("Validation completed");
     }
+
+    private int threads() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private synchronized ForkJoinPool getValidationPool(int threads) {
+        if (validationPool == null) {
+            validationPool = new ForkJoinPool(threads);
+        }
+        return validationPool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (validationPool != null) {
+            validationPool.shutdownNow();
+            validationPool = null;
+        }
+    }
 }
 
@@ -0,0 +1,99 @@
+package com.cme.pricing.generator;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the rows of a generated file have the requested share of each kind of
+ * error, as the validator sees them
+ */
+class PricingDataGeneratorTest {
+
+    private static final int ROWS = 200_000;
+    private static final double TOLERANCE = 0.005;
+
+    private static final Set<ValidationError> MISSING = EnumSet.of(ValidationError.MISSING_INSTRUMENT_GUID,
+            ValidationError.MISSING_TRADE_DATE, ValidationError.MISSING_PRICE,
+            ValidationError.MISSING_EXCHANGE, ValidationError.MISSING_PRODUCT_TYPE);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rowsHaveTheRequestedShareOfEachError() throws IOException {
+        PricingDataGenerator generator = new PricingDataGenerator();
+        generator.setRows(ROWS);
+        generator.setDuplicateRatio(0.3);
+        generator.setMissingFieldRatio(0.2);
+        generator.setInvalidPriceRatio(0.1);
+        generator.setUnknownExchangeRatio(0.1);
+        Path file = dir.resolve("generated.csv");
+        generator.write(file);
+
+        List<PricingRecord> records = new CSVParser().parseFile(file.toString());
+        PricingValidator validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        validator.validateAllRecords(records);
+        validator.shutdown();
+
+        int valid = 0;
+        int duplicates = 0;
+        int missing = 0;
+        int invalidPrices = 0;
+        int unknownExchanges = 0;
+        for (PricingRecord record : records) {
+            Set<ValidationError> errors = record.getErrors();
+            assertTrue(errors.size() <= 1, "more than one error: " + record);
+            if (errors.isEmpty()) {
+                valid++;
+            } else if (errors.contains(ValidationError.DUPLICATE_GUID)) {
+                duplicates++;
+            } else if (MISSING.containsAll(errors)) {
+                missing++;
+            } else if (errors.contains(ValidationError.INVALID_PRICE_FORMAT)) {
+                invalidPrices++;
+            } else if (errors.contains(ValidationError.INVALID_EXCHANGE)) {
+                unknownExchanges++;
+            }
+        }
+
+        assertEquals(ROWS, records.size());
+        assertEquals(0.3, duplicates / (double) ROWS, TOLERANCE);
+        assertEquals(0.2, missing / (double) ROWS, TOLERANCE);
+        assertEquals(0.1, invalidPrices / (double) ROWS, TOLERANCE);
+        assertEquals(0.1, unknownExchanges / (double) ROWS, TOLERANCE);
+        assertEquals(0.3, valid / (double) ROWS, TOLERANCE);
+    }
+
+    @Test
+    void sameSeedWritesTheSameFile() throws IOException {
+        PricingDataGenerator generator = new PricingDataGenerator();
+        generator.setRows(10_000);
+        generator.setDuplicateRatio(0.2);
+        generator.setMissingFieldRatio(0.2);
+        generator.setSeed(7);
+        Path first = dir.resolve("first.csv");
+        Path second = dir.resolve("second.csv");
+        generator.write(first);
+        generator.write(second);
+
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    }
+}
@@ -0,0 +1,205 @@
+package com.cme.pricing.parser;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs every case through each parser backend: OpenCSV, the memory-mapped tokenizer, and
+ * the memory-mapped tokenizer forced onto the parallel reader. All must give the same records.
+ */
+class CSVParserTest {
+
+    private static final String HEADER = "instrument_guid,trade_date,price,exchange,product_type\n";
+
+    @TempDir
+    Path dir;
+
+    private CSVParser parser;
+
+    @AfterEach
+    void shutdown() {
+        if (parser != null) {
+            parser.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void missingPriceLeavesPriceAndOriginalTextEmpty(String backend) throws IOException {
+        List<PricingRecord> records = parse(backend, HEADER
+                + "1001,2025-01-10,,CME,FUT\n"
+                + "1002,2025-01-10,   ,NYMEX,OPT\n");
+
+        assertEquals(2, records.size());
+        for (PricingRecord record : records) {
+            assertNull(record.getPrice());
+            assertNull(record.getOriginalPriceValue());
+            assertEquals(0, record.getErrorMask());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void invalidPriceKeepsTrimmedTextAndIsFlagged(String backend) throws IOException {
+        List<PricingRecord> records = parse(backend, HEADER
+                + "1001,2025-01-10, abc ,CME,FUT\n"
+                + "1002,2025-01-10,12.5.1,CME,FUT\n"
+                + "1003,2025-01-10,-4.25,CME,FUT\n");
+
+        assertEquals(3, records.size());
+        assertInvalidPrice(records.get(0), "abc");
+        assertInvalidPrice(records.get(1), "12.5.1");
+        assertEquals(-4.25, records.get(2).getPrice());
+        assertEquals(0, records.get(2).getErrorMask());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void shortRowsAreSkipped(String backend) throws IOException {
+        List<PricingRecord> records = parse(backend, HEADER
+                + "1001,2025-01-10,1.5,CME\n"
+                + "1002,2025-01-10,2.5,CME,FUT\n"
+                + "1003\n"
+                + "1004,2025-01-10,4.5,CBOT,OPT,extra\n");
+
+        assertEquals(List.of("1002", "1004"), records.stream().map(PricingRecord::getInstrumentGuid).toList());
+        assertEquals("OPT", records.get(1).getProductType());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void invalidDateIsLeftEmpty(String backend) throws IOException {
+        List<PricingRecord> records = parse(backend, HEADER
+                + "1001,2025-13-10,1.5,CME,FUT\n"
+                + "1002,10/01/2025,1.5,CME,FUT\n"
+                + "1003, 2025-01-10 ,1.5,CME,FUT\n");
+
+        assertNull(records.get(0).getTradeDate());
+        assertNull(records.get(1).getTradeDate());
+        assertEquals(LocalDate.of(2025, 1, 10), records.get(2).getTradeDate());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void quotedFieldsAreUnquotedAndTrimmed(String backend) throws IOException {
+        List<PricingRecord> records = parse(backend, HEADER
+                + "\" 1001 \",\"2025-01-10\",\"12.50\",\"CME\",\"FUT\"\n"
+                + "1002,2025-01-10,\"1,234.5\",CME,\"FUT,OPT\"\n"
+                + "1003,2025-01-10,7,\"CM\"\"E\",FUT\n");
+
+        assertEquals(3, records.size());
+        assertEquals("1001", records.get(0).getInstrumentGuid());
+        assertEquals(LocalDate.of(2025, 1, 10), records.get(0).getTradeDate());
+        assertEquals(12.5, records.get(0).getPrice());
+        assertInvalidPrice(records.get(1), "1,234.5");
+        assertEquals("FUT,OPT", records.get(1).getProductType());
+        assertEquals("CM\"E", records.get(2).getExchange());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void quotedFieldsMaySpanLines(String backend) throws IOException {
+        List<PricingRecord> records = parse(backend, HEADER
+                + "1001,2025-01-10,1.5,CME,\"FUT\nOPT\"\n"
+                + "1002,2025-01-10,2.5,\"NY\n\nMEX\",OPT\n"
+                + "1003,2025-01-10,3.5,CBOT,FUT\n");
+
+        assertEquals(List.of("1001", "1002", "1003"),
+                records.stream().map(PricingRecord::getInstrumentGuid).toList());
+        assertEquals("FUT\nOPT", records.get(0).getProductType());
+        assertEquals("NY\n\nMEX", records.get(1).getExchange());
+        assertEquals(3.5, records.get(2).getPrice());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void crlfLineEndingsGiveTheSameRecords(String backend) throws IOException {
+        String lf = HEADER
+                + "1001,2025-01-10,1.5,CME,FUT\n"
+                + "1002,2025-01-10,,NYMEX,OPT\n"
+                + "1003,2025-01-10,abc,CBOT,FUT\n"
+                + "1004,2025-01-10,4.5,CME,\"FUT\"\n"
+                + "1005,2025-01-10,5.5,CME\n"
+                + "1006,2025-01-10,6.5,CBOT,OPT";
+
+        List<String> expected = describe(parse(backend, lf));
+        assertEquals(5, expected.size());
+        assertEquals(expected, describe(parse(backend, lf.replace("\n", "\r\n"))));
+        assertEquals(expected, describe(parse(backend, lf.replace("\n", "\r\n") + "\r\n")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"opencsv", "mmap", "mmap-parallel"})
+    void headerOnlyAndEmptyFilesHaveNoRecords(String backend) throws IOException {
+        assertEquals(0, parse(backend, "").size());
+        assertEquals(0, parse(backend, HEADER).size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"mmap", "mmap-parallel"})
+    void mappedBackendsMatchOpenCsv(String backend) throws IOException {
+        String content = HEADER
+                + "1001,2025-01-10,123.45,CME,FUT\r\n"
+                + " 1002 ,2025-01-10, 1e3 ,NYMEX,OPT\n"
+                + "1003,2025-02-30,0,CME,FUT\n"
+                + ",2025-01-10,-1,,\n"
+                + "\"1004\",2025-01-10,\"3.\",\"CB\nOT\",FUT\r\n"
+                + "1005,,.5,CME,SWAP\n"
+                + "1006,2025-01-10,+,CME,FUT\n"
+                + "1007,2025-01-10,Infinity,CME,FUT\n"
+                + "1008,2025-01-10,NaN,CME,FUT";
+
+        assertEquals(describe(parse("opencsv", content)), describe(parse(backend, content)));
+    }
+
+    /**
+     * Parses the content with a parser set up for the backend
+     */
+    private List<PricingRecord> parse(String backend, String content) throws IOException {
+        Path file = Files.createTempFile(dir, "pricing", ".csv");
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+
+        shutdown();
+        parser = new CSVParser();
+        if (backend.startsWith("mmap")) {
+            ReflectionTestUtils.setField(parser, "backend", "mmap");
+        }
+        if (backend.equals("mmap-parallel")) {
+            ReflectionTestUtils.setField(parser, "parallelism", 4);
+            ReflectionTestUtils.setField(parser, "parallelMinBytes", 0L);
+        }
+        return parser.parseFile(file.toString());
+    }
+
+    private static void assertInvalidPrice(PricingRecord record, String text) {
+        assertNull(record.getPrice());
+        assertEquals(text, record.getOriginalPriceValue());
+        assertEquals(ValidationError.INVALID_PRICE_FORMAT.bit(), record.getErrorMask());
+    }
+
+    /**
+     * Every parsed field of each record, including those PricingRecord.equals ignores
+     */
+    static List<String> describe(List<PricingRecord> records) {
+        return records.stream()
+                .map(record -> String.join("|", record.getInstrumentGuid(), String.valueOf(record.getTradeDate()),
+                        String.valueOf(record.getPrice()), String.valueOf(record.getOriginalPriceValue()),
+                        record.getExchange(), record.getProductType(), String.valueOf(record.getErrorMask())))
+                .toList();
+    }
+}
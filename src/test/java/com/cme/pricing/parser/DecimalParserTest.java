@@ -0,0 +1,111 @@
+package com.cme.pricing.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares DecimalParser with Double.parseDouble, which it must match exactly: the same
+ * strings accepted and the same value, down to the sign of zero, for each of them
+ */
+class DecimalParserTest {
+
+    private final DecimalParser parser = new DecimalParser();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0", "-0", "+0", "0.0", "-0.000", "1", "-1", "+1", "12.5", "-4.25", "0.1", ".5", "5.", "-.5", "+.5",
+            "123456.789", "00012.500", "9007199254740993", "9007199254740992.5", "0.30000000000000004",
+            "1e3", "1E3", "1e+3", "1e-3", "-1.5e-7", "2.5E10", "1e22", "1e23", "1e-22", "1e-23", "1e308",
+            "1e309", "-1e309", "1e-324", "4.9e-324", "2.2250738585072014E-308", "1.7976931348623157e308",
+            "1e0000000000000000003", "0e999999999", "1e99999999999", "1e-99999999999",
+            "123456789012345678", "1234567890123456789", "12345678901234567890123456789",
+            "0.000000000000000000000000000123456789012345678901", "179769313486231580793728971405303415079934132710037826936173778980444968292764750946649017977587207096330286416692887910946555547851940402630657488671505820681908902000708383676273854845817711531764475730270069855571366959622842914819860834936475292719074168444365510704342711559699508093042880177904174",
+            "1d", "1D", "1f", "1F", "1.5e3d", "-2f", "1dd", "1fd", "1d ", " 1d", "d", ".d", "1e3x",
+            "0x1p3", "0X1P3", "-0x1.8p1", "0x.8p0", "0x1p-1074", "0x10", "0x", "0x1p", "0x1.8p1d", "0xg",
+            " 1.5", "1.5 ", "\t1.5\n", " \r\n12 ", "1 .5", "1. 5", "- 1",
+            "NaN", "-NaN", "+NaN", "Infinity", "-Infinity", "+Infinity", "nan", "infinity", "Inf", "NaNd",
+            "Infinityf", "NaN ", " Infinity",
+            "", " ", "\t", "+", "-", ".", "-.", "e3", ".e3", "1e", "1e+", "1e-", "1.2.3", "1..2", "1,5",
+            "--1", "+-1", "1-", "abc", "12a", "1_000", "٣"
+    })
+    void matchesParseDouble(String text) {
+        assertSameAsParseDouble(text);
+    }
+
+    /**
+     * Every double written the way Double.toString writes it, which covers the exponent form
+     * and seventeen-digit mantissas
+     */
+    @Test
+    void parsesDoublesAsWritten() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            assertSameAsParseDouble(Double.toString(value));
+            assertSameAsParseDouble(String.valueOf(random.nextInt(10_000_000) / 100.0));
+        }
+    }
+
+    /**
+     * Strings of the characters numbers are made of, in random order, so that most are
+     * invalid and the rest take unusual forms
+     */
+    @Test
+    void matchesParseDoubleOnRandomText() {
+        Random random = new Random(2);
+        String alphabet = "0123456789000..eE+-- dDfFxXpP1a\t";
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int length = random.nextInt(12); length > 0; length--) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameAsParseDouble(text.toString());
+        }
+    }
+
+    /**
+     * Decimal numbers with up to 30 digits and an exponent, around the limits of the
+     * direct computation: 53-bit mantissas, 18 mantissa digits and powers of ten up to 22
+     */
+    @Test
+    void matchesParseDoubleOnRandomNumbers() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextBoolean()) {
+                text.append(random.nextBoolean() ? '-' : '+');
+            }
+            int digits = 1 + random.nextInt(30);
+            int point = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == point) {
+                    text.append('.');
+                }
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                text.append('e').append(random.nextInt(80) - 40);
+            }
+            assertSameAsParseDouble(text.toString());
+        }
+    }
+
+    private void assertSameAsParseDouble(String text) {
+        int status = parser.parse(text);
+        double expected;
+        try {
+            expected = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            assertEquals(text.trim().isEmpty() ? DecimalParser.EMPTY : DecimalParser.INVALID, status, text);
+            return;
+        }
+        assertEquals(DecimalParser.OK, status, text);
+        // Double.equals compares bits, so -0.0 differs from 0.0 and NaN equals NaN
+        assertEquals(Double.valueOf(expected), Double.valueOf(parser.value()), text);
+    }
+}
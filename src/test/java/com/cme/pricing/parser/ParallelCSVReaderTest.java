@@ -0,0 +1,155 @@
+package com.cme.pricing.parser;
+
+import com.cme.pricing.model.PricingRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.cme.pricing.parser.CSVParserTest.describe;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that splitting a file into ranges gives the records of a single-threaded parse,
+ * in file order. The files are larger than two of the reader's 8 MB minimum ranges, so
+ * they are always split.
+ */
+class ParallelCSVReaderTest {
+
+    private static final long FILE_SIZE = 20L << 20;
+    private static final long MIN_RANGE = 8L << 20;
+
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\n", "\r\n"})
+    void rangesGiveTheRecordsOfASingleThreadedParse(String lineBreak) throws IOException {
+        Path file = writeFile(lineBreak, -1);
+
+        List<Long> rangeEnds = new ArrayList<>();
+        ParseProgress progress = new ParseProgress() {
+            @Override
+            void setBytesRead(long bytesRead) {
+                rangeEnds.add(bytesRead);
+                super.setBytesRead(bytesRead);
+            }
+        };
+        List<PricingRecord> parallel = new ArrayList<>();
+        int count = new ParallelCSVReader(pool).read(file.toString(), parallel::add, progress);
+
+        List<PricingRecord> sequential = new ArrayList<>();
+        MappedCSVReader.read(file.toString(), sequential::add, null);
+
+        assertEquals(sequential.size(), count);
+        assertEquals(describe(sequential), describe(parallel));
+        assertTrue(rangeEnds.size() >= 3, "expected at least three ranges, got " + rangeEnds);
+        assertEquals(Files.size(file), rangeEnds.get(rangeEnds.size() - 1));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, '\n'", "2, '\n'", "1, '\r\n'"})
+    void quotedFieldAcrossARangeBoundaryFallsBackToSequential(int boundary, String lineBreak) throws IOException {
+        // A quoted field with many line breaks, straddling the first or second range boundary
+        Path file = writeFile(lineBreak, boundary * MIN_RANGE);
+
+        List<PricingRecord> parallel = new ArrayList<>();
+        int count = new ParallelCSVReader(pool).read(file.toString(), parallel::add, null);
+
+        List<PricingRecord> sequential = new ArrayList<>();
+        MappedCSVReader.read(file.toString(), sequential::add, null);
+
+        assertEquals(sequential.size(), count);
+        assertEquals(describe(sequential), describe(parallel));
+        assertTrue(parallel.stream().anyMatch(record -> record.getProductType().contains("\n")));
+    }
+
+    @Test
+    void parserUsesRangesForLargeFilesAndMatchesOpenCsv() throws IOException {
+        Path file = writeFile("\n", MIN_RANGE);
+
+        CSVParser parser = new CSVParser();
+        List<PricingRecord> openCsv = parser.parseFile(file.toString());
+
+        CSVParser mapped = new CSVParser();
+        ReflectionTestUtils.setField(mapped, "backend", "mmap");
+        ReflectionTestUtils.setField(mapped, "parallelism", 4);
+        ReflectionTestUtils.setField(mapped, "parallelMinBytes", MIN_RANGE);
+        try {
+            assertEquals(describe(openCsv), describe(mapped.parseFile(file.toString())));
+        } finally {
+            mapped.shutdown();
+        }
+    }
+
+    /**
+     * Writes about FILE_SIZE bytes of random rows: valid, missing and invalid prices,
+     * short rows, quoted fields and invalid dates. If quotedAt is not negative, a quoted
+     * field spanning many lines is written so that it covers that offset.
+     */
+    private Path writeFile(String lineBreak, long quotedAt) throws IOException {
+        Path file = dir.resolve("ranges.csv");
+        Random random = new Random(42);
+        String[] exchanges = {"CME", "NYMEX", "CBOT", "COMEX", "ICE"};
+        String[] types = {"FUT", "OPT", "SWAP", "FWD"};
+        long written = 0;
+        boolean quoted = quotedAt < 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            String header = "instrument_guid,trade_date,price,exchange,product_type" + lineBreak;
+            writer.write(header);
+            written += header.length();
+            int guid = 0;
+            while (written < FILE_SIZE) {
+                String row;
+                if (!quoted && written > quotedAt - 2_000) {
+                    row = "Q" + guid + ",2025-01-10,1.0,CME,\"FUT" + (lineBreak + "line").repeat(1_000) + "\"";
+                    quoted = true;
+                } else {
+                    String price = switch (random.nextInt(20)) {
+                        case 0 -> "";
+                        case 1 -> "abc";
+                        case 2 -> "\"1,5\"";
+                        default -> String.valueOf(random.nextInt(100_000) / 100.0);
+                    };
+                    String date = random.nextInt(50) == 0 ? "2025-02-30" : "2025-01-" + (10 + random.nextInt(10));
+                    row = (random.nextInt(10) == 0 ? "G" + random.nextInt(guid + 1) : "G" + guid)
+                            + "," + date + "," + price + ","
+                            + (random.nextInt(30) == 0 ? "\"" + exchanges[random.nextInt(5)] + "\"" : exchanges[random.nextInt(5)])
+                            + (random.nextInt(100) == 0 ? "" : "," + types[random.nextInt(4)]);
+                }
+                row += lineBreak;
+                writer.write(row);
+                written += row.length();
+                guid++;
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,93 @@
+package com.cme.pricing.report;
+
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.service.EditJournal;
+import com.cme.pricing.service.PricingService;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares both ways of writing the text report with a committed copy of the expected
+ * report. The records cover every section: invalid, duplicate and missing values, and
+ * prices that are rounded to two decimals, kept as invalid text, or left blank.
+ */
+class ReportGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    private Locale locale;
+    private CSVParser parser;
+    private PricingValidator validator;
+    private ValidationReport report;
+
+    @BeforeEach
+    void loadRecords() throws IOException {
+        // Prices are formatted in the default locale, like String.format
+        locale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        parser = new CSVParser();
+        validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        PricingService service = new PricingService();
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "csvParser", parser);
+        ReflectionTestUtils.setField(service, "validator", validator);
+        ReflectionTestUtils.setField(service, "journal", new EditJournal());
+        Path records = dir.resolve("report-records.csv");
+        Files.writeString(records, resource("report-records.csv"));
+        report = service.loadAndValidateData(records.toString());
+    }
+
+    @AfterEach
+    void shutdown() {
+        parser.shutdown();
+        validator.shutdown();
+        Locale.setDefault(locale);
+    }
+
+    @Test
+    void generatedReportMatchesExpected() throws IOException {
+        Path output = dir.resolve("report.txt");
+        String content = generator().generateTextReport(report, output.toString());
+
+        String expected = resource("expected-report.txt");
+        assertEquals(expected, content);
+        assertEquals(expected, Files.readString(output));
+    }
+
+    @Test
+    void writtenReportMatchesExpected() throws IOException {
+        Path output = dir.resolve("report.txt");
+        generator().writeTextReport(report, output.toString());
+
+        assertEquals(resource("expected-report.txt"), Files.readString(output));
+    }
+
+    private static ReportGenerator generator() {
+        ReportGenerator generator = new ReportGenerator();
+        ReflectionTestUtils.setField(generator, "meterRegistry", new SimpleMeterRegistry());
+        return generator;
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = ReportGeneratorTest.class.getResourceAsStream(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
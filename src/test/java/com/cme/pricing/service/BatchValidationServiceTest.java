@@ -0,0 +1,143 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.BatchReport;
+import com.cme.pricing.model.FileReport;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.cme.pricing.service.PricingServiceEditTest.counters;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates batches of files that share GUIDs and compares the merged report with loading
+ * the same records: all files as one when duplicates are checked across files, and each
+ * file on its own when they are not
+ */
+class BatchValidationServiceTest {
+
+    private static final String HEADER = "instrument_guid,trade_date,price,exchange,product_type\n";
+    private static final int FILES = 4;
+    private static final int ROWS = 2_000;
+
+    @TempDir
+    Path dir;
+
+    private CSVParser parser;
+    private PricingValidator validator;
+    private BatchValidationService batchService;
+    private PricingService pricingService;
+
+    @BeforeEach
+    void createServices() {
+        parser = new CSVParser();
+        validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        batchService = new BatchValidationService();
+        ReflectionTestUtils.setField(batchService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(batchService, "csvParser", parser);
+        ReflectionTestUtils.setField(batchService, "validator", validator);
+        ReflectionTestUtils.setField(batchService, "parallelism", 3);
+        pricingService = new PricingService();
+        ReflectionTestUtils.setField(pricingService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pricingService, "csvParser", parser);
+        ReflectionTestUtils.setField(pricingService, "validator", validator);
+        ReflectionTestUtils.setField(pricingService, "journal", new EditJournal());
+    }
+
+    @AfterEach
+    void shutdown() {
+        batchService.shutdown();
+        parser.shutdown();
+        validator.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void crossFileDuplicatesGiveTheReportOfOneFile(long seed) throws IOException {
+        List<String> rows = writeFiles(new Random(seed));
+        BatchReport batch = batchService.validateFiles(dir.resolve("batch").toString(), true);
+
+        ValidationReport whole = load(rows);
+        assertEquals(counters(whole), counters(batch.getMergedReport()));
+
+        BatchReport separate = batchService.validateFiles(dir.resolve("batch").toString(), false);
+        int crossFile = batch.getMergedReport().getDuplicateRecords() - separate.getMergedReport().getDuplicateRecords();
+        assertTrue(crossFile > 0, "no GUIDs were repeated across files");
+        assertEquals(crossFile, batch.getCrossFileDuplicates());
+        assertEquals(crossFile, batch.getFileReports().stream().mapToInt(FileReport::getCrossFileDuplicates).sum());
+        assertEquals(0, batch.getFileReports().get(0).getCrossFileDuplicates());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void withoutCrossFileDuplicatesEachFileIsReportedOnItsOwn(long seed) throws IOException {
+        List<String> rows = writeFiles(new Random(seed));
+        BatchReport batch = batchService.validateFiles(dir.resolve("batch").toString(), false);
+
+        int[] merged = new int[counters(batch.getMergedReport()).size()];
+        for (int file = 0; file < FILES; file++) {
+            List<Integer> expected = counters(load(rows.subList(file * ROWS, (file + 1) * ROWS)));
+            assertEquals(expected, counters(batch.getFileReports().get(file).getReport()), "file " + file);
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += expected.get(i);
+            }
+        }
+        assertEquals(Arrays.stream(merged).boxed().toList(), counters(batch.getMergedReport()));
+        assertEquals(0, batch.getCrossFileDuplicates());
+    }
+
+    /**
+     * Loads the rows as one file and returns its report
+     */
+    private ValidationReport load(List<String> rows) throws IOException {
+        Path file = dir.resolve("whole.csv");
+        Files.writeString(file, HEADER + String.join("", rows));
+        return pricingService.loadAndValidateData(file.toString());
+    }
+
+    /**
+     * Writes FILES files to the batch directory, with GUIDs drawn from a pool shared by all
+     * of them, some with spaces around them. Returns the rows in file order.
+     */
+    private List<String> writeFiles(Random random) throws IOException {
+        String[] prices = {"12.5", "99", "0", "-1", "", "abc"};
+        String[] exchanges = {"CME", "NYMEX", "CBOT", "LSE", ""};
+        Path batch = Files.createDirectories(dir.resolve("batch"));
+        List<String> rows = new ArrayList<>();
+        for (int file = 0; file < FILES; file++) {
+            StringBuilder content = new StringBuilder(HEADER);
+            for (int i = 0; i < ROWS; i++) {
+                String guid = "G" + random.nextInt(ROWS * 2);
+                String row = switch (random.nextInt(10)) {
+                    case 0 -> " " + guid + " ";
+                    case 1 -> "";
+                    default -> guid;
+                } + "," + (random.nextInt(20) == 0 ? "" : "2025-01-1" + random.nextInt(10)) + ","
+                        + prices[random.nextInt(prices.length)] + ","
+                        + exchanges[random.nextInt(exchanges.length)] + ","
+                        + (random.nextInt(10) == 0 ? "SWAP" : "FUT") + "\n";
+                content.append(row);
+                rows.add(row);
+            }
+            Files.writeString(batch.resolve("pricing-" + file + ".csv"), content);
+        }
+        return rows;
+    }
+}
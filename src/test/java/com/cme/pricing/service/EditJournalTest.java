@@ -0,0 +1,238 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crashes a journaling service at different points, by cutting or damaging its journal
+ * file, and checks that a new one restores the data as it was after the last edit that
+ * made it to disk whole
+ */
+class EditJournalTest {
+
+    private static final int ROWS = 300;
+    private static final int EDITS = 200;
+
+    @TempDir
+    Path dir;
+
+    private final List<CSVParser> parsers = new ArrayList<>();
+    private final List<PricingValidator> validators = new ArrayList<>();
+    private final List<EditJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() throws IOException {
+        parsers.forEach(CSVParser::shutdown);
+        validators.forEach(PricingValidator::shutdown);
+        for (EditJournal journal : journals) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void journaledEditsAreReplayedOverTheSnapshot() throws IOException {
+        Map<Integer, List<String>> states = new HashMap<>();
+        editJournaled(new Random(1), states);
+        int lines = lines().size();
+
+        PricingService restored = restore();
+        assertEquals(states.get(lines), describe(restored.getAllRecords()));
+    }
+
+    /**
+     * A crash in the middle of writing the last entry leaves part of a line, which is cut
+     * off when the journal is opened again, so the restored data is that of the edit before
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    void lastEntryCutShortIsDiscarded(int seed) throws IOException {
+        Map<Integer, List<String>> states = new HashMap<>();
+        editJournaled(new Random(seed), states);
+        closeJournals();
+        Path journal = dir.resolve("edits.journal");
+        List<String> lines = lines();
+        long complete = Files.size(journal) - lines.get(lines.size() - 1).length() - 1;
+        long cut = complete + 1 + new Random(seed).nextInt(lines.get(lines.size() - 1).length());
+        truncate(journal, cut);
+
+        PricingService restored = restore();
+        assertEquals(complete, Files.size(journal));
+        assertEquals(states.get(lines.size() - 1), describe(restored.getAllRecords()));
+    }
+
+    /**
+     * The end of the journal is searched for its last line break block by block, so a
+     * partial line longer than a block is cut off as well
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100_000})
+    void partialLineAfterTheLastEntryIsDiscarded(int length) throws IOException {
+        Map<Integer, List<String>> states = new HashMap<>();
+        editJournaled(new Random(4), states);
+        closeJournals();
+        Path journal = dir.resolve("edits.journal");
+        long complete = Files.size(journal);
+        int lines = lines().size();
+        Files.writeString(journal, "{\"sequence\":" + "9".repeat(length), StandardOpenOption.APPEND);
+
+        PricingService restored = restore();
+        assertEquals(complete, Files.size(journal));
+        assertEquals(states.get(lines), describe(restored.getAllRecords()));
+    }
+
+    /**
+     * An entry that cannot be read is skipped, leaving a gap in the sequence numbers.
+     * Replay stops there, as the edits after it were made to data that included it, and
+     * the restored data is saved as a new snapshot so that later edits follow on from it.
+     */
+    @Test
+    void replayStopsAtAnUnreadableEntry() throws IOException {
+        Map<Integer, List<String>> states = new HashMap<>();
+        editJournaled(new Random(5), states);
+        closeJournals();
+        Path journal = dir.resolve("edits.journal");
+        List<String> lines = new ArrayList<>(lines());
+        int damaged = lines.size() / 2;
+        lines.set(damaged, lines.get(damaged).substring(0, lines.get(damaged).length() / 2));
+        Files.write(journal, lines, StandardCharsets.UTF_8);
+
+        EditJournal reopened = journal();
+        EditJournal.Contents contents = reopened.readAfter(0);
+        assertEquals(lines.size() - 1, contents.entries().size());
+        assertEquals(contents.entries().get(contents.entries().size() - 1).sequence, contents.lastSequence());
+
+        PricingService restored = service(reopened);
+        restored.restoreSnapshot(dir.resolve("pricing.snapshot").toString());
+        assertEquals(states.get(damaged), describe(restored.getAllRecords()));
+
+        // Edits made now are numbered after every journaled one and are replayed on their own
+        restored.deleteRecordByIndex(0);
+        List<String> expected = describe(restored.getAllRecords());
+        closeJournals();
+        assertEquals(expected, describe(restore().getAllRecords()));
+    }
+
+    /**
+     * Loads a file into a journaling service and makes random edits, noting the records
+     * after each one by the number of lines the journal then has
+     */
+    private void editJournaled(Random random, Map<Integer, List<String>> states) throws IOException {
+        PricingService service = service(journal());
+        service.loadAndValidateData(writeFile(random).toString());
+        states.put(lines().size(), describe(service.getAllRecords()));
+        for (int i = 0; i < EDITS; i++) {
+            edit(service, random);
+            states.put(lines().size(), describe(service.getAllRecords()));
+        }
+        assertTrue(lines().size() > EDITS / 2, "too few edits were accepted");
+    }
+
+    private PricingService restore() throws IOException {
+        PricingService service = service(journal());
+        service.restoreSnapshot(dir.resolve("pricing.snapshot").toString());
+        return service;
+    }
+
+    private EditJournal journal() throws IOException {
+        EditJournal journal = new EditJournal();
+        ReflectionTestUtils.setField(journal, "journalPath", dir.resolve("edits.journal").toString());
+        ReflectionTestUtils.setField(journal, "snapshotPath", dir.resolve("pricing.snapshot").toString());
+        journal.open();
+        journals.add(journal);
+        return journal;
+    }
+
+    private void closeJournals() throws IOException {
+        for (EditJournal journal : journals) {
+            journal.close();
+        }
+        journals.clear();
+    }
+
+    private PricingService service(EditJournal journal) {
+        CSVParser parser = new CSVParser();
+        PricingValidator validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        parsers.add(parser);
+        validators.add(validator);
+        PricingService service = new PricingService();
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "csvParser", parser);
+        ReflectionTestUtils.setField(service, "validator", validator);
+        ReflectionTestUtils.setField(service, "journal", journal);
+        return service;
+    }
+
+    private static void edit(PricingService service, Random random) {
+        int index = random.nextInt(service.getAllRecords().size() + 1);
+        PricingRecord change = new PricingRecord(random.nextInt(3) == 0 ? " G" + random.nextInt(ROWS) + " " : null,
+                LocalDate.of(2025, 2, 1 + random.nextInt(28)), random.nextInt(5) == 0 ? null : 1.0 + random.nextInt(99),
+                random.nextBoolean() ? "CME" : "LSE", random.nextBoolean() ? "FUT" : "OPT");
+        switch (random.nextInt(4)) {
+            case 0 -> service.updateRecordByIndex(index, change);
+            case 1 -> service.correctRecordByIndex(index, change);
+            case 2 -> service.deleteRecordByIndex(index);
+            default -> {
+                change.setInstrumentGuid("N" + random.nextInt(ROWS));
+                service.createRecord(change);
+            }
+        }
+    }
+
+    private List<String> lines() throws IOException {
+        return Files.readAllLines(dir.resolve("edits.journal"));
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private Path writeFile(Random random) throws IOException {
+        String[] prices = {"12.5", "99", "0", "-1", "", "abc"};
+        StringBuilder content = new StringBuilder("instrument_guid,trade_date,price,exchange,product_type\n");
+        for (int i = 0; i < ROWS; i++) {
+            content.append(random.nextInt(10) == 0 ? " G" + random.nextInt(ROWS) + " " : "G" + i).append(',')
+                    .append("2025-01-1").append(random.nextInt(10)).append(',')
+                    .append(prices[random.nextInt(prices.length)]).append(',')
+                    .append(random.nextBoolean() ? "CME" : "NYMEX").append(",FUT\n");
+        }
+        Path file = dir.resolve("records.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static List<String> describe(List<PricingRecord> records) {
+        return records.stream()
+                .map(record -> String.join("|", record.getInstrumentGuid(), String.valueOf(record.getTradeDate()),
+                        String.valueOf(record.getPrice()), record.getOriginalPriceValue(), record.getExchange(),
+                        record.getProductType(), String.valueOf(record.isValid()),
+                        String.valueOf(record.getErrorMask())))
+                .toList();
+    }
+}
@@ -0,0 +1,216 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Randomized checks of record edits. Every create, update, correct and delete only
+ * re-checks and re-counts the records it can affect, so after each one the results are
+ * compared with validating and counting all records again.
+ */
+class PricingServiceEditTest {
+
+    private static final int ROWS = 400;
+    private static final int MUTATIONS = 1_500;
+    private static final int GUIDS = 60;
+
+    @TempDir
+    Path dir;
+
+    private CSVParser parser;
+    private PricingValidator validator;
+    private PricingService service;
+
+    @BeforeEach
+    void createService() {
+        parser = new CSVParser();
+        validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        service = new PricingService();
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "csvParser", parser);
+        ReflectionTestUtils.setField(service, "validator", validator);
+        ReflectionTestUtils.setField(service, "journal", new EditJournal());
+    }
+
+    @AfterEach
+    void shutdown() {
+        parser.shutdown();
+        validator.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void editsGiveTheResultsOfAFullValidation(long seed) throws IOException {
+        Random random = new Random(seed);
+        service.loadAndValidateData(writeFile(random).toString());
+        assertMatchesFullValidation("after load");
+
+        for (int i = 0; i < MUTATIONS; i++) {
+            String mutation = mutate(random);
+            assertMatchesFullValidation("after mutation " + i + ": " + mutation);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void editsKeepTheReportEqualToARecount(long seed) throws IOException {
+        Random random = new Random(seed);
+        service.loadAndValidateData(writeFile(random).toString());
+        assertMatchesRecount("after load");
+
+        for (int i = 0; i < MUTATIONS; i++) {
+            String mutation = mutate(random);
+            assertMatchesRecount("after mutation " + i + ": " + mutation);
+        }
+    }
+
+    /**
+     * Compares the report kept up to date by the edits with the one generateReport
+     * counts from scratch, counters and record lists alike
+     */
+    private void assertMatchesRecount(String when) {
+        ValidationReport maintained = service.getCurrentReport();
+        ValidationReport recounted = service.generateReport();
+
+        assertEquals(counters(recounted), counters(maintained), when);
+        assertEquals(recounted.getAllRecords().stream().map(PricingRecord::toString).toList(),
+                maintained.getAllRecords().stream().map(PricingRecord::toString).toList(), when);
+        assertEquals(recounted.getInvalidRecordsList().stream().map(PricingRecord::toString).toList(),
+                maintained.getInvalidRecordsList().stream().map(PricingRecord::toString).toList(), when);
+        assertEquals(recounted.getDuplicateRecordsList(), maintained.getDuplicateRecordsList(), when);
+    }
+
+    static List<Integer> counters(ValidationReport report) {
+        return List.of(report.getTotalRecords(), report.getValidRecords(), report.getInvalidRecords(),
+                report.getDuplicateRecords(), report.getMissingPriceRecords(),
+                report.getInvalidPriceFormatRecords(), report.getNegativePriceRecords(),
+                report.getZeroPriceRecords(), report.getMissingInstrumentGuidRecords(),
+                report.getMissingTradeDateRecords(), report.getMissingExchangeRecords(),
+                report.getMissingProductTypeRecords(), report.getInvalidExchangeRecords(),
+                report.getInvalidProductTypeRecords());
+    }
+
+    /**
+     * Compares the error bits of every record with those of copies validated from scratch
+     */
+    private void assertMatchesFullValidation(String when) {
+        List<PricingRecord> records = service.getAllRecords();
+        List<PricingRecord> copies = new ArrayList<>(records.size());
+        for (PricingRecord record : records) {
+            PricingRecord copy = new PricingRecord(record.getInstrumentGuid(), record.getTradeDate(),
+                    record.getPrice(), record.getExchange(), record.getProductType());
+            copy.setOriginalPriceValue(record.getOriginalPriceValue());
+            if (record.getPrice() == null && record.getOriginalPriceValue() != null) {
+                // The parser's flag, which validation keeps until the price is replaced
+                copy.setErrorMask(ValidationError.INVALID_PRICE_FORMAT.bit());
+            }
+            copies.add(copy);
+        }
+        validator.validateAllRecords(copies);
+
+        for (int i = 0; i < records.size(); i++) {
+            PricingRecord record = records.get(i);
+            assertEquals(copies.get(i).getErrors(), record.getErrors(), when + ", record " + i + " " + record);
+            assertEquals(copies.get(i).isValid(), record.isValid(), when + ", record " + i + " " + record);
+        }
+    }
+
+    /**
+     * Applies one random edit, whether or not the service accepts it, and describes it
+     */
+    private String mutate(Random random) {
+        int size = service.getAllRecords().size();
+        int index = random.nextInt(size + 2);
+        String guid = guid(random);
+        PricingRecord change = record(random, random.nextBoolean());
+        return switch (random.nextInt(7)) {
+            case 0 -> "update " + guid + " " + service.updateRecord(guid, change);
+            case 1 -> "update #" + index + " " + service.updateRecordByIndex(index, change);
+            case 2 -> "correct " + guid + " " + service.correctRecord(guid, change);
+            case 3 -> "correct #" + index + " " + service.correctRecordByIndex(index, change);
+            case 4 -> "delete " + guid + " " + service.deleteRecord(guid);
+            case 5 -> "delete #" + index + " " + service.deleteRecordByIndex(index);
+            default -> {
+                PricingRecord created = record(random, false);
+                created.setInstrumentGuid(guid);
+                yield "create " + guid + " " + service.createRecord(created);
+            }
+        };
+    }
+
+    /**
+     * A random record; partial ones leave about half the fields null, as updates may
+     */
+    private static PricingRecord record(Random random, boolean partial) {
+        String[] exchanges = {"CME", "cme", "NYMEX", "CBOT", "LSE", " "};
+        String[] types = {"FUT", "opt", "SWAP", "BOND", ""};
+        Double[] prices = {12.5, 99.0, 0.0, -3.0, null};
+        PricingRecord record = new PricingRecord();
+        if (!partial || random.nextBoolean()) {
+            record.setInstrumentGuid(random.nextInt(4) == 0 ? guid(random) : null);
+        }
+        if (!partial || random.nextBoolean()) {
+            record.setTradeDate(random.nextInt(8) == 0 ? null : LocalDate.of(2025, 1, 1 + random.nextInt(28)));
+        }
+        if (!partial || random.nextBoolean()) {
+            record.setPrice(prices[random.nextInt(prices.length)]);
+        }
+        if (!partial || random.nextBoolean()) {
+            record.setExchange(exchanges[random.nextInt(exchanges.length)]);
+        }
+        if (!partial || random.nextBoolean()) {
+            record.setProductType(types[random.nextInt(types.length)]);
+        }
+        return record;
+    }
+
+    /**
+     * GUIDs from a small pool, so that duplicates are common; some have spaces around them
+     */
+    private static String guid(Random random) {
+        String guid = "G" + random.nextInt(GUIDS);
+        return switch (random.nextInt(10)) {
+            case 0 -> " " + guid + " ";
+            case 1 -> "";
+            default -> guid;
+        };
+    }
+
+    private Path writeFile(Random random) throws IOException {
+        String[] prices = {"12.5", "99", "0", "-1", "", "abc"};
+        String[] exchanges = {"CME", "NYMEX", "CBOT", "LSE", ""};
+        String[] types = {"FUT", "OPT", "SWAP", "BOND", ""};
+        StringBuilder content = new StringBuilder("instrument_guid,trade_date,price,exchange,product_type\n");
+        for (int i = 0; i < ROWS; i++) {
+            content.append(guid(random)).append(',')
+                    .append(random.nextInt(10) == 0 ? "bad-date" : "2025-01-1" + random.nextInt(10)).append(',')
+                    .append(prices[random.nextInt(prices.length)]).append(',')
+                    .append(exchanges[random.nextInt(exchanges.length)]).append(',')
+                    .append(types[random.nextInt(types.length)]).append('\n');
+        }
+        Path file = dir.resolve("records.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,103 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.RecordPage;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that record pages follow the sorted list, and that their cursors keep working
+ * across edits but not across a reload
+ */
+class PricingServicePageTest {
+
+    private static final int ROWS = 1_000;
+
+    @TempDir
+    Path dir;
+
+    private CSVParser parser;
+    private PricingValidator validator;
+    private PricingService service;
+    private Path file;
+
+    @BeforeEach
+    void createService() throws IOException {
+        parser = new CSVParser();
+        validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        service = new PricingService();
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "csvParser", parser);
+        ReflectionTestUtils.setField(service, "validator", validator);
+        ReflectionTestUtils.setField(service, "journal", new EditJournal());
+
+        StringBuilder content = new StringBuilder("instrument_guid,trade_date,price,exchange,product_type\n");
+        for (int i = 0; i < ROWS; i++) {
+            content.append(i % 7 == 0 ? "" : String.valueOf(i * 37 % ROWS)).append(",2025-01-10,")
+                    .append(i % 5 == 0 ? "-1" : "1.5").append(",CME,FUT\n");
+        }
+        file = dir.resolve("records.csv");
+        Files.writeString(file, content);
+        service.loadAndValidateData(file.toString());
+    }
+
+    @AfterEach
+    void shutdown() {
+        parser.shutdown();
+        validator.shutdown();
+    }
+
+    @Test
+    void pagesFollowTheSortedList() {
+        for (Boolean valid : new Boolean[] {null, true, false}) {
+            List<PricingRecord> sorted = service.getRecordsSorted(valid);
+            List<PricingRecord> paged = new ArrayList<>();
+            String cursor = null;
+            do {
+                RecordPage page = service.getRecordsPage(valid, cursor, 33);
+                assertEquals(sorted.size(), page.getTotalRecords());
+                paged.addAll(page.getRecords());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertEquals(sorted, paged, "valid " + valid);
+        }
+    }
+
+    @Test
+    void cursorOutlivesEditsButNotAReload() throws IOException {
+        RecordPage first = service.getRecordsPage(null, null, 10);
+        service.deleteRecordByIndex(500);
+
+        RecordPage second = service.getRecordsPage(null, first.getNextCursor(), 10);
+        assertEquals(service.getRecordsSorted(null).subList(10, 20), second.getRecords());
+
+        service.loadAndValidateData(file.toString());
+        String cursor = second.getNextCursor();
+        assertThrows(IllegalArgumentException.class, () -> service.getRecordsPage(null, cursor, 10));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        for (String cursor : new String[] {"", "b", "1.", ".b", "1.zzzzzz", "x.y.z"}) {
+            assertThrows(IllegalArgumentException.class, () -> service.getRecordsPage(null, cursor, 10), cursor);
+        }
+        assertNull(service.getRecordsPage(null, null, ROWS).getNextCursor());
+    }
+}
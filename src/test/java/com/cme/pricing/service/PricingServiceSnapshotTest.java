@@ -0,0 +1,159 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationReport;
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that data saved with saveSnapshot, corrections and deletions included, is
+ * restored by restoreSnapshot with the same records, errors and report
+ */
+class PricingServiceSnapshotTest {
+
+    private static final int ROWS = 5_000;
+
+    @TempDir
+    Path dir;
+
+    private final List<CSVParser> parsers = new ArrayList<>();
+    private final List<PricingValidator> validators = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        parsers.forEach(CSVParser::shutdown);
+        validators.forEach(PricingValidator::shutdown);
+    }
+
+    @Test
+    void restoreGivesTheDataThatWasSaved() throws IOException {
+        PricingService saved = service();
+        saved.loadAndValidateData(writeFile(new Random(1)).toString());
+        edit(saved, new Random(2));
+        Path snapshot = dir.resolve("pricing.snapshot");
+        assertEquals(saved.getAllRecords().size(), saved.saveSnapshot(snapshot.toString()));
+
+        PricingService restored = service();
+        restored.restoreSnapshot(snapshot.toString());
+
+        assertEquals(describe(saved.getAllRecords()), describe(restored.getAllRecords()));
+        assertEquals(counters(saved.getCurrentReport()), counters(restored.getCurrentReport()));
+        assertEquals(describe(saved.getCurrentReport().getInvalidRecordsList()),
+                describe(restored.getCurrentReport().getInvalidRecordsList()));
+        assertEquals(saved.getCurrentReport().getDuplicateRecordsList(),
+                restored.getCurrentReport().getDuplicateRecordsList());
+    }
+
+    @Test
+    void missingSnapshotRestoresNoRecords() throws IOException {
+        PricingService service = service();
+        service.restoreSnapshot(dir.resolve("none.snapshot").toString());
+
+        assertTrue(service.getAllRecords().isEmpty());
+    }
+
+    @Test
+    void truncatedSnapshotFailsAndLeavesNoRecords() throws IOException {
+        PricingService saved = service();
+        saved.loadAndValidateData(writeFile(new Random(3)).toString());
+        Path snapshot = dir.resolve("pricing.snapshot");
+        saved.saveSnapshot(snapshot.toString());
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        PricingService restored = service();
+        assertThrows(IOException.class, () -> restored.restoreSnapshot(snapshot.toString()));
+        assertTrue(restored.getAllRecords().isEmpty());
+    }
+
+    private PricingService service() {
+        CSVParser parser = new CSVParser();
+        PricingValidator validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        parsers.add(parser);
+        validators.add(validator);
+        PricingService service = new PricingService();
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "csvParser", parser);
+        ReflectionTestUtils.setField(service, "validator", validator);
+        ReflectionTestUtils.setField(service, "journal", new EditJournal());
+        return service;
+    }
+
+    /**
+     * Deletes some records and corrects others, some of them into duplicates
+     */
+    private static void edit(PricingService service, Random random) {
+        for (int i = 0; i < ROWS / 20; i++) {
+            service.deleteRecordByIndex(random.nextInt(service.getAllRecords().size()));
+            PricingRecord correction = new PricingRecord(" C" + random.nextInt(50) + " ",
+                    LocalDate.of(2025, 2, 1 + random.nextInt(28)), 10.0 + random.nextInt(90), "CBOT", "OPT");
+            service.correctRecordByIndex(random.nextInt(service.getAllRecords().size()), correction);
+        }
+    }
+
+    /**
+     * Rows with repeated and padded GUIDs, prices that do not parse, missing fields, and
+     * more exchanges and product types than the store has codes for
+     */
+    private Path writeFile(Random random) throws IOException {
+        String[] prices = {"12.5", "99", "0", "-1", "", "abc", "1,5"};
+        StringBuilder content = new StringBuilder("instrument_guid,trade_date,price,exchange,product_type\n");
+        for (int i = 0; i < ROWS; i++) {
+            String guid = switch (random.nextInt(10)) {
+                case 0 -> "";
+                case 1 -> " G" + random.nextInt(ROWS) + " ";
+                case 2 -> "G" + random.nextInt(ROWS);
+                default -> "G" + i;
+            };
+            content.append(guid).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : "2025-01-1" + random.nextInt(10)).append(',')
+                    .append('"').append(prices[random.nextInt(prices.length)]).append("\",")
+                    .append(random.nextBoolean() ? "CME" : "EX" + random.nextInt(400)).append(',')
+                    .append(random.nextBoolean() ? "FUT" : "T" + random.nextInt(300)).append('\n');
+        }
+        Path file = dir.resolve("records.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static List<Integer> counters(ValidationReport report) {
+        return List.of(report.getTotalRecords(), report.getValidRecords(), report.getInvalidRecords(),
+                report.getDuplicateRecords(), report.getMissingPriceRecords(),
+                report.getInvalidPriceFormatRecords(), report.getNegativePriceRecords(),
+                report.getZeroPriceRecords(), report.getMissingInstrumentGuidRecords(),
+                report.getMissingTradeDateRecords(), report.getMissingExchangeRecords(),
+                report.getMissingProductTypeRecords(), report.getInvalidExchangeRecords(),
+                report.getInvalidProductTypeRecords());
+    }
+
+    private static List<String> describe(List<PricingRecord> records) {
+        return records.stream()
+                .map(record -> String.join("|", record.getInstrumentGuid(), String.valueOf(record.getTradeDate()),
+                        String.valueOf(record.getPrice()), record.getOriginalPriceValue(), record.getExchange(),
+                        record.getProductType(), String.valueOf(record.isValid()),
+                        String.valueOf(record.getErrorMask()), record.getValidationError()))
+                .toList();
+    }
+}
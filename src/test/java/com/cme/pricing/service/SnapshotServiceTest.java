@@ -0,0 +1,93 @@
+package com.cme.pricing.service;
+
+import com.cme.pricing.parser.CSVParser;
+import com.cme.pricing.validator.PricingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that data is saved at shutdown only when it changed since the last save. The
+ * saved file is deleted first, so whether it comes back shows whether it was written.
+ */
+class SnapshotServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private CSVParser parser;
+    private PricingValidator validator;
+    private PricingService pricingService;
+    private SnapshotService snapshotService;
+    private Path snapshot;
+
+    @BeforeEach
+    void createServices() throws IOException {
+        parser = new CSVParser();
+        validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        pricingService = new PricingService();
+        ReflectionTestUtils.setField(pricingService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pricingService, "csvParser", parser);
+        ReflectionTestUtils.setField(pricingService, "validator", validator);
+        ReflectionTestUtils.setField(pricingService, "journal", new EditJournal());
+        snapshot = dir.resolve("pricing.snapshot");
+        snapshotService = new SnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "pricingService", pricingService);
+        ReflectionTestUtils.setField(snapshotService, "snapshotPath", snapshot.toString());
+
+        Path file = dir.resolve("records.csv");
+        Files.writeString(file, "instrument_guid,trade_date,price,exchange,product_type\n"
+                + "1001,2025-01-10,1.5,CME,FUT\n"
+                + "1002,2025-01-10,abc,CME,FUT\n"
+                + "1001,2025-01-10,2.5,NYMEX,OPT\n");
+        snapshotService.restore();
+        pricingService.loadAndValidateData(file.toString());
+        snapshotService.save(null);
+        Files.delete(snapshot);
+    }
+
+    @AfterEach
+    void shutdown() {
+        parser.shutdown();
+        validator.shutdown();
+    }
+
+    @Test
+    void regeneratedReportIsNotSavedAgain() {
+        pricingService.generateReport();
+        snapshotService.shutdown();
+
+        assertFalse(Files.exists(snapshot));
+    }
+
+    @Test
+    void editIsSaved() {
+        pricingService.deleteRecordByIndex(0);
+        snapshotService.shutdown();
+
+        assertTrue(Files.exists(snapshot));
+    }
+
+    @Test
+    void loadedSnapshotIsNotSavedAgain() throws IOException {
+        Path other = dir.resolve("other.snapshot");
+        snapshotService.save(other.toString());
+        Files.copy(other, snapshot);
+        snapshotService.load(null);
+        Files.delete(snapshot);
+        snapshotService.shutdown();
+
+        assertFalse(Files.exists(snapshot));
+    }
+}
@@ -0,0 +1,204 @@
+package com.cme.pricing.store;
+
+import com.cme.pricing.model.PricingRecord;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Randomized checks of the report order as records are added, deleted, re-validated and
+ * given new GUIDs in forked versions of a store, against sorting every record again
+ */
+class RecordStoreTest {
+
+    // Enough records for several chunks and many GuidOrder pages
+    private static final int RECORDS = 40_000;
+    private static final int CHANGES = 100;
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void reportOrderFollowsChanges(long seed) {
+        Random random = new Random(seed);
+        RecordStore store = new RecordStore();
+        for (int i = 0; i < RECORDS; i++) {
+            store.add(record(guid(random), random));
+        }
+        store.reportOrder();
+        int[] order = expectedOrder(store);
+
+        for (int change = 0; change < CHANGES; change++) {
+            RecordStore previous = store;
+            int[] previousOrder = order;
+            store = store.fork();
+            for (int edits = random.nextInt(5); edits >= 0; edits--) {
+                edit(store, random);
+            }
+            order = expectedOrder(store);
+
+            assertArrayEquals(order, store.reportOrder(), "after change " + change);
+            assertArrayEquals(order, pages(store, null, 1 + random.nextInt(5_000)));
+            boolean valid = random.nextBoolean();
+            assertArrayEquals(withValidity(store, order, valid), pages(store, valid, 1 + random.nextInt(500)));
+            // The version the change was made from keeps its order
+            assertArrayEquals(previousOrder, pages(previous, null, 1 + random.nextInt(5_000)));
+        }
+    }
+
+    /**
+     * Records without a GUID are left out: they keep their position while the sorted ones
+     * shift past them when a record is deleted, so only the sorted part reads unchanged
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void pagesContinueAfterTheirLastRecordIsDeleted(long seed) {
+        Random random = new Random(seed);
+        RecordStore store = new RecordStore();
+        for (int i = 0; i < RECORDS; i++) {
+            store.add(record(nonBlankGuid(random), random));
+        }
+        int[] expected = expectedOrder(store);
+
+        List<Integer> read = new ArrayList<>();
+        int cursor = -1;
+        while (true) {
+            int[] page = store.reportPage(null, cursor, 1 + random.nextInt(2_000));
+            if (page.length == 0) {
+                break;
+            }
+            Arrays.stream(page).forEach(read::add);
+            cursor = page[page.length - 1];
+            store = store.fork();
+            store.delete(cursor);
+        }
+
+        assertArrayEquals(expected, read.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static void edit(RecordStore store, Random random) {
+        int slot = random.nextInt(store.slotCount());
+        switch (random.nextInt(4)) {
+            case 0 -> store.add(record(guid(random), random));
+            case 1 -> store.delete(slot);
+            case 2 -> {
+                if (store.isLive(slot)) {
+                    store.setInstrumentGuid(slot, guid(random));
+                }
+            }
+            default -> {
+                if (store.isLive(slot)) {
+                    store.setValid(slot, random.nextBoolean());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the whole order in pages of the given size, each continuing from the last one
+     */
+    private static int[] pages(RecordStore store, Boolean valid, int size) {
+        List<Integer> slots = new ArrayList<>();
+        int cursor = -1;
+        while (true) {
+            int[] page = store.reportPage(valid, cursor, size);
+            if (page.length == 0) {
+                return slots.stream().mapToInt(Integer::intValue).toArray();
+            }
+            Arrays.stream(page).forEach(slots::add);
+            cursor = page[page.length - 1];
+        }
+    }
+
+    /**
+     * The report order worked out from scratch: records without a GUID keep their position,
+     * the others are sorted into the remaining positions
+     */
+    private static int[] expectedOrder(RecordStore store) {
+        List<Integer> live = new ArrayList<>();
+        List<Guid> withGuid = new ArrayList<>();
+        for (int slot = 0; slot < store.slotCount(); slot++) {
+            if (store.isLive(slot)) {
+                live.add(slot);
+                String guid = store.getInstrumentGuid(slot);
+                if (!isBlank(guid)) {
+                    withGuid.add(new Guid(slot, guid, parseInt(guid)));
+                }
+            }
+        }
+        withGuid.sort(null);
+        int next = 0;
+        int[] order = new int[live.size()];
+        for (int i = 0; i < order.length; i++) {
+            int slot = live.get(i);
+            order[i] = isBlank(store.getInstrumentGuid(slot)) ? slot : withGuid.get(next++).slot();
+        }
+        return order;
+    }
+
+    private static int[] withValidity(RecordStore store, int[] order, boolean valid) {
+        return Arrays.stream(order).filter(slot -> store.isValid(slot) == valid).toArray();
+    }
+
+    /**
+     * A GUID as reports sort it: ints first by value, then the rest by text, then by slot
+     */
+    private record Guid(int slot, String text, Integer value) implements Comparable<Guid> {
+        @Override
+        public int compareTo(Guid other) {
+            int compared;
+            if (value != null && other.value != null) {
+                compared = Integer.compare(value, other.value);
+            } else if (value != null || other.value != null) {
+                compared = value != null ? -1 : 1;
+            } else {
+                compared = text.compareTo(other.text);
+            }
+            return compared != 0 ? compared : Integer.compare(slot, other.slot);
+        }
+    }
+
+    private static Integer parseInt(String guid) {
+        // Checked first, as exceptions for every text GUID would make up most of the run
+        if (!guid.matches("-?\\d{1,9}")) {
+            return null;
+        }
+        return Integer.parseInt(guid);
+    }
+
+    private static boolean isBlank(String guid) {
+        return guid == null || guid.trim().isEmpty();
+    }
+
+    private static PricingRecord record(String guid, Random random) {
+        PricingRecord record = new PricingRecord(guid, LocalDate.of(2025, 1, 10), 1.5, "CME", "FUT");
+        record.setValid(random.nextInt(4) != 0);
+        return record;
+    }
+
+    /**
+     * Ints, text and blank GUIDs, with enough repeats that equal GUIDs are ordered by slot
+     */
+    private static String guid(Random random) {
+        return switch (random.nextInt(20)) {
+            case 0 -> null;
+            case 1 -> " ";
+            default -> nonBlankGuid(random);
+        };
+    }
+
+    private static String nonBlankGuid(Random random) {
+        return switch (random.nextInt(18)) {
+            case 0 -> "-" + random.nextInt(1_000);
+            case 1, 2, 3 -> "ABC" + random.nextInt(5_000);
+            case 4 -> " " + random.nextInt(100);
+            default -> String.valueOf(random.nextInt(30_000));
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package com.cme.pricing.store;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a store read back from a snapshot file holds the same records as the one
+ * written, and that a file cut short is rejected rather than loaded in part
+ */
+class SnapshotFileTest {
+
+    // More than one chunk, and more exchanges than the code dictionary has codes for
+    private static final int RECORDS = 20_000;
+    private static final int EXCHANGES = 300;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readGivesTheRecordsThatWereWritten() throws IOException {
+        RecordStore store = store(new Random(1));
+        Path file = dir.resolve("pricing.snapshot");
+        SnapshotFile.write(store, 42, file);
+
+        SnapshotFile.Contents contents = SnapshotFile.read(file);
+        RecordStore loaded = contents.store();
+
+        assertEquals(42, contents.sequence());
+        assertEquals(store.size(), loaded.size());
+        assertEquals(store.invalidCount(), loaded.invalidCount());
+        assertEquals(describe(store.records()), describe(loaded.records()));
+        for (int position = 0; position < store.size(); position++) {
+            assertEquals(store.getErrorMask(store.slotAt(position)), loaded.getErrorMask(position));
+        }
+        // The GUID dictionary comes back usable for lookups and ordering
+        for (String guid : List.of("G7", " G7 ", "G123", "missing")) {
+            assertArrayEquals(positions(store, store.findAll(guid)), loaded.findAll(guid), guid);
+            assertArrayEquals(positions(store, store.findAllTrimmed(guid)), loaded.findAllTrimmed(guid), guid);
+        }
+        assertArrayEquals(positions(store, store.reportOrder()), loaded.reportOrder());
+    }
+
+    @Test
+    void emptyStoreIsReadBackEmpty() throws IOException {
+        RecordStore store = new RecordStore();
+        store.freeze();
+        Path file = dir.resolve("empty.snapshot");
+        SnapshotFile.write(store, 0, file);
+
+        assertEquals(0, SnapshotFile.read(file).store().size());
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = dir.resolve("pricing.snapshot");
+        SnapshotFile.write(store(new Random(2)), 7, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Random random = new Random(3);
+        long[] lengths = {0, 20, 40, 41, bytes.length / 2, bytes.length - 8, bytes.length - 1,
+                random.nextInt(bytes.length), random.nextInt(bytes.length)};
+        for (long length : lengths) {
+            Path truncated = dir.resolve("truncated.snapshot");
+            Files.write(truncated, bytes);
+            try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+            assertThrows(IOException.class, () -> SnapshotFile.read(truncated), "cut at " + length);
+        }
+    }
+
+    /**
+     * A read-only store of varied records, some of them deleted: GUIDs with spaces around
+     * them or none at all, repeated GUIDs, prices that did not parse, exchanges beyond the
+     * code dictionary, and both error bits and free-text errors
+     */
+    private static RecordStore store(Random random) {
+        RecordStore store = new RecordStore();
+        for (int i = 0; i < RECORDS; i++) {
+            String guid = switch (random.nextInt(10)) {
+                case 0 -> null;
+                case 1 -> " G" + random.nextInt(500) + " ";
+                case 2 -> "G" + random.nextInt(500);
+                default -> "G" + i;
+            };
+            PricingRecord record = new PricingRecord(guid,
+                    random.nextInt(20) == 0 ? null : LocalDate.of(2025, 1, 1 + random.nextInt(28)),
+                    random.nextInt(10) == 0 ? null : random.nextInt(100_000) / 100.0,
+                    random.nextInt(20) == 0 ? null : "X" + random.nextInt(EXCHANGES),
+                    random.nextBoolean() ? "FUT" : "Type " + random.nextInt(10));
+            if (record.getPrice() == null && random.nextBoolean()) {
+                record.setOriginalPriceValue("abc" + random.nextInt(100));
+                record.setErrorMask(ValidationError.INVALID_PRICE_FORMAT.bit());
+            } else if (random.nextInt(5) == 0) {
+                record.setErrorMask(random.nextInt(1 << ValidationError.values().length));
+            } else if (random.nextInt(50) == 0) {
+                record.setValidationError("Checked by hand " + i);
+            }
+            record.setValid(record.getErrorMask() == 0 && record.getValidationError() == null);
+            store.add(record);
+        }
+        for (int i = 0; i < RECORDS / 10; i++) {
+            store.delete(random.nextInt(store.slotCount()));
+        }
+        store.freeze();
+        return store;
+    }
+
+    /**
+     * Turns slots of the written store into the positions the records have once read back
+     */
+    private static int[] positions(RecordStore store, int[] slots) {
+        int[] positions = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            positions[i] = store.positionOf(slots[i]);
+        }
+        return positions;
+    }
+
+    private static List<String> describe(List<PricingRecord> records) {
+        return records.stream()
+                .map(record -> String.join("|", record.getInstrumentGuid(), String.valueOf(record.getTradeDate()),
+                        String.valueOf(record.getPrice()), record.getOriginalPriceValue(), record.getExchange(),
+                        record.getProductType(), String.valueOf(record.isValid()),
+                        String.valueOf(record.getErrorMask()), record.getValidationError()))
+                .toList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.cme.pricing.validator;
+
+import com.cme.pricing.model.PricingRecord;
+import com.cme.pricing.model.ValidationError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that validating a list on several threads gives every record the errors and
+ * valid flag it gets on one thread
+ */
+class PricingValidatorTest {
+
+    private static final int RECORDS = 50_000;
+    private static final int THRESHOLD = 1_000;
+
+    @ParameterizedTest
+    @CsvSource({"1, 2", "2, 4", "3, 7"})
+    void parallelValidationMatchesSingleThreaded(long seed, int threads) {
+        List<PricingRecord> serial = records(new Random(seed));
+        List<PricingRecord> parallel = records(new Random(seed));
+
+        validate(serial, 1);
+        validate(parallel, threads);
+
+        long duplicates = serial.stream().filter(record -> record.hasError(ValidationError.DUPLICATE_GUID)).count();
+        assertTrue(duplicates > RECORDS / 10, "too few duplicates: " + duplicates);
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(serial.get(i).getErrorMask(), parallel.get(i).getErrorMask(), "record " + i + " " + serial.get(i));
+            assertEquals(serial.get(i).isValid(), parallel.get(i).isValid(), "record " + i + " " + serial.get(i));
+        }
+    }
+
+    private static void validate(List<PricingRecord> records, int threads) {
+        PricingValidator validator = new PricingValidator();
+        ReflectionTestUtils.setField(validator, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(validator, "parallelism", threads);
+        ReflectionTestUtils.setField(validator, "parallelThreshold", THRESHOLD);
+        try {
+            validator.validateAllRecords(records);
+        } finally {
+            validator.shutdown();
+        }
+    }
+
+    /**
+     * Records as the parser gives them, GUIDs drawn from a small pool so that most repeat,
+     * some with spaces around them and some blank, and a share of them invalid otherwise
+     */
+    private static List<PricingRecord> records(Random random) {
+        String[] exchanges = {"CME", "NYMEX", "CBOT", "COMEX", "LSE", null};
+        String[] types = {"FUT", "OPT", "SWAP", null};
+        List<PricingRecord> records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            String guid = "G" + random.nextInt(RECORDS / 3);
+            guid = switch (random.nextInt(10)) {
+                case 0 -> " " + guid + " ";
+                case 1 -> guid + "\t";
+                case 2 -> random.nextBoolean() ? null : "  ";
+                default -> guid;
+            };
+            PricingRecord record = new PricingRecord(guid,
+                    random.nextInt(30) == 0 ? null : LocalDate.of(2025, 1, 10),
+                    random.nextInt(10) == 0 ? null : random.nextInt(1_000) - 100.0,
+                    exchanges[random.nextInt(exchanges.length)], types[random.nextInt(types.length)]);
+            if (record.getPrice() == null && random.nextBoolean()) {
+                record.setOriginalPriceValue("abc");
+                record.setErrorMask(ValidationError.INVALID_PRICE_FORMAT.bit());
+            }
+            records.add(record);
+        }
+        return records;
+    }
+}